@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DRY, DRY, DRY...
+ *
+ * <p>
+ * each thread walks through the samples of a {@link Corpus} in order, so that the result never be constant-folded .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8"})
+public abstract class AbstractBenchmark {
+
+  /** the corpus to benchmark . */
+  @Param({"SHORT_NAME", "ADDRESS", "ASCII_LOG", "DOCUMENT"})
+  public Corpus corpus;
+
+  /** samples of the corpus . */
+  private String[] samples;
+
+  /** the index of the sample to use next . */
+  private int index;
+
+  /** generate samples . */
+  @Setup(Level.Trial)
+  public void setUp() {
+    samples = corpus.samples();
+    index = 0;
+  }
+
+  /**
+   * returns the next sample .
+   *
+   * @return the next sample
+   */
+  protected final String next() {
+    final String sample = samples[index];
+    index = ++index < samples.length ? index : 0;
+
+    return sample;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * runs benchmarks at a single thread and at all available processors, with {@link GCProfiler} .
+ *
+ * <p>
+ * usage: {@code java -cp benchmarks.jar jp.furplag.text.benchmark.BenchmarkRunner [JMH options] [regexp*]} .
+ * </p>
+ * <p>
+ * results are written to {@code jmh-result-t1.json} and {@code jmh-result-tN.json} ( N is the number of available processors ) .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class BenchmarkRunner {
+
+  /**
+   * BenchmarkRunner instances should NOT be constructed in standard programming.
+   */
+  private BenchmarkRunner() {}
+
+  /**
+   * run benchmarks .
+   *
+   * @param args JMH options, see {@code java -jar benchmarks.jar -h}
+   * @throws CommandLineOptionException if the options are invalid
+   * @throws RunnerException if benchmarks failed
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    for (int threads : IntStream.of(1, Runtime.getRuntime().availableProcessors()).distinct().toArray()) {/* @formatter:off */
+      new Runner(new OptionsBuilder()
+        .parent(commandLineOptions)
+        .addProfiler(GCProfiler.class)
+        .threads(threads)
+        .resultFormat(ResultFormatType.JSON)
+        .result(String.format("jmh-result-t%d.json", threads))
+        .build()).run();
+    /* @formatter:on */}
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.optimize.CharScannr;
+import jp.furplag.text.optimize.Optimizr;
+import jp.furplag.text.optimize.Trimr;
+
+/**
+ * benchmarks for {@link CharScannr}, compare Vector API scanning ( Java 17+ ) with the scalar one on the same corpora .
+ *
+ * <p>
+ * the scalar forks disable Vector API with the system property, so that both runs use the same multi-release JAR .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class CharScannrBenchmark extends AbstractBenchmark {
+
+  /** disables Vector API . */
+  private static final String scalar = "-Djp.furplag.text.optimize.CharScannr.vectorized=false";
+
+  /** enables Vector API ( incubating ) . */
+  private static final String vector = "jdk.incubator.vector";
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", scalar})
+  public boolean isOptimizedScalar() {
+    return Optimizr.isOptimized(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "--add-modules", vector})
+  public boolean isOptimizedVector() {
+    return Optimizr.isOptimized(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", scalar})
+  public String optimizeScalar() {
+    return Optimizr.optimize(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "--add-modules", vector})
+  public String optimizeVector() {
+    return Optimizr.optimize(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", scalar})
+  public boolean isTrimmedScalar() {
+    return Trimr.isTrimmed(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "--add-modules", vector})
+  public boolean isTrimmedVector() {
+    return Trimr.isTrimmed(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", scalar})
+  public boolean isNormalizedScalar() {
+    return CjkNormalizr.isNormalized(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "--add-modules", vector})
+  public boolean isNormalizedVector() {
+    return CjkNormalizr.isNormalized(next());
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+
+/**
+ * benchmarks for {@link CjkNormalizr} .
+ *
+ * @author furplag
+ *
+ */
+public class CjkNormalizrBenchmark extends AbstractBenchmark {
+
+  /** the sink reused between invocations . */
+  private final StringBuilder buffer = new StringBuilder();
+
+  @Benchmark
+  public String normalize() {
+    return CjkNormalizr.normalize(next());
+  }
+
+  @Benchmark
+  public StringBuilder normalizeAppendable() {
+    buffer.setLength(0);
+
+    return CjkNormalizr.normalize(next(), buffer);
+  }
+
+  @Benchmark
+  public String denormalize() {
+    return CjkNormalizr.denormalize(next());
+  }
+
+  @Benchmark
+  public boolean isNormalized() {
+    return CjkNormalizr.isNormalized(next());
+  }
+}
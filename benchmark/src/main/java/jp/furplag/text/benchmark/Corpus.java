@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * representative inputs for benchmarking .
+ *
+ * <p>
+ * every corpus is generated with a fixed seed, so that the same input is measured in each run .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public enum Corpus {
+
+  /** short personal names, mixed halfwidth / fullwidth and stray whitespaces . */
+  SHORT_NAME(1_024, Corpus::shortName),
+
+  /** addresses which contain halfwidth Katakana . */
+  ADDRESS(1_024, Corpus::address),
+
+  /** ASCII log lines . */
+  ASCII_LOG(1_024, Corpus::asciiLog),
+
+  /** a mixed Japanese document ( about 2 MB in UTF-16 ) . */
+  DOCUMENT(1, (random) -> document(random, 1 << 20)),
+
+  /** a mixed Japanese document ( about 10 MB in UTF-16 ) . */
+  LARGE_DOCUMENT(1, (random) -> document(random, 5 << 20));
+
+  /** the seed of randomize . */
+  private static final long seed = 20171231L;
+
+  /** family names . */
+  private static final String[] familyNames = {"山田", "ﾔﾏﾀﾞ", "ヤマダ", "やまだ", "Ｙａｍａｄａ", "Yamada", "佐藤", "ｻﾄｳ", "サトウ", "鈴木", "ｽｽﾞｷ", "スズキ", "髙橋", "ﾀｶﾊｼ", "Ｔａｋａｈａｓｈｉ"};
+
+  /** given names . */
+  private static final String[] givenNames = {"太郎", "ﾀﾛｳ", "タロウ", "たろう", "Ｔａｒｏ", "Taro", "花子", "ﾊﾅｺ", "ハナコ", "ｼﾞｮｰｼﾞ", "ジョージ", "ヴァイオレット", "ｳﾞｧｲｵﾚｯﾄ"};
+
+  /** separators of words . */
+  private static final String[] separators = {" ", "　", "\t", "  ", " 　 ", ""};
+
+  /** prefectures . */
+  private static final String[] prefectures = {"東京都", "大阪府", "北海道", "京都府", "神奈川県", "福岡県", "沖縄県"};
+
+  /** cities . */
+  private static final String[] cities = {"千代田区丸の内", "北区梅田", "札幌市中央区", "左京区", "横浜市西区", "博多区", "那覇市"};
+
+  /** buildings . */
+  private static final String[] buildings = {"ﾃｽﾄﾋﾞﾙ", "ｶﾌﾞｼｷｶﾞｲｼｬ ﾀﾞﾐｰ", "サンプルマンション", "ｺｰﾎﾟ ﾊﾟﾚｽ", "Ｔｏｗｅｒ", "メゾン・ド・ﾌﾟﾙﾐｴ"};
+
+  /** log levels . */
+  private static final String[] levels = {"TRACE", "DEBUG", "INFO ", "WARN ", "ERROR"};
+
+  /** paragraphs . */
+  private static final String[] paragraphs = {
+    "吾輩は猫である。名前はまだ無い。どこで生れたかとんと見当がつかぬ。",
+    "ｶﾞｷﾞｸﾞｹﾞｺﾞ　ﾊﾟﾋﾟﾌﾟﾍﾟﾎﾟ　ｱｲｳｴｵ、ｶｷｸｹｺ。",
+    "Ｔｈｅ ｑｕｉｃｋ ｂｒｏｗｎ ｆｏｘ ｊｕｍｐｓ ｏｖｅｒ ｔｈｅ ｌａｚｙ ｄｏｇ．",
+    "The quick brown fox jumps over the lazy dog.",
+    "コンピュータ‐システム　第１２３号（ｻﾝﾌﾟﾙ）",
+    "ハ゛ーハ゛ハ゜ハ゜、ワ゛ヰ゛ウ゛ヱ゛ヲ゛。",
+    "    \t  \r\n",
+  };
+
+  /** the number of samples . */
+  private final int size;
+
+  /** generator of a sample . */
+  private final Function<Random, String> generator;
+
+  /**
+   *
+   * @param size the number of samples
+   * @param generator generator of a sample
+   */
+  Corpus(int size, Function<Random, String> generator) {
+    this.size = size;
+    this.generator = generator;
+  }
+
+  /**
+   * returns samples of this corpus .
+   *
+   * @return samples of this corpus
+   */
+  public String[] samples() {
+    final Random random = new Random(seed + ordinal());
+
+    return IntStream.range(0, size).mapToObj((i) -> generator.apply(random)).toArray(String[]::new);
+  }
+
+  /**
+   * returns an element of the array randomly .
+   *
+   * @param random {@link Random}
+   * @param elements the elements
+   * @return an element of the array
+   */
+  private static String any(final Random random, final String... elements) {
+    return elements[random.nextInt(elements.length)];
+  }
+
+  /**
+   * returns a personal name .
+   *
+   * @param random {@link Random}
+   * @return a personal name
+   */
+  private static String shortName(final Random random) {
+    return any(random, separators) + any(random, familyNames) + any(random, separators) + any(random, givenNames) + (random.nextInt(4) > 0 ? "" : any(random, separators));
+  }
+
+  /**
+   * returns an address .
+   *
+   * @param random {@link Random}
+   * @return an address
+   */
+  private static String address(final Random random) {
+    return String.format("%s%s%d－%d-%d %s　%dF", any(random, prefectures), any(random, cities), random.nextInt(9) + 1, random.nextInt(30) + 1, random.nextInt(20) + 1, any(random, buildings), random.nextInt(50) + 1);
+  }
+
+  /**
+   * returns a line of log .
+   *
+   * @param random {@link Random}
+   * @return a line of log
+   */
+  private static String asciiLog(final Random random) {
+    return String.format("2017-12-31T%02d:%02d:%02d.%03dZ %s [worker-%d] jp.furplag.text.Sample - request id=%08x  took %dms\t", random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000), any(random, levels), random.nextInt(32), random.nextInt(), random.nextInt(1000));
+  }
+
+  /**
+   * returns a document .
+   *
+   * @param random {@link Random}
+   * @param length the length of document at least
+   * @return a document
+   */
+  private static String document(final Random random, final int length) {
+    final StringBuilder document = new StringBuilder(length + 128);
+    while (document.length() < length) {
+      document.append(any(random, paragraphs)).append(random.nextInt(8) > 0 ? "" : "\n\n");
+    }
+
+    return document.toString();
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.lang.Character.UnicodeBlock;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.regex.RegexrOrigin;
+
+/**
+ * allocation benchmarks for {@link CjkNormalizr#denormalize(String)} .
+ *
+ * <p>
+ * run with {@code -prof gc}, and compare {@code gc.alloc.rate.norm} ( bytes per operation ) of each benchmark:
+ * {@link #denormalize()} should allocate only a little more than {@link #normalize()},
+ * while {@link #perCodePoint()} ( the former implementation ) allocates a String and an array for each code point .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class DenormalizeBenchmark extends AbstractBenchmark {
+
+  /** exclude characters from translate, same as {@link CjkNormalizr} . */
+  private static final Map<Integer, Integer> exclusives = Map.of(0x00B7, 0xFF65, 0x00A2, 0xFFE0, 0x00A3, 0xFFE1, 0x00AC, 0xFFE2, 0x00AF, 0xFFE3, 0x00A6, 0xFFE4, 0x20A9, 0xFFE5, 0x00A5, 0xFFE6, 0x2502, 0xFFE8);
+
+  @Benchmark
+  public String normalize() {
+    return CjkNormalizr.normalize(next());
+  }
+
+  @Benchmark
+  public String denormalize() {
+    return CjkNormalizr.denormalize(next());
+  }
+
+  @Benchmark
+  public String perCodePoint() {
+    final String string = next();
+
+    return RegexrOrigin.isEmpty(string) ? string : CjkNormalizr.normalize(string).codePoints().map(DenormalizeBenchmark::translate).mapToObj(RegexrOrigin::newString).collect(Collectors.joining()).replaceAll(" ", "　");
+  }
+
+  /**
+   * the former implementation of translating .
+   *
+   * @param codePoint Unicode code point
+   * @return text denormalize if the character is the member of {@link UnicodeBlock#BASIC_LATIN}
+   */
+  private static int translate(final int codePoint) {
+    return exclusives.getOrDefault(codePoint, codePoint + (!UnicodeBlock.BASIC_LATIN.equals(UnicodeBlock.of(codePoint)) || Character.isWhitespace(codePoint) ? 0 : 0xFEE0));
+  }
+}
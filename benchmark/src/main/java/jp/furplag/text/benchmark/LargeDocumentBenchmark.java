@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.regex.Regexr;
+
+/**
+ * regression benchmarks for a large document, which has a lot of CJK runs .
+ *
+ * <p>
+ * the cost of normalization should grow linearly with the length of the document .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "-Xmx2g"})
+public class LargeDocumentBenchmark {
+
+  /** {@link Corpus#LARGE_DOCUMENT} . */
+  private String document;
+
+  /** generate the document . */
+  @Setup(Level.Trial)
+  public void setUp() {
+    document = Corpus.LARGE_DOCUMENT.samples()[0];
+  }
+
+  @Benchmark
+  public String cjkNormalizr() {
+    return Regexr.CjkNormalizr.replaceAll(document);
+  }
+
+  @Benchmark
+  public String normalize() {
+    return CjkNormalizr.normalize(document);
+  }
+}
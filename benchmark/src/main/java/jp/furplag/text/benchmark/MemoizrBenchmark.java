@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.normalize.Kanizr;
+import jp.furplag.text.normalize.Memoizr;
+
+/**
+ * benchmarks for {@link Memoizr}, compare with the normalization without memoization on the same corpora ( those are repetitive ) .
+ *
+ * @author furplag
+ *
+ */
+public class MemoizrBenchmark extends AbstractBenchmark {
+
+  /** enables memoization . */
+  private static final String memoized = "-Djp.furplag.text.normalize.Memoizr.maximumWeight=1048576";
+
+  @Benchmark
+  public String normalize() {
+    return CjkNormalizr.normalize(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", memoized})
+  public String normalizeMemoized() {
+    return CjkNormalizr.normalize(next());
+  }
+
+  @Benchmark
+  public String katakanize() {
+    return Kanizr.katakanize(next());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", memoized})
+  public String katakanizeMemoized() {
+    return Kanizr.katakanize(next());
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.furplag.text.regex.Regexr;
+import jp.furplag.text.regex.RegexrRecursive;
+
+/**
+ * worst-case benchmarks for {@link RegexrRecursive}, on adversarial whitespace .
+ *
+ * <p>
+ * compare each benchmark with {@code fullRescan} ( the former implementation, which rescans the whole text on every pass ) .
+ * note that {@link Regexr#LinefeedLintr} backtracks inside a long run of spaces without a newline, whichever implementation,
+ * because its pattern ( {@code \s+\n} ) tries every index of the run .
+ * </p>
+ * <p>
+ * {@code divergentGrowth} pins the worst case of the limits of divergent rewriting, which grows the whole text by one character on each pass
+ * ( {@code ^(x+)$ -> $1x} ), so that its cost should stay in proportion to the length of text .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8"})
+public class RegexrRecursiveBenchmark {
+
+  /** adversarial whitespace . */
+  public enum Shape {
+
+    /** a long run of spaces . */
+    SPACES((length) -> " ".repeat(length) + "x"),
+
+    /** a long run of spaces around a newline . */
+    SPACES_AROUND_NEWLINE((length) -> " ".repeat(length / 2) + "\n" + " ".repeat(length / 2)),
+
+    /** spaces and newlines, alternately . */
+    ALTERNATE((length) -> " \n".repeat(length / 2)),
+
+    /** mixed whitespace, which shrinks a little on each pass . */
+    MIXED((length) -> " 　\t".repeat(length / 3)),
+
+    /** nested pairs, which shrink only one pair on each pass . */
+    NESTED((length) -> "\t".repeat(length / 2) + "\n".repeat(length / 2));
+
+    /** generates the text . */
+    private final IntFunction<String> generator;
+
+    Shape(IntFunction<String> generator) {
+      this.generator = generator;
+    }
+  }
+
+  /** the shape of text . */
+  @Param({"SPACES", "SPACES_AROUND_NEWLINE", "ALTERNATE", "MIXED", "NESTED"})
+  public Shape shape;
+
+  /** the length of text . */
+  @Param({"1024", "16384"})
+  public int length;
+
+  /** the text . */
+  private String text;
+
+  /** removes the innermost pair of {@link Shape#NESTED} on each pass . */
+  private final Regexr nestedPair = new RegexrRecursive("\\t\\n", "");
+
+  /** grows the whole text by one character on each pass, never terminates . */
+  private final Regexr divergentGrowth = new RegexrRecursive("^([\\s\\S]+)$", "$1x");
+
+  /** generate the text . */
+  @Setup(Level.Trial)
+  public void setUp() {
+    text = shape.generator.apply(length);
+  }
+
+  @Benchmark
+  public String spaceLintr() {
+    return Regexr.SpaceLintr.replaceAll(text);
+  }
+
+  @Benchmark
+  public String spaceLintrFullRescan() {
+    return fullRescan(Regexr.SpaceLintr, "\u0020", text);
+  }
+
+  @Benchmark
+  public String linefeedLintr() {
+    return Regexr.LinefeedLintr.replaceAll(text);
+  }
+
+  @Benchmark
+  public String linefeedLintrFullRescan() {
+    return fullRescan(Regexr.LinefeedLintr, "\n", text);
+  }
+
+  @Benchmark
+  public String nestedPair() {
+    return nestedPair.replaceAll(text);
+  }
+
+  @Benchmark
+  public String nestedPairFullRescan() {
+    return fullRescan(nestedPair, "", text);
+  }
+
+  @Benchmark
+  public String divergentGrowth() {
+    return divergentGrowth.replaceAll(text);
+  }
+
+  /**
+   * the former implementation of recursive replacing .
+   *
+   * @param regexr {@link Regexr}
+   * @param replacement the replacement of the regexr
+   * @param string the text
+   * @return replaced text
+   */
+  private static String fullRescan(final Regexr regexr, final String replacement, final String string) {
+    String result = string;
+    final Matcher matcher = regexr.pattern().matcher(result);
+    while (matcher.find()) {
+      result = matcher.replaceAll(replacement);
+      matcher.reset(result);
+    }
+
+    return result;
+  }
+}
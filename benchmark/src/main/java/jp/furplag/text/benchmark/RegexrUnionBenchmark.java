@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import jp.furplag.text.regex.Regexr;
+import jp.furplag.text.regex.RegexrUnion;
+
+/**
+ * benchmarks for {@link RegexrUnion}, compare scanning once with scanning per {@link Regexr} on the same corpora .
+ *
+ * @author furplag
+ *
+ */
+public class RegexrUnionBenchmark extends AbstractBenchmark {
+
+  /** the rules of optimizing . */
+  private static final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr};
+
+  /** the union of {@link #regexrs} . */
+  private static final RegexrUnion union = RegexrUnion.of(regexrs);
+
+  @Benchmark
+  public boolean anyMatch() {
+    return union.anyMatch(next());
+  }
+
+  @Benchmark
+  public boolean anyMatchSeparately() {
+    final String sample = next();
+    for (Regexr regexr : regexrs) {
+      if (regexr.matches(sample)) return true;
+    }
+
+    return false;
+  }
+
+  @Benchmark
+  public Map<Regexr, List<String>> find() {
+    return union.find(next());
+  }
+
+  @Benchmark
+  public List<String> findSeparately() {
+    final String sample = next();
+    final List<String> found = new ArrayList<>();
+    for (Regexr regexr : regexrs) {
+      found.addAll(regexr.find(sample));
+    }
+
+    return found;
+  }
+}
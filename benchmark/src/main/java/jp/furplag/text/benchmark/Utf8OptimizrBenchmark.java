@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.optimize.Optimizr;
+import jp.furplag.text.optimize.Utf8Optimizr;
+
+/**
+ * benchmarks for {@link Utf8Optimizr}, compare with transcoding ( decode to String, then encode the result ) .
+ *
+ * @author furplag
+ *
+ */
+public class Utf8OptimizrBenchmark extends AbstractBenchmark {
+
+  /** UTF-8 encoded samples, in direct buffers . */
+  private ByteBuffer[] sources;
+
+  /** the destination reused between invocations . */
+  private ByteBuffer destination;
+
+  /** the index of the sample to use next . */
+  private int index;
+
+  /** encode samples . */
+  @Setup(Level.Trial)
+  public void encode() {
+    sources = Arrays.stream(corpus.samples()).map((sample) -> sample.getBytes(UTF_8)).map((bytes) -> ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()).toArray(ByteBuffer[]::new);
+    destination = ByteBuffer.allocateDirect(Arrays.stream(sources).mapToInt(ByteBuffer::capacity).max().orElse(0) * 2);
+    index = 0;
+  }
+
+  @Benchmark
+  public ByteBuffer optimize() {
+    return Utf8Optimizr.optimize(nextSource(), destination.clear());
+  }
+
+  @Benchmark
+  public ByteBuffer optimizeTranscoding() {
+    return destination.clear().put(UTF_8.encode(Optimizr.optimize(UTF_8.decode(nextSource()).toString())));
+  }
+
+  @Benchmark
+  public ByteBuffer normalize() {
+    return Utf8Optimizr.normalize(nextSource(), destination.clear());
+  }
+
+  @Benchmark
+  public ByteBuffer normalizeTranscoding() {
+    return destination.clear().put(UTF_8.encode(CjkNormalizr.normalize(UTF_8.decode(nextSource()).toString())));
+  }
+
+  /**
+   * returns the next sample, rewound .
+   *
+   * @return the next sample
+   */
+  private ByteBuffer nextSource() {
+    final ByteBuffer source = sources[index];
+    index = ++index < sources.length ? index : 0;
+
+    return source.rewind();
+  }
+}
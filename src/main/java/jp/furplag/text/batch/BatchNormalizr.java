@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.normalize.Kanizr;
+import jp.furplag.text.optimize.Optimizr;
+import jp.furplag.text.regex.Regexr;
+
+/**
+ * normalizes a large UTF-8 file in parallel .
+ *
+ * <p>
+ * the source is memory-mapped, and split into chunks just after a newline, which is never changed across by any of {@link Method} .
+ * the chunks are converted on a {@link ForkJoinPool}, and written in order .
+ * the number of the chunks in flight is limited to twice the parallelism, so that the memory usage depends on the chunk size, not on the file size .
+ * </p>
+ *
+ * <pre>
+ * java -cp text-commonize.jar:relic.jar jp.furplag.text.batch.BatchNormalizr [-m method] [-t threads[,threads...]] [-c chunk size in KiB] source destination
+ * </pre>
+ *
+ * @author furplag
+ *
+ */
+public final class BatchNormalizr {
+
+  /**
+   * the conversion of the text .
+   *
+   * @author furplag
+   *
+   */
+  public enum Method {
+    /** {@link CjkNormalizr#normalize(CharSequence, Appendable)} . */
+    NORMALIZE(CjkNormalizr::normalize, true),
+    /** {@link CjkNormalizr#denormalize(CharSequence, Appendable)} . */
+    DENORMALIZE(CjkNormalizr::denormalize, true),
+    /** {@link Optimizr#optimize(CharSequence, Appendable)} . */
+    OPTIMIZE(Optimizr::optimize, true),
+    /** {@link jp.furplag.text.optimize.Trimr#trim(CharSequence, Appendable)}, control characters are removed in each chunk, and whitespaces are trimmed at the both ends of the file . */
+    TRIM(Regexr.CtrlRemovr::replaceAll, false),
+    /** {@link Kanizr#hiraganize(CharSequence, Appendable)} . */
+    HIRAGANIZE(Kanizr::hiraganize, true),
+    /** {@link Kanizr#katakanize(CharSequence, Appendable)} . */
+    KATAKANIZE(Kanizr::katakanize, true);
+
+    /** the conversion of a chunk . */
+    private final BiFunction<CharSequence, StringBuilder, StringBuilder> converter;
+
+    /** true if the result of a chunk is optimized, and has to be joined by a newline . */
+    private final boolean optimized;
+
+    Method(BiFunction<CharSequence, StringBuilder, StringBuilder> converter, boolean optimized) {
+      this.converter = converter;
+      this.optimized = optimized;
+    }
+  }
+
+  /** the default chunk size in bytes . */
+  private static final int defaultChunkSize = 1 << 22;
+
+  /** the maximum chunk size in bytes, so that a chunk extended to the next newline is able to be mapped and decoded . */
+  static final int maximumChunkSize = 1 << 30;
+
+  /** the size of a window to find a newline in bytes . */
+  private static final int window = 1 << 16;
+
+  /**
+   * BatchNormalizr instances should NOT be constructed in standard programming.
+   */
+  private BatchNormalizr() {}
+
+  /**
+   * converts the source file, and writes the result to the destination .
+   *
+   * @param source the path of UTF-8 text to convert
+   * @param destination the path to write the result, overwritten if exists, must not be the same file as the source
+   * @param method {@link Method}
+   * @param parallelism the number of threads to convert
+   * @param chunkSize the number of bytes of a chunk, at least ( extended to the next newline )
+   * @return the size of the source in bytes
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the parameters are invalid, or the destination is the same file as the source
+   */
+  public static long convert(final Path source, final Path destination, final Method method, final int parallelism, final int chunkSize) throws IOException {
+    if (parallelism < 1 || chunkSize < 1) throw new IllegalArgumentException("parallelism and chunkSize must be greater than 0 .");
+    if (chunkSize > maximumChunkSize) throw new IllegalArgumentException("chunkSize must not be greater than " + maximumChunkSize + " .");
+    if (Files.exists(destination) && Files.isSameFile(source, destination)) throw new IllegalArgumentException("the destination must not be the same file as the source .");
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+        Writer writer = new BufferedWriter(Files.newBufferedWriter(destination, StandardCharsets.UTF_8), 1 << 16)) {
+      final long size = channel.size();
+      final Deque<ForkJoinTask<StringBuilder>> chunks = new ArrayDeque<>();
+      final Joiner joiner = new Joiner(writer, method.optimized);
+      for (long position = 0, end; position < size; position = end) {
+        end = boundary(channel, Math.min(size, position + chunkSize), size);
+        final long start = position;
+        final long length = end - position;
+        chunks.add(pool.submit(() -> convert(channel, start, length, method)));
+        if (chunks.size() >= parallelism * 2) joiner.join(chunks.poll().join());
+      }
+      while (!chunks.isEmpty()) joiner.join(chunks.poll().join());
+
+      return size;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * converts a chunk of the source .
+   *
+   * @param channel the source
+   * @param position the position of the chunk in bytes
+   * @param length the length of the chunk in bytes
+   * @param method {@link Method}
+   * @return converted text
+   */
+  private static StringBuilder convert(final FileChannel channel, final long position, final long length, final Method method) {
+    try {
+      final CharSequence text = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE)
+        .decode(channel.map(MapMode.READ_ONLY, position, length));
+
+      return method.converter.apply(text, new StringBuilder(text.length()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * returns the position just after the first newline from the specified position .
+   *
+   * @param channel the source
+   * @param position the position to find a newline from
+   * @param size the size of the source
+   * @return the position just after the first newline, or the size of the source if there is no newline
+   * @throws IOException if an I/O error occurs
+   */
+  private static long boundary(final FileChannel channel, final long position, final long size) throws IOException {
+    for (long start = position; start < size; start += window) {
+      final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, Math.min(window, size - start));
+      for (int i = 0; i < buffer.limit(); i++) {
+        if (buffer.get(i) == '\n') return start + i + 1;
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * writes the converted chunks in order .
+   *
+   * @author furplag
+   *
+   */
+  private static final class Joiner {
+
+    /** the destination . */
+    private final Writer writer;
+
+    /** true if the chunks has to be joined by a newline . */
+    private final boolean optimized;
+
+    /** trailing whitespaces, which are written only if any character follows . */
+    private final StringBuilder pending = new StringBuilder();
+
+    /** true if no character has been written . */
+    private boolean leading = true;
+
+    private Joiner(Writer writer, boolean optimized) {
+      this.writer = writer;
+      this.optimized = optimized;
+    }
+
+    /**
+     * writes a converted chunk .
+     *
+     * @param chunk converted text
+     * @throws IOException if an I/O error occurs
+     */
+    private void join(final StringBuilder chunk) throws IOException {
+      int start = 0;
+      int end = chunk.length();
+      if (!optimized) {
+        while (leading && start < end && Character.isWhitespace(chunk.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(chunk.charAt(end - 1))) end--;
+      }
+      if (start < end) {
+        writer.append(leading ? "" : optimized ? "\n" : pending).append(chunk, start, end);
+        pending.setLength(0);
+        leading = false;
+      }
+      if (!optimized && !leading) pending.append(chunk, Math.max(start, end), chunk.length());
+    }
+  }
+
+  /**
+   * returns the chunk size in bytes .
+   *
+   * @param kibibytes the chunk size in KiB
+   * @return the chunk size in bytes, or -1 if the value is not a number, or out of range
+   */
+  static int chunkSize(final String kibibytes) {
+    try {
+      final int chunkSize = Integer.parseInt(kibibytes);
+
+      return chunkSize < 1 || chunkSize > maximumChunkSize >> 10 ? -1 : chunkSize << 10;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * converts a file, and reports the throughput .
+   *
+   * @param args [-m method] [-t threads[,threads...]] [-c chunk size in KiB] source destination
+   * @throws IOException if an I/O error occurs
+   */
+  public static void main(String[] args) throws IOException {
+    Method method = Method.NORMALIZE;
+    int[] threads = {Runtime.getRuntime().availableProcessors()};
+    int chunkSize = defaultChunkSize;
+    int i = 0;
+    for (; i < args.length - 2; i += 2) {
+      switch (args[i]) {
+        case "-m": method = Method.valueOf(args[i + 1].toUpperCase(Locale.ROOT)); break;
+        case "-t": threads = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+        case "-c": chunkSize = chunkSize(args[i + 1]); break;
+        default: throw new IllegalArgumentException("unknown option: " + args[i]);
+      }
+    }
+    if (args.length - i != 2 || chunkSize < 1) {
+      System.err.println("usage: BatchNormalizr [-m " + Arrays.toString(Method.values()) + "] [-t threads[,threads...]] [-c chunk size in KiB ( 1 - " + (maximumChunkSize >> 10) + " )] source destination");
+      System.exit(1);
+    }
+    final Path source = Paths.get(args[i]);
+    final Path destination = Paths.get(args[i + 1]);
+    System.out.printf("%8s %12s %10s %10s%n", "threads", "bytes", "seconds", "MB/s");
+    for (int parallelism : threads) {
+      final long started = System.nanoTime();
+      final long size = convert(source, destination, method, parallelism, chunkSize);
+      final double seconds = (System.nanoTime() - started) / 1e9;
+      System.out.printf("%8d %12d %10.3f %10.2f%n", parallelism, size, seconds, size / 1e6 / seconds);
+    }
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * per-stage metrics of normalization ( call counts, characters processed, matches, recursive iterations and latencies ) .
+ *
+ * <p>
+ * disabled by default, and enabled using system property "{@code jp.furplag.text.metrics.Metricr.enabled}", then published as
+ * the MXBean "{@value #objectName}" . every recording is guarded by the constant {@link #enabled}
+ * ( {@code if (Metricr.enabled) stage.record(...)} ), so that it compiles down to nothing if disabled .
+ * </p>
+ * <p>
+ * the number of stages is bounded by {@link #maximumStages} ( e.g. stages of {@code Regexr} are named by its pattern ),
+ * and calls of stages over the bound are recorded together in the stage "{@value #other}" . the bound is able to change using
+ * system property "{@code jp.furplag.text.metrics.Metricr.maximumStages}" ( default: 256 ) .
+ * </p>
+ * <p>
+ * latencies are inclusive, e.g. the latency of {@code CjkNormalizr} contains the latencies of the stages of {@code Regexr} it uses .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class Metricr implements MetricrMXBean {
+
+  /** true if metrics are recorded . */
+  public static final boolean enabled = Boolean.getBoolean(Metricr.class.getName() + ".enabled");
+
+  /** the name of the MXBean . */
+  public static final String objectName = "jp.furplag.text:type=Metricr";
+
+  /** the maximum number of stages, excluding "{@value #other}" ( may exceed by the number of threads which register stages at the same time ) . */
+  static final int maximumStages = Math.max(1, Integer.getInteger(Metricr.class.getName() + ".maximumStages", 256));
+
+  /** the name of the stage, which records calls of the stages over {@link #maximumStages} . */
+  public static final String other = "other";
+
+  /** stages, by name . */
+  static final ConcurrentMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+  /** the stage which never records, used if disabled . */
+  private static final Stage noop = new Stage("");
+
+  static {
+    if (enabled) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Metricr(), new ObjectName(objectName));
+      } catch (JMException e) {
+        // already registered ( e.g. by the other class loader ), metrics are still available through the instance .
+      }
+    }
+  }
+
+  /** use {@link #stage(String)}, or the instance only for the MXBean . */
+  Metricr() {}
+
+  /**
+   * returns the stage of the specified name, the same instance for the same name .
+   *
+   * @param name the name of the stage
+   * @return {@link Stage}, which never records if disabled, or the stage "{@value #other}" if the number of stages reached {@link #maximumStages}
+   */
+  public static Stage stage(final String name) {
+    if (!enabled) return noop;
+    final Stage stage = stages.get(name);
+    if (stage != null) return stage;
+
+    return stages.computeIfAbsent(stages.size() < maximumStages ? name : other, Stage::new);
+  }
+
+  /**
+   * returns the time to start measuring .
+   *
+   * @return {@link System#nanoTime()}, or zero if disabled
+   */
+  public static long started() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Map<String, Snapshot> getStages() {
+    final Map<String, Snapshot> snapshots = new TreeMap<>();
+    stages.forEach((name, stage) -> snapshots.put(name, stage.snapshot()));
+
+    return snapshots;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void reset() {
+    stages.values().forEach(Stage::reset);
+  }
+
+  /**
+   * metrics of a stage, the counters are striped so that those never contend across threads .
+   *
+   * @author furplag
+   *
+   */
+  public static final class Stage {
+
+    /** the name of the stage . */
+    private final String name;
+
+    /** the number of calls . */
+    private final LongAdder calls = new LongAdder();
+
+    /** the number of characters processed . */
+    private final LongAdder characters = new LongAdder();
+
+    /** the number of matches . */
+    private final LongAdder matches = new LongAdder();
+
+    /** the number of recursive iterations . */
+    private final LongAdder iterations = new LongAdder();
+
+    /** the sum of latencies in nanoseconds . */
+    private final LongAdder nanos = new LongAdder();
+
+    /** the maximum latency in nanoseconds . */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    /** latency histogram, the bucket {@code i} counts the latencies less than {@code 2^i} nanoseconds ( and not less than {@code 2^(i-1)} ) . */
+    private final LongAdder[] latencies = new LongAdder[Long.SIZE];
+
+    /**
+     *
+     * @param name the name of the stage
+     */
+    Stage(final String name) {
+      this.name = name;
+      Arrays.setAll(latencies, (i) -> new LongAdder());
+    }
+
+    /**
+     * records a call, the caller should test {@link Metricr#enabled} before .
+     *
+     * @param started the time returned by {@link Metricr#started()}
+     * @param characters the number of characters processed
+     * @param matches the number of matches
+     */
+    public void record(final long started, final int characters, final int matches) {
+      record(started, characters, matches, 0);
+    }
+
+    /**
+     * records a call .
+     *
+     * @param started the time returned by {@link Metricr#started()}
+     * @param characters the number of characters processed
+     * @param matches the number of matches
+     * @param iterations the number of recursive iterations
+     */
+    public void record(final long started, final int characters, final int matches, final int iterations) {
+      final long elapsed = Math.max(0L, System.nanoTime() - started);
+      calls.increment();
+      this.characters.add(characters);
+      if (matches > 0) this.matches.add(matches);
+      if (iterations > 0) this.iterations.add(iterations);
+      nanos.add(elapsed);
+      maxNanos.accumulate(elapsed);
+      latencies[Long.SIZE - Long.numberOfLeadingZeros(elapsed)].increment();
+    }
+
+    /**
+     * returns the snapshot of this stage .
+     *
+     * @return {@link Snapshot}
+     */
+    Snapshot snapshot() {
+      return new Snapshot(name, calls.sum(), characters.sum(), matches.sum(), iterations.sum(), nanos.sum(), maxNanos.get(), Arrays.stream(latencies).mapToLong(LongAdder::sum).toArray());
+    }
+
+    /** resets all counters . */
+    void reset() {
+      Arrays.asList(calls, characters, matches, iterations, nanos).forEach(LongAdder::reset);
+      maxNanos.reset();
+      Arrays.stream(latencies).forEach(LongAdder::reset);
+    }
+  }
+
+  /**
+   * the snapshot of a stage, which is mapped to {@link javax.management.openmbean.CompositeData} .
+   *
+   * @author furplag
+   *
+   */
+  public static final class Snapshot {
+
+    /** the name of the stage . */
+    private final String name;
+
+    /** the number of calls . */
+    private final long calls;
+
+    /** the number of characters processed . */
+    private final long characters;
+
+    /** the number of matches . */
+    private final long matches;
+
+    /** the number of recursive iterations . */
+    private final long iterations;
+
+    /** the sum of latencies in nanoseconds . */
+    private final long totalNanos;
+
+    /** the maximum latency in nanoseconds . */
+    private final long maxNanos;
+
+    /** latency histogram . */
+    private final long[] latencyHistogram;
+
+    /**
+     *
+     * @param name the name of the stage
+     * @param calls the number of calls
+     * @param characters the number of characters processed
+     * @param matches the number of matches
+     * @param iterations the number of recursive iterations
+     * @param totalNanos the sum of latencies in nanoseconds
+     * @param maxNanos the maximum latency in nanoseconds
+     * @param latencyHistogram latency histogram
+     */
+    Snapshot(final String name, final long calls, final long characters, final long matches, final long iterations, final long totalNanos, final long maxNanos, final long[] latencyHistogram) {
+      this.name = name;
+      this.calls = calls;
+      this.characters = characters;
+      this.matches = matches;
+      this.iterations = iterations;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.latencyHistogram = latencyHistogram;
+    }
+
+    /** @return the name of the stage */
+    public String getName() {
+      return name;
+    }
+
+    /** @return the number of calls */
+    public long getCalls() {
+      return calls;
+    }
+
+    /** @return the number of characters processed */
+    public long getCharacters() {
+      return characters;
+    }
+
+    /** @return the number of matches */
+    public long getMatches() {
+      return matches;
+    }
+
+    /** @return the number of recursive iterations */
+    public long getIterations() {
+      return iterations;
+    }
+
+    /** @return the sum of latencies in nanoseconds */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /** @return the maximum latency in nanoseconds */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /** @return the mean latency in nanoseconds, or zero if never called */
+    public long getMeanNanos() {
+      return calls < 1 ? 0L : totalNanos / calls;
+    }
+
+    /** @return the median latency in nanoseconds ( the upper bound of the bucket ) */
+    public long getMedianNanos() {
+      return percentile(.5d);
+    }
+
+    /** @return the 99th percentile latency in nanoseconds ( the upper bound of the bucket ) */
+    public long getP99Nanos() {
+      return percentile(.99d);
+    }
+
+    /** @return latency histogram, the element {@code i} counts the latencies less than {@code 2^i} nanoseconds ( and not less than {@code 2^(i-1)} ) */
+    public long[] getLatencyHistogram() {
+      return latencyHistogram.clone();
+    }
+
+    /**
+     * returns the upper bound of the bucket which contains the specified percentile .
+     *
+     * @param percentile 0 - 1
+     * @return the latency in nanoseconds, or zero if never called
+     */
+    private long percentile(final double percentile) {
+      final long count = Arrays.stream(latencyHistogram).sum();
+      long cumulative = 0;
+      for (int i = 0; i < latencyHistogram.length; i++) {
+        cumulative += latencyHistogram[i];
+        if (count > 0 && cumulative >= Math.ceil(count * percentile)) return Math.min(maxNanos, i < Long.SIZE - 1 ? 1L << i : Long.MAX_VALUE);
+      }
+
+      return 0L;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+      return String.format("%s: calls: %d, characters: %d, matches: %d, iterations: %d, mean: %dns, median: %dns, p99: %dns, max: %dns", name, calls, characters, matches, iterations, getMeanNanos(), getMedianNanos(), getP99Nanos(), maxNanos);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import java.util.Map;
+
+/**
+ * the management interface of {@link Metricr} .
+ *
+ * @author furplag
+ *
+ */
+public interface MetricrMXBean {
+
+  /**
+   * returns whether metrics are recorded .
+   *
+   * @return true if metrics are recorded
+   */
+  boolean isEnabled();
+
+  /**
+   * returns the snapshots of all stages .
+   *
+   * @return the snapshots of all stages, by name
+   */
+  Map<String, Metricr.Snapshot> getStages();
+
+  /** resets the counters of all stages . */
+  void reset();
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a normalization call ( {@code CjkNormalizr}, {@code Optimizr} and {@code Kanizr} ), which is committed only if the call
+ * takes longer than the threshold ( default: 10 ms, see {@code text-commonize.jfc} ) .
+ *
+ * <p>
+ * the instance is never allocated actually while no recording enables this event ( escape analysis ), so that the overhead is negligible .
+ * stages which the operation does not have are zero .
+ * </p>
+ *
+ * <pre>{@code
+ * final NormalizationEvent event = NormalizationEvent.begin("CjkNormalizr.normalize", text, result);
+ * replace(text, replaced);
+ * event.normalized();
+ * optimize(replaced, result);
+ * event.optimized();
+ * event.end(result);
+ * }</pre>
+ *
+ * @author furplag
+ *
+ */
+@Name(NormalizationEvent.name)
+@Label("Normalization")
+@Category({"text-commonize"})
+@Description("a normalization call which took longer than the threshold")
+@StackTrace(true)
+@Threshold("10 ms")
+public final class NormalizationEvent extends Event {
+
+  /** the name of this event . */
+  public static final String name = "jp.furplag.text.Normalization";
+
+  /** the operation, e.g. {@code CjkNormalizr.normalize} . */
+  @Label("Operation")
+  private String operation;
+
+  /** the length of the input . */
+  @Label("Input Length")
+  private int inputLength;
+
+  /** the length of the output, or -1 if the destination is not a {@link CharSequence} . */
+  @Label("Output Length")
+  private int outputLength;
+
+  /** the duration of normalizing ( replacing by {@code Regexr.CjkNormalizr}, or the whole normalization in the other operation ) . */
+  @Label("Normalizing")
+  @Timespan(Timespan.NANOSECONDS)
+  private long normalizingDuration;
+
+  /** the duration of optimizing . */
+  @Label("Optimizing")
+  @Timespan(Timespan.NANOSECONDS)
+  private long optimizingDuration;
+
+  /** the duration of translating characters ( Kana, or fullwidth in denormalization ) . */
+  @Label("Translating")
+  @Timespan(Timespan.NANOSECONDS)
+  private long translatingDuration;
+
+  /** the length of the destination at the beginning . */
+  private transient int outputOffset;
+
+  /** true if began . */
+  private transient boolean began;
+
+  /** the time of the last stage ended . */
+  private transient long lap;
+
+  /**
+   * begins the event if enabled .
+   *
+   * @param operation the operation
+   * @param text the input
+   * @param result the destination, or null if the output is not appended
+   * @return {@link NormalizationEvent}
+   */
+  public static NormalizationEvent begin(final String operation, final CharSequence text, final Appendable result) {
+    final NormalizationEvent event = new NormalizationEvent();
+    if (event.isEnabled()) {
+      event.operation = operation;
+      event.inputLength = text.length();
+      event.outputOffset = result instanceof CharSequence ? ((CharSequence) result).length() : 0;
+      event.began = true;
+      event.begin();
+      event.lap = System.nanoTime();
+    }
+
+    return event;
+  }
+
+  /** ends the stage of normalizing . */
+  public void normalized() {
+    if (began) normalizingDuration += split();
+  }
+
+  /** ends the stage of optimizing . */
+  public void optimized() {
+    if (began) optimizingDuration += split();
+  }
+
+  /** ends the stage of translating . */
+  public void translated() {
+    if (began) translatingDuration += split();
+  }
+
+  /**
+   * ends the event, and commits it if the duration exceeds the threshold .
+   *
+   * @param result the destination
+   */
+  public void end(final Appendable result) {
+    if (began) end(result instanceof CharSequence ? ((CharSequence) result).length() - outputOffset : -1);
+  }
+
+  /**
+   * ends the event, and commits it if the duration exceeds the threshold .
+   *
+   * @param outputLength the length of the output
+   */
+  public void end(final int outputLength) {
+    if (!began) return;
+    end();
+    if (shouldCommit()) {
+      this.outputLength = outputLength;
+      commit();
+    }
+  }
+
+  /**
+   * returns the duration since the last stage ended .
+   *
+   * @return the duration in nanoseconds
+   */
+  private long split() {
+    final long now = System.nanoTime();
+    final long duration = now - lap;
+    lap = now;
+
+    return duration;
+  }
+}
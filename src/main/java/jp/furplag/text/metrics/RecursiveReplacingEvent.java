@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of recursive replacing ( {@code RegexrRecursive} ), which is committed only if the replacing takes longer than the threshold
+ * ( default: 10 ms, see {@code text-commonize.jfc} ) .
+ *
+ * <p>
+ * the event nests in the {@link NormalizationEvent} of the same thread, if the replacing is a part of a normalization .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+@Name(RecursiveReplacingEvent.name)
+@Label("Recursive Replacing")
+@Category({"text-commonize"})
+@Description("recursive replacing which took longer than the threshold")
+@StackTrace(true)
+@Threshold("10 ms")
+public final class RecursiveReplacingEvent extends Event {
+
+  /** the name of this event . */
+  public static final String name = "jp.furplag.text.RecursiveReplacing";
+
+  /** the regular expression . */
+  @Label("Regular Expression")
+  private String regex;
+
+  /** the length of the input . */
+  @Label("Input Length")
+  private int inputLength;
+
+  /** the length of the output . */
+  @Label("Output Length")
+  private int outputLength;
+
+  /** the number of passes which changed the text . */
+  @Label("Iterations")
+  private int iterations;
+
+  /** the number of matches in all passes . */
+  @Label("Matches")
+  private int matches;
+
+  /** true if the replacing stopped at the limits of divergent rewriting, before the text has no more change . */
+  @Label("Truncated")
+  private boolean truncated;
+
+  /**
+   * begins the event if enabled .
+   *
+   * @param regex the regular expression
+   * @param text the input
+   * @return {@link RecursiveReplacingEvent}
+   */
+  public static RecursiveReplacingEvent begin(final String regex, final CharSequence text) {
+    final RecursiveReplacingEvent event = new RecursiveReplacingEvent();
+    if (event.isEnabled()) {
+      event.regex = regex;
+      event.inputLength = text.length();
+      event.begin();
+    }
+
+    return event;
+  }
+
+  /**
+   * ends the event, and commits it if the duration exceeds the threshold .
+   *
+   * @param outputLength the length of the output
+   * @param iterations the number of passes which changed the text
+   * @param matches the number of matches in all passes
+   */
+  public void end(final int outputLength, final int iterations, final int matches) {
+    end(outputLength, iterations, matches, false);
+  }
+
+  /**
+   * ends the event, and commits it if the duration exceeds the threshold .
+   *
+   * @param outputLength the length of the output
+   * @param iterations the number of passes which changed the text
+   * @param matches the number of matches in all passes
+   * @param truncated true if the replacing stopped at the limits of divergent rewriting
+   */
+  public void end(final int outputLength, final int iterations, final int matches, final boolean truncated) {
+    if (regex == null) return;
+    end();
+    if (shouldCommit()) {
+      this.outputLength = outputLength;
+      this.iterations = iterations;
+      this.matches = matches;
+      this.truncated = truncated;
+      commit();
+    }
+  }
+}
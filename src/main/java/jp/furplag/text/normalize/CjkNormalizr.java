@@ -16,9 +16,14 @@
 package jp.furplag.text.normalize;
 
 import java.lang.Character.UnicodeBlock;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.stream.Collectors;
 import jp.furplag.sandbox.stream.Streamr;
+import jp.furplag.text.metrics.Metricr;
+import jp.furplag.text.metrics.NormalizationEvent;
+import jp.furplag.text.offset.OffsetMap;
+import jp.furplag.text.optimize.CharScannr;
 import jp.furplag.text.optimize.Optimizr;
 import jp.furplag.text.regex.Regexr;
 import jp.furplag.text.regex.RegexrOrigin;
@@ -51,6 +56,54 @@ public final class CjkNormalizr {
     .collect(Collectors.toUnmodifiableMap((k) -> k[1], (v) -> v[0], (a, b) -> b));
   /* @formatter:on */
 
+  /** metrics of {@link #normalize(CharSequence, Appendable)} . */
+  private static final Metricr.Stage normalizeMetrics = Metricr.stage("CjkNormalizr.normalize");
+
+  /** translated code points of U+0000 - U+00FF. */
+  private static final char[] latins = new char[0x0100];
+
+  /** the source of exclusives which are out of {@code latins}, in ascending order. */
+  private static final int[] exclusiveSources;
+
+  /** the destination of exclusives which are out of {@code latins}, in the same order as {@code exclusiveSources}. */
+  private static final int[] exclusiveDestinations;
+
+  /** true if the character of U+3000 - U+30FF and U+FF00 - U+FFEF never changes by normalization, in any context. */
+  private static final boolean[] stables = new boolean[0x0100 + 0x00F0];
+
+  /** the character of U+3000 - U+30FF and U+FF00 - U+FFEF normalized alone, or {@code 0} if that is not a single character which is neither whitespace nor composes. */
+  private static final char[] folds = new char[stables.length];
+
+  /** Kana ( U+3000 - U+30FF ) composed with voiced sound mark, or {@code 0} if not composable . */
+  private static final char[] voiceds = new char[0x0100];
+
+  /** Kana ( U+3000 - U+30FF ) composed with semi-voiced sound mark, or {@code 0} if not composable . */
+  private static final char[] semiVoiceds = new char[0x0100];
+
+  /** the maximum length of a piece of folded characters, which is passed to {@link Receivr} at once . */
+  private static final int pieceLength = 256;
+
+  static {
+    for (int i = 0; i < stables.length; i++) {
+      final char c = (char) (i < 0x0100 ? 0x3000 + i : 0xFF00 + i - 0x0100);
+      final String normalized = Regexr.CjkNormalizr.replaceAll(String.valueOf(c));
+      final boolean composing = (c >= '\u3099' && c <= '\u309C') || (c >= '\u302A' && c <= '\u302F') || c == '\uFFE3';
+      stables[i] = !composing && String.valueOf(c).equals(normalized);
+      folds[i] = !isCombining((char) 0, c) && normalized.length() == 1 && !isBlank(normalized.charAt(0)) ? normalized.charAt(0) : 0;
+    }
+    for (char c = '\u3000'; c <= '\u30FF'; c++) {
+      final String voiced = Regexr.CjkNormalizr.replaceAll(c + "\u3099");
+      final String semiVoiced = Regexr.CjkNormalizr.replaceAll(c + "\u309A");
+      voiceds[c - 0x3000] = voiced.length() == 1 ? voiced.charAt(0) : 0;
+      semiVoiceds[c - 0x3000] = semiVoiced.length() == 1 ? semiVoiced.charAt(0) : 0;
+    }
+    for (int codePoint = 0; codePoint < latins.length; codePoint++) {
+      latins[codePoint] = (char) exclusives.getOrDefault(codePoint, codePoint + (!UnicodeBlock.BASIC_LATIN.equals(UnicodeBlock.of(codePoint)) || Character.isWhitespace(codePoint) ? 0 : differenceOfCodepoint)).intValue();
+    }
+    exclusiveSources = exclusives.keySet().stream().mapToInt(Integer::intValue).filter((codePoint) -> codePoint >= latins.length).sorted().toArray();
+    exclusiveDestinations = Arrays.stream(exclusiveSources).map(exclusives::get).toArray();
+  }
+
   /**
    * returns denormalized string for using under standard input text .
    *
@@ -67,17 +120,117 @@ public final class CjkNormalizr {
    * @return optimized text
    */
   public static String denormalize(final String string) {
-    return RegexrOrigin.isEmpty(string) ? string : normalize(string).codePoints().map(CjkNormalizr::translate).mapToObj(RegexrOrigin::newString).collect(Collectors.joining()).replaceAll("\u0020", "\u3000");
+    if (RegexrOrigin.isEmpty(string)) return string;
+    final NormalizationEvent event = NormalizationEvent.begin("CjkNormalizr.denormalize", string, null);
+    final char[] chars = normalize(string).toCharArray();
+    event.normalized();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = chars[i] == '\u0020' ? '\u3000' : (char) translate(chars[i]);
+    }
+    event.translated();
+    event.end(chars.length);
+
+    return new String(chars);
+  }
+
+  /**
+   * appends denormalized text to the specified {@link Appendable} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append denormalized text
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   * @see #denormalize(String)
+   */
+  public static <T extends Appendable> T denormalize(final CharSequence text, final T result) {
+    if (text == null || text.length() < 1) return result;
+    final NormalizationEvent event = NormalizationEvent.begin("CjkNormalizr.denormalize", text, result);
+    final StringBuilder normalized = normalize(text, new StringBuilder(text.length()));
+    event.normalized();
+    for (int i = 0; i < normalized.length(); i++) {
+      normalized.setCharAt(i, normalized.charAt(i) == '\u0020' ? '\u3000' : (char) translate(normalized.charAt(i)));
+    }
+    RegexrOrigin.append(result, normalized);
+    event.translated();
+    event.end(result);
+
+    return result;
   }
 
   /**
    * detects whether the specified string is normalized.
    *
+   * <p>
+   * scans the string only once, and stops at the first character which {@link Optimizr#optimize(String)} changes .
+   * the string is normalized actually to compare, only if it contains any character which may change by normalization
+   * ( e.g. Halfwidth Katakana, Fullwidth Latin, and sound marks ) .
+   * </p>
+   *
    * @param string the string, maybe null
    * @return true if the specified string is normalized
    */
   public static boolean isNormalized(final String string) {
-    return RegexrOrigin.isEmpty(string) || (Optimizr.isOptimized(string) && string.equals(normalize(string)));
+    if (RegexrOrigin.isEmpty(string)) return true;
+    if (!Optimizr.isOptimized(string)) return false;
+    final CharScannr scannr = CharScannr.of(string);
+    boolean ambiguous = false;
+    boolean separated = false;
+    for (int i = 0; i < string.length(); i++) {
+      final int next = scannr.skipLatin(i);
+      if (next >= string.length()) break;
+      separated &= next == i;
+      i = next;
+      final char c = string.charAt(i);
+      if (!Character.isWhitespace(c) && c != '\u00A0') {
+        ambiguous |= !isStable(c);
+        separated = false;
+      } else if (separated || (c != '\u0020' && c != '\n')) {
+        return false;
+      } else {
+        separated = true;
+      }
+    }
+
+    return !ambiguous || string.equals(normalize(string));
+  }
+
+  /**
+   * detects whether the specified character never changes by normalization, in any context .
+   *
+   * @param c the character
+   * @return true if the specified character never changes by normalization
+   */
+  private static boolean isStable(final char c) {
+    if (c >= '\u2010' && c <= '\u2012') return false;
+    if (c >= '\u3000' && c <= '\u30FF') return stables[c - 0x3000];
+
+    return c < '\uFF00' || c > '\uFFEF' || stables[c - 0xFF00 + 0x0100];
+  }
+
+  /**
+   * detects whether the specified character is neither a control character nor a whitespace, and never changes by normalization in any context .
+   *
+   * <p>
+   * a sequence of those characters is normalized to itself, unless followed by a character which composes with ( e.g. sound marks ) .
+   * </p>
+   *
+   * @param c the character
+   * @return true if the specified character passes through normalization as it is
+   * @see Kanizr
+   */
+  static boolean isPlain(final char c) {
+    return !Character.isWhitespace(c) && c != '\u00A0' && !Character.isISOControl(c) && isStable(c);
+  }
+
+  /**
+   * detects whether the specified character is a whitespace or a control character, which normalization removes or turns into the separator .
+   *
+   * @param c the character
+   * @return true if the specified character is a whitespace, a no-break space or a control character
+   */
+  private static boolean isBlank(final char c) {
+    return Character.isWhitespace(c) || c == '\u00A0' || Character.isISOControl(c);
   }
 
   /**
@@ -94,9 +247,244 @@ public final class CjkNormalizr {
    *
    * @param string the string, maybe null
    * @return optimized text
+   * @see Memoizr#Normalizr
    */
   public static String normalize(final String string) {
-    return RegexrOrigin.isEmpty(string) ? string : Optimizr.optimize(RegexrOrigin.replaceAll(string, Regexr.CjkNormalizr));
+    return RegexrOrigin.isEmpty(string) ? string : Memoizr.Normalizr.apply(string, CjkNormalizr::normalizing);
+  }
+
+  /**
+   * appends normalized text to the specified {@link Appendable} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append normalized text
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   * @see #normalize(String)
+   */
+  public static <T extends Appendable> T normalize(final CharSequence text, final T result) {
+    return normalize(text, result, null);
+  }
+
+  /**
+   * appends normalized text to the specified {@link Appendable}, and records the offsets of the normalization .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append normalized text
+   * @param offsets {@link OffsetMap.Builder} to record the offsets between the text and the appended text, or null not to record
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   * @see #normalize(String)
+   * @see Editr
+   */
+  public static <T extends Appendable> T normalize(final CharSequence text, final T result, final OffsetMap.Builder offsets) {
+    if (text == null || text.length() < 1) return result;
+    final long started = Metricr.started();
+    final NormalizationEvent event = NormalizationEvent.begin("CjkNormalizr.normalize", text, result);
+    final OffsetMap.Builder replacing = offsets == null ? null : new OffsetMap.Builder();
+    final StringBuilder replaced = Regexr.CjkNormalizr.replaceAll(text, new StringBuilder(text.length()), replacing);
+    event.normalized();
+    final OffsetMap.Builder optimizing = offsets == null ? null : new OffsetMap.Builder();
+    Optimizr.optimize(replaced, result, optimizing);
+    if (offsets != null) offsets.append(replacing.build().andThen(optimizing.build()));
+    event.optimized();
+    if (Metricr.enabled) normalizeMetrics.record(started, text.length(), 0);
+    event.end(result);
+
+    return result;
+  }
+
+  /**
+   * normalizes the text in pieces, passing the characters which never change by normalization to the {@link Receivr} as they are .
+   *
+   * <p>
+   * the text is read only once : the characters which never change by normalization ( see {@link #isPlain(char)} ) are passed in bulk without copying,
+   * a sequence of whitespaces and control characters between those turns into the separator same as {@link Optimizr} , and the characters which
+   * normalize to another single character by itself ( e.g. Halfwidth Katakana, Fullwidth Latin, and hyphens ) are folded into the buffer in the same loop .
+   * only a segment of the text between the boundaries where the text is able to be normalized separately ( see {@link #isSeparable(char, char)} ) ,
+   * which contains any of the characters which compose, need canonical reordering, or expand ( e.g. sound marks, Halfwidth Hangul ) ,
+   * is normalized actually into the buffer . so that the buffer holds at most one piece, and the concatenation of the pieces is always the same as
+   * {@link #normalize(CharSequence, Appendable)} .
+   * </p>
+   * <p>
+   * the pieces in the buffer are overwritten by the next piece, so that {@link Receivr} has to consume those before return .
+   * </p>
+   *
+   * @param text the text, maybe null
+   * @param receivr {@link Receivr} to receive normalized text
+   * @param buffer the buffer to fold or normalize the pieces into, or null to use a new one if needed
+   */
+  static void normalize(final CharSequence text, final Receivr receivr, final StringBuilder buffer) {
+    final int length = text == null ? 0 : text.length();
+    StringBuilder piece = buffer;
+    int start = 0;
+    int i = 0;
+    boolean written = false;
+    while (i < length) {
+      final char c = text.charAt(i);
+      if (isPlain(c)) {
+        i++;
+        continue;
+      } else if (isBlank(c)) {
+        char separator = 0;
+        int next = i;
+        for (char blank = c; next < length && isBlank(blank = text.charAt(next)); next++) {
+          separator = blank == '\n' || separator == '\n' ? '\n' : Character.isISOControl(blank) && !Character.isWhitespace(blank) ? separator : ' ';
+        }
+        if (next >= length || !isSpaceSensitive(text.charAt(next))) {
+          if (start < i) receivr.receive(text, start, i);
+          written |= start < i;
+          if (separator != 0 && next < length && written) receivr.receive(separator == '\n' ? "\n" : " ", 0, 1);
+          start = i = next;
+          continue;
+        }
+      } else if (fold(text, i) != 0) {
+        if (start < i) receivr.receive(text, start, i);
+        piece = piece == null ? new StringBuilder(Math.min(pieceLength, length - i)) : piece;
+        piece.setLength(0);
+        for (char folded; piece.length() < pieceLength && i < length && (folded = fold(text, i)) != 0; i++) piece.append(folded);
+        receivr.receive(piece, 0, piece.length());
+        written = true;
+        start = i;
+        continue;
+      }
+      int from = i;
+      while (from > start && (!isSeparable(text.charAt(from - 1), text.charAt(from)) || Character.isSurrogatePair(text.charAt(from - 1), text.charAt(from)))) from--;
+      int to = i + 1;
+      while (to < length && !isBoundary(text, to)) to++;
+      if (start < from) receivr.receive(text, start, from);
+      piece = piece == null ? new StringBuilder(to - from) : piece;
+      piece.setLength(0);
+      if (to - from != 2 || !compose(text.charAt(from), text.charAt(from + 1), piece)) normalizing(text.subSequence(from, to), piece);
+      receivr.receive(piece, 0, piece.length());
+      written |= start < from || piece.length() > 0;
+      start = i = to;
+    }
+    if (start < length) receivr.receive(text, start, length);
+  }
+
+  /**
+   * appends the character followed by a sound mark normalized, without the full normalization .
+   *
+   * @param c the character
+   * @param mark the character which follows
+   * @param piece the buffer to append
+   * @return true if appended, or false if those have to be normalized actually
+   */
+  private static boolean compose(final char c, final char mark, final StringBuilder piece) {
+    if ((mark < '\u3099' || mark > '\u309C') && mark != '\uFF9E' && mark != '\uFF9F') return false;
+    final char base = isPlain(c) ? c : c >= '\u2010' && c <= '\u2012' ? '-' : c >= '\u3000' && c <= '\u30FF' ? folds[c - 0x3000] : c >= '\uFF00' && c <= '\uFFEF' ? folds[c - 0xFF00 + 0x0100] : 0;
+    if (base == 0) return false;
+    final boolean voiced = mark == '\u3099' || mark == '\u309B' || mark == '\uFF9E';
+    final char composed = base < '\u3000' || base > '\u30FF' ? 0 : voiced ? voiceds[base - 0x3000] : semiVoiceds[base - 0x3000];
+    if (composed == 0) {
+      piece.append(base).append(voiced ? '\u309B' : '\u309C');
+    } else {
+      piece.append(composed);
+    }
+
+    return true;
+  }
+
+  /**
+   * returns the character which normalized alone, if that is the same as normalized in the context of the text .
+   *
+   * @param text the text
+   * @param index the index of the character
+   * @return normalized character, or {@code 0} if the character has to be normalized in the context
+   */
+  private static char fold(final CharSequence text, final int index) {
+    final char c = text.charAt(index);
+    final char folded = c >= '\u2010' && c <= '\u2012' ? '-' : c >= '\u3000' && c <= '\u30FF' ? folds[c - 0x3000] : c >= '\uFF00' && c <= '\uFFEF' ? folds[c - 0xFF00 + 0x0100] : 0;
+    if (folded == 0 || (index > 0 && isCombining(text.charAt(index - 1), c))) return 0;
+
+    return index + 1 >= text.length() || isBoundary(text, index + 1) ? folded : 0;
+  }
+
+  /**
+   * detects whether the text is able to be normalized separately before the specified index .
+   *
+   * <p>
+   * a boundary is between the characters which are separable ( see {@link #isSeparable(char, char)} ), or before a sequence of whitespaces and
+   * control characters which follows a character, unless the sequence is followed by a character which depends on the whitespaces ( e.g. sound marks ) .
+   * </p>
+   *
+   * @param text the text
+   * @param index the index of the character after the boundary, greater than zero and less than the length of the text
+   * @return true if the text is able to be normalized separately before the index
+   */
+  private static boolean isBoundary(final CharSequence text, final int index) {
+    final char previous = text.charAt(index - 1);
+    final char c = text.charAt(index);
+    if (isBlank(previous)) return false;
+    if (!isBlank(c)) return isSeparable(previous, c) && !Character.isSurrogatePair(previous, c);
+    int next = index + 1;
+    while (next < text.length() && isBlank(text.charAt(next))) next++;
+
+    return next >= text.length() || !isSpaceSensitive(text.charAt(next));
+  }
+
+  /**
+   * detects whether the normalization of the specified character depends on the preceding whitespaces .
+   *
+   * @param c the character
+   * @return true if the character is a sound mark which absorbs the preceding space, or needs canonical reordering which may bring a sound mark forward
+   *         ( ideographic tone marks ) , or fullwidth macron which normalizes to a space and a combining macron
+   */
+  private static boolean isSpaceSensitive(final char c) {
+    return (c >= '\u3099' && c <= '\u309C') || c == '\uFF9E' || c == '\uFF9F' || (c >= '\u302A' && c <= '\u302F') || c == '\uFFE3';
+  }
+
+  /**
+   * detects whether the normalization never changes across between the specified characters, so that the text is able to be normalized separately at there .
+   *
+   * <p>
+   * the both characters are neither control characters nor whitespaces, and the latter never composes with the former
+   * ( e.g. sound marks, Hangul Jamo ) .
+   * </p>
+   *
+   * @param previous the character before the boundary
+   * @param c the character after the boundary
+   * @return true if the text is able to be normalized separately at the boundary
+   */
+  public static boolean isSeparable(final char previous, final char c) {
+    return Optimizr.isSeparable(previous, c) && !isCombining(previous, c);
+  }
+
+  /**
+   * detects whether the latter character may compose with the former, or either of those needs canonical reordering .
+   *
+   * @param previous the character before
+   * @param c the character
+   * @return true if the normalization of the characters depends on each other ( e.g. sound marks, Hangul Jamo, ideographic tone marks )
+   */
+  private static boolean isCombining(final char previous, final char c) {/* @formatter:off */
+    return (c >= '\u3099' && c <= '\u309C') || c == '\uFF9E' || c == '\uFF9F'
+      || (c >= '\u1100' && c <= '\u11FF') || (c >= '\uFFA0' && c <= '\uFFDF')
+      || (previous >= '\u302A' && previous <= '\u302F') || (c >= '\u302A' && c <= '\u302F') || previous == '\uFFE3' || c == '\uFFE3';
+  /* @formatter:on */}
+
+  /**
+   * returns normalized string .
+   *
+   * @param string the string, not empty
+   * @return normalized text
+   */
+  private static String normalizing(final String string) {
+    return normalize(string, new StringBuilder(string.length())).toString();
+  }
+
+  /**
+   * appends normalized text, without recording the event and the metrics of {@link #normalize(CharSequence, Appendable)} .
+   *
+   * @param text the text, not empty
+   * @param result the buffer to append normalized text
+   * @return {@code result}
+   */
+  private static StringBuilder normalizing(final CharSequence text, final StringBuilder result) {
+    return Optimizr.optimize(Regexr.CjkNormalizr.replaceAll(text, new StringBuilder(text.length())), result);
   }
 
   /**
@@ -106,10 +494,32 @@ public final class CjkNormalizr {
    * @return text denormalize if the character is the member of {@link UnicodeBlock#BASIC_LATIN}
    */
   private static int translate(final int codePoint) {
-    return exclusives.getOrDefault(codePoint, codePoint + (!UnicodeBlock.BASIC_LATIN.equals(UnicodeBlock.of(codePoint)) || Character.isWhitespace(codePoint) ? 0 : differenceOfCodepoint));
+    if (codePoint > -1 && codePoint < latins.length) return latins[codePoint];
+    final int index = Arrays.binarySearch(exclusiveSources, codePoint);
+
+    return index < 0 ? codePoint : exclusiveDestinations[index];
   }
 
 
+  /**
+   * receives normalized text in pieces, see {@link CjkNormalizr#normalize(CharSequence, Receivr, StringBuilder)} .
+   *
+   * @author furplag
+   *
+   */
+  @FunctionalInterface
+  interface Receivr {
+
+    /**
+     * receives the part of normalized text .
+     *
+     * @param text the text which contains normalized characters
+     * @param start the beginning index of normalized characters, inclusive
+     * @param end the ending index of normalized characters, exclusive
+     */
+    void receive(CharSequence text, int start, int end);
+  }
+
   /** CjkNormalizr instances should NOT be constructed in standard programming. */
   private CjkNormalizr() {}
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import java.util.Objects;
+
+import jp.furplag.text.offset.OffsetMap;
+import jp.furplag.text.optimize.Optimizr;
+
+/**
+ * re-normalizes an edited text incrementally, using the previous result and its {@link OffsetMap} .
+ *
+ * <p>
+ * an edit re-normalizes only the neighbourhood of the edited range, which is extended to the nearest boundaries
+ * where the normalization never changes across ( e.g. between two letters, see {@link CjkNormalizr#isSeparable(char, char)} ),
+ * and the rest of the previous result is reused as is . so that the cost of normalization depends on the size of the edit and its neighbourhood,
+ * not on the length of the text . the result is the same as normalizing the whole of the edited text .
+ * </p>
+ *
+ * <p>
+ * note that an edit is not O( edit ) as a whole : {@link Editr} is immutable and holds the text and the result as {@link String},
+ * so that each edit copies the rest of the text, the rest of the result and the rest of the offsets ( two {@code int} for each change,
+ * see {@link OffsetMap} ) into a new {@link Editr} . that is, each edit takes O( n ) time and memory in the length of the text,
+ * with the small constant of bulk copying instead of the large one of normalization .
+ * for a large document edited by each keystroke, hold an {@link Editr} for each paragraph ( or any other unit which the normalization never changes across ),
+ * or batch the edits .
+ * </p>
+ *
+ * <pre>{@code
+ * Editr editr = Editr.normalize("ｺﾝﾆﾁﾊ　世界");  // editr.result(): "コンニチハ 世界"
+ * editr = editr.edit(6, 8, "ｾｶｲ");              // editr.result(): "コンニチハ セカイ"
+ * editr.offsets().toSource(6);                   // 6
+ * }</pre>
+ *
+ * @author furplag
+ *
+ */
+public final class Editr {
+
+  /**
+   * the conversion of the text .
+   *
+   * @author furplag
+   *
+   */
+  public enum Method {
+    /** {@link CjkNormalizr#normalize(CharSequence, Appendable, OffsetMap.Builder)} . */
+    NORMALIZE {
+      @Override
+      StringBuilder apply(final CharSequence text, final OffsetMap.Builder offsets) {
+        return CjkNormalizr.normalize(text, new StringBuilder(text.length()), offsets);
+      }
+
+      @Override
+      boolean isSeparable(final char previous, final char c) {
+        return CjkNormalizr.isSeparable(previous, c);
+      }
+    },
+    /** {@link Optimizr#optimize(CharSequence, Appendable, OffsetMap.Builder)} . */
+    OPTIMIZE {
+      @Override
+      StringBuilder apply(final CharSequence text, final OffsetMap.Builder offsets) {
+        return Optimizr.optimize(text, new StringBuilder(text.length()), offsets);
+      }
+
+      @Override
+      boolean isSeparable(final char previous, final char c) {
+        return Optimizr.isSeparable(previous, c);
+      }
+    };
+
+    /**
+     * converts the text .
+     *
+     * @param text the text
+     * @param offsets {@link OffsetMap.Builder} to record the offsets
+     * @return the result
+     */
+    abstract StringBuilder apply(CharSequence text, OffsetMap.Builder offsets);
+
+    /**
+     * detects whether the conversion never changes across between the specified characters .
+     *
+     * @param previous the character before the boundary
+     * @param c the character after the boundary
+     * @return true if the text is able to be converted separately at the boundary
+     */
+    abstract boolean isSeparable(char previous, char c);
+  }
+
+  /** the conversion . */
+  private final Method method;
+
+  /** the text . */
+  private final String source;
+
+  /** the result of the conversion . */
+  private final String result;
+
+  /** the offsets between the text and the result . */
+  private final OffsetMap offsets;
+
+  /**
+   *
+   * @param method the conversion
+   * @param source the text
+   * @param result the result of the conversion
+   * @param offsets the offsets between the text and the result
+   */
+  private Editr(final Method method, final String source, final String result, final OffsetMap offsets) {
+    this.method = method;
+    this.source = source;
+    this.result = result;
+    this.offsets = offsets;
+  }
+
+  /**
+   * normalizes the text using {@link CjkNormalizr#normalize(CharSequence, Appendable, OffsetMap.Builder)} .
+   *
+   * @param text the text, maybe null
+   * @return {@link Editr}
+   */
+  public static Editr normalize(final CharSequence text) {
+    return of(Method.NORMALIZE, text);
+  }
+
+  /**
+   * optimizes the text using {@link Optimizr#optimize(CharSequence, Appendable, OffsetMap.Builder)} .
+   *
+   * @param text the text, maybe null
+   * @return {@link Editr}
+   */
+  public static Editr optimize(final CharSequence text) {
+    return of(Method.OPTIMIZE, text);
+  }
+
+  /**
+   * converts the text .
+   *
+   * @param method the conversion
+   * @param text the text, maybe null
+   * @return {@link Editr}
+   */
+  public static Editr of(final Method method, final CharSequence text) {
+    final String source = Objects.toString(text, "");
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+
+    return new Editr(Objects.requireNonNull(method), source, method.apply(source, offsets).toString(), offsets.build());
+  }
+
+  /**
+   * replaces the range of the text, and re-normalizes the neighbourhood of the range .
+   *
+   * <p>
+   * the normalization takes time in proportion to the neighbourhood of the range, but the text, the result and the offsets
+   * are copied into the new {@link Editr} as a whole, that is O( n ) in the length of the text .
+   * </p>
+   *
+   * @param start the beginning index of the range of the text
+   * @param end the ending index of the range of the text, exclusive
+   * @param replacement the text to insert, maybe null
+   * @return {@link Editr} of the edited text
+   * @throws IndexOutOfBoundsException if the range is out of bounds of the text
+   */
+  public Editr edit(final int start, final int end, final CharSequence replacement) {
+    Objects.checkFromToIndex(start, end, source.length());
+    final String inserted = Objects.toString(replacement, "");
+    int from = Math.max(0, start - 1);
+    while (from > 0 && !isSeparable(from)) from--;
+    int to = Math.min(source.length(), end + 1);
+    while (to < source.length() && !isSeparable(to)) to++;
+
+    final OffsetMap.Builder edited = new OffsetMap.Builder();
+    final StringBuilder reconverted = method.apply(new StringBuilder(start - from + inserted.length() + to - end).append(source, from, start).append(inserted).append(source, end, to), edited);
+    final int resultFrom = offsets.toResult(from);
+    final int resultTo = offsets.toResult(to);/* @formatter:off */
+
+    return new Editr(
+      method
+      , new StringBuilder(source.length() - end + start + inserted.length()).append(source, 0, start).append(inserted).append(source, end, source.length()).toString()
+      , new StringBuilder(result.length() - resultTo + resultFrom + reconverted.length()).append(result, 0, resultFrom).append(reconverted).append(result, resultTo, result.length()).toString()
+      , new OffsetMap.Builder().append(offsets, 0, from).append(edited.build()).append(offsets, to, source.length()).build()
+    );
+  /* @formatter:on */}
+
+  /**
+   * returns the conversion .
+   *
+   * @return {@link Method}
+   */
+  public Method method() {
+    return method;
+  }
+
+  /**
+   * returns the text .
+   *
+   * @return the text
+   */
+  public String source() {
+    return source;
+  }
+
+  /**
+   * returns the result of the conversion .
+   *
+   * @return the result
+   */
+  public String result() {
+    return result;
+  }
+
+  /**
+   * returns the offsets between the text and the result .
+   *
+   * @return {@link OffsetMap}
+   */
+  public OffsetMap offsets() {
+    return offsets;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return result;
+  }
+
+  /**
+   * detects whether the text is able to be re-normalized separately at the specified index .
+   *
+   * @param offset the index of the text, in between one and the length ( exclusive )
+   * @return true if the conversion never changes across the boundary, and the offset is not a part of any replaced range
+   */
+  private boolean isSeparable(final int offset) {
+    final char previous = source.charAt(offset - 1);
+    final char c = source.charAt(offset);
+
+    return !Character.isSurrogatePair(previous, c) && method.isSeparable(previous, c) && offsets.isAligned(offset);
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+/**
+ * the fingerprint of normalized text, which hashes the normalized characters in pieces without materializing the whole of normalized text .
+ *
+ * <p>
+ * the fingerprint is the MurmurHash3 ( x64, 128 bit, seed 0 ) of the UTF-8 encoded text, same as {@code String#getBytes(StandardCharsets.UTF_8)}
+ * ( so that an unpaired surrogate is encoded as {@code '?'} ) . {@link #fingerprint(CharSequence)} returns the first 64 bits of the hash
+ * ( {@code h1} , same as {@code asLong()} of {@code Hashing.murmur3_128()} in Guava ) , and {@link #fingerprint128(CharSequence)} returns both of
+ * {@code h1} and {@code h2} . the normalized characters are streamed into the hash in pieces
+ * ( see {@link CjkNormalizr#normalize(CharSequence, CjkNormalizr.Receivr, StringBuilder)} ) : the characters which never change by normalization are
+ * hashed directly from the text, and the rest are folded or normalized into a small buffer one piece at a time, which holds at most 256 folded characters
+ * or a segment of the text which composes ( e.g. Kana and the following sound marks ) . the result is always equal to {@link #hash(CharSequence)}
+ * of the materialized text, e.g. {@code Fingerprintr.Normalizr.fingerprint(text) == Fingerprintr.hash(CjkNormalizr.normalize(text))} .
+ * </p>
+ * <p>
+ * stability: the hash function and the encoding never change across versions, so that {@link #hash(CharSequence)} of the same text is always the same .
+ * the fingerprint changes only if the result of {@link CjkNormalizr#normalize(String)} ( or {@link Kanizr#katakanize(String)} ) changes, which is
+ * noted in the release notes . the fingerprint depends on the Unicode version of the JVM as well as normalization does ( NFKC ) , so that persisted fingerprints
+ * should be recomputed when upgrading either this library with normalization changes, or the Java version with Unicode changes .
+ * null is the same as an empty text, and the fingerprint of those is zero .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class Fingerprintr {
+
+  /** the fingerprint of {@link CjkNormalizr#normalize(String)} . */
+  public static final Fingerprintr Normalizr = new Fingerprintr(false);
+
+  /** the fingerprint of {@link Kanizr#katakanize(String)} . */
+  public static final Fingerprintr Katakanizr = new Fingerprintr(true);
+
+  /** true if Hiragana convert to Katakana after normalization . */
+  private final boolean katakanize;
+
+  /**
+   *
+   * @param katakanize true if Hiragana convert to Katakana after normalization
+   */
+  private Fingerprintr(final boolean katakanize) {
+    this.katakanize = katakanize;
+  }
+
+  /**
+   * returns the 64 bit hash of the text as it is .
+   *
+   * @param text the text, maybe null
+   * @return the first 64 bits of MurmurHash3 ( x64, 128 bit ) of the UTF-8 encoded text
+   */
+  public static long hash(final CharSequence text) {
+    return hash128(text)[0];
+  }
+
+  /**
+   * returns the 128 bit hash of the text as it is .
+   *
+   * @param text the text, maybe null
+   * @return MurmurHash3 ( x64, 128 bit ) of the UTF-8 encoded text, {@code h1} and {@code h2} in order
+   */
+  public static long[] hash128(final CharSequence text) {
+    final Murmur3 murmur3 = new Murmur3(false);
+    if (text != null) murmur3.receive(text, 0, text.length());
+
+    return murmur3.digest();
+  }
+
+  /**
+   * returns the 64 bit fingerprint of the normalized text .
+   *
+   * @param text the text, maybe null
+   * @return the first 64 bits of MurmurHash3 ( x64, 128 bit ) of the normalized text
+   */
+  public long fingerprint(final CharSequence text) {
+    return fingerprint128(text)[0];
+  }
+
+  /**
+   * returns the 128 bit fingerprint of the normalized text .
+   *
+   * @param text the text, maybe null
+   * @return MurmurHash3 ( x64, 128 bit ) of the normalized text, {@code h1} and {@code h2} in order
+   */
+  public long[] fingerprint128(final CharSequence text) {
+    final Murmur3 murmur3 = new Murmur3(katakanize);
+    CjkNormalizr.normalize(text, murmur3, null);
+
+    return murmur3.digest();
+  }
+
+  /**
+   * MurmurHash3 ( x64, 128 bit, seed 0 ) of the characters streamed in pieces, encoding those to UTF-8 .
+   *
+   * @author furplag
+   *
+   */
+  private static final class Murmur3 implements CjkNormalizr.Receivr {
+
+    /** the constant of mixing . */
+    private static final long c1 = 0x87c37b91114253d5L;
+
+    /** the constant of mixing . */
+    private static final long c2 = 0x4cf5ad432745937fL;
+
+    /** true if Hiragana convert to Katakana . */
+    private final boolean katakanize;
+
+    /** the state . */
+    private long h1;
+
+    /** the state . */
+    private long h2;
+
+    /** the first half of the block . */
+    private long k1;
+
+    /** the latter half of the block . */
+    private long k2;
+
+    /** the number of bytes in the block . */
+    private int position;
+
+    /** the number of bytes hashed . */
+    private long length;
+
+    /** a high surrogate which waits for the low surrogate, or zero . */
+    private char high;
+
+    /**
+     *
+     * @param katakanize true if Hiragana convert to Katakana
+     */
+    private Murmur3(final boolean katakanize) {
+      this.katakanize = katakanize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void receive(final CharSequence text, final int start, final int end) {
+      for (int i = start; i < end; i++) {
+        final char c = text.charAt(i);
+        if (c < 0x80 && high == 0) {
+          update(c);
+        } else {
+          encode(c);
+        }
+      }
+    }
+
+    /**
+     * encodes the character to UTF-8, and hashes those .
+     *
+     * @param c the character
+     */
+    private void encode(final char c) {
+      if (high != 0) {
+        final char previous = high;
+        high = 0;
+        if (Character.isLowSurrogate(c)) {
+          final int codePoint = Character.toCodePoint(previous, c);
+          update(0xF0 | (codePoint >>> 18));
+          update(0x80 | ((codePoint >>> 12) & 0x3F));
+          update(0x80 | ((codePoint >>> 6) & 0x3F));
+          update(0x80 | (codePoint & 0x3F));
+
+          return;
+        }
+        update('?');
+      }
+      final int codePoint = katakanize ? Kanizr.toKatakana(c) : c;
+      if (codePoint < 0x80) {
+        update(codePoint);
+      } else if (codePoint < 0x800) {
+        update(0xC0 | (codePoint >>> 6));
+        update(0x80 | (codePoint & 0x3F));
+      } else if (Character.isHighSurrogate(c)) {
+        high = c;
+      } else if (Character.isLowSurrogate(c)) {
+        update('?');
+      } else {
+        update(0xE0 | (codePoint >>> 12));
+        update(0x80 | ((codePoint >>> 6) & 0x3F));
+        update(0x80 | (codePoint & 0x3F));
+      }
+    }
+
+    /**
+     * hashes a byte .
+     *
+     * @param b the byte
+     */
+    private void update(final int b) {
+      if (position < 8) {
+        k1 |= (b & 0xFFL) << (position << 3);
+      } else {
+        k2 |= (b & 0xFFL) << ((position - 8) << 3);
+      }
+      length++;
+      if (++position < 16) return;
+      h1 ^= mix1(k1);
+      h1 = Long.rotateLeft(h1, 27) + h2;
+      h1 = h1 * 5 + 0x52dce729;
+      h2 ^= mix2(k2);
+      h2 = Long.rotateLeft(h2, 31) + h1;
+      h2 = h2 * 5 + 0x38495ab5;
+      k1 = k2 = position = 0;
+    }
+
+    /**
+     * returns the hash, after the rest of bytes hashed .
+     *
+     * @return {@code h1} and {@code h2}
+     */
+    private long[] digest() {
+      if (high != 0) {
+        high = 0;
+        update('?');
+      }
+      if (position > 8) h2 ^= mix2(k2);
+      if (position > 0) h1 ^= mix1(k1);
+      h1 ^= length;
+      h2 ^= length;
+      h1 += h2;
+      h2 += h1;
+      h1 = fmix(h1);
+      h2 = fmix(h2);
+      h1 += h2;
+      h2 += h1;
+
+      return new long[] {h1, h2};
+    }
+
+    /**
+     * mixes the first half of the block .
+     *
+     * @param k the first half of the block
+     * @return mixed
+     */
+    private static long mix1(final long k) {
+      return Long.rotateLeft(k * c1, 31) * c2;
+    }
+
+    /**
+     * mixes the latter half of the block .
+     *
+     * @param k the latter half of the block
+     * @return mixed
+     */
+    private static long mix2(final long k) {
+      return Long.rotateLeft(k * c2, 33) * c1;
+    }
+
+    /**
+     * finalization mix .
+     *
+     * @param k the state
+     * @return mixed
+     */
+    private static long fmix(final long k) {
+      long mixed = k;
+      mixed ^= mixed >>> 33;
+      mixed *= 0xff51afd7ed558ccdL;
+      mixed ^= mixed >>> 33;
+      mixed *= 0xc4ceb9fe1a85ec53L;
+      mixed ^= mixed >>> 33;
+
+      return mixed;
+    }
+  }
+}
@@ -15,20 +15,24 @@
  */
 package jp.furplag.text.normalize;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.Character.UnicodeBlock;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+import jp.furplag.text.metrics.Metricr;
+import jp.furplag.text.metrics.NormalizationEvent;
 import jp.furplag.text.regex.RegexrOrigin;
-import jp.furplag.text.regex.RegexrStandard;
 
 /**
  * Kanizr flatten out Kana to Hiragana and Katakana .
  *
+ * <p>
+ * normalizing ( same as {@link CjkNormalizr#normalize(CharSequence, Appendable)} ), translating Kana and expanding Katakana which has no Hiragana pair
+ * are fused into one loop which writes into the result directly, and the text is normalized actually only in the segments which compose or reorder .
+ * </p>
+ *
  * @author furplag
  *
  */
@@ -42,31 +46,44 @@ public final class Kanizr {
 
   /** Hiragana convert to Katakana. */
   private static final Kanizr Katakanizr;
+
+  /** Hiragana which Katakana ( U+30F7 - U+30FA ) which has no Hiragana pair replace to, followed by a voiced sound mark. */
+  private static final char[] expansions = {'\u308F', '\u3090', '\u3091', '\u3092'};
   static {
     differenceOfCodepoint = 'あ' - 'ア';
-    Hiraganizr = new Kanizr(UnicodeBlock.KATAKANA, differenceOfCodepoint, 12448, 12535, 12536, 12537, 12538, 12539, 12540, 12543);
-    Katakanizr = new Kanizr(UnicodeBlock.HIRAGANA, -differenceOfCodepoint, 12352, 12439, 12440, 12441, 12442, 12443, 12444, 12447);
+    Hiraganizr = new Kanizr(0x30A0, 0x30FF, differenceOfCodepoint, true, 12448, 12535, 12536, 12537, 12538, 12539, 12540, 12543);
+    Katakanizr = new Kanizr(0x3040, 0x309F, -differenceOfCodepoint, false, 12352, 12439, 12440, 12441, 12442, 12443, 12444, 12447);
   }
 
-  /** Unicode code block to convert. */
-  private final UnicodeBlock targetCodeBlock;
+  /** metrics of {@link #hiraganize(String)} and {@link #hiraganize(CharSequence, Appendable)} . */
+  private static final Metricr.Stage hiraganizeMetrics = Metricr.stage("Kanizr.hiraganize");
+
+  /** metrics of {@link #katakanize(String)} and {@link #katakanize(CharSequence, Appendable)} . */
+  private static final Metricr.Stage katakanizeMetrics = Metricr.stage("Kanizr.katakanize");
 
-  /** the amount of add to Unicode code point of the target character. */
-  private final int gap;
+  /** the first code point of the Unicode code block to convert. */
+  private final int origin;
 
-  /** exclude characters from translate. */
-  private final Set<Integer> exclusions;
+  /** the amount of add to Unicode code point of the target character, indexed by the offset from {@code origin}. */
+  private final int[] gaps;
+
+  /** true if Katakana which has no Hiragana pair replace to Hiragana and a voiced sound mark. */
+  private final boolean expanding;
 
   /**
    *
-   * @param targetCodeBlock Unicode code block to convert
+   * @param first the first code point of the Unicode code block to convert ( {@link UnicodeBlock#HIRAGANA} or {@link UnicodeBlock#KATAKANA} )
+   * @param last the last code point of the Unicode code block to convert
    * @param gap the amount of add to Unicode code point of the target character
+   * @param expanding true if Katakana which has no Hiragana pair replace to Hiragana and a voiced sound mark
    * @param exclusions exclude characters from translate
    */
-  private Kanizr(UnicodeBlock targetCodeBlock, int gap, int... exclusions) {
-    this.targetCodeBlock = Objects.requireNonNull(targetCodeBlock);
-    this.gap = gap;
-    this.exclusions = Collections.unmodifiableSet(Arrays.stream(Optional.ofNullable(exclusions).orElse(new int[] {})).mapToObj(Integer::valueOf).collect(Collectors.toSet()));
+  private Kanizr(int first, int last, int gap, boolean expanding, int... exclusions) {
+    this.origin = first;
+    this.expanding = expanding;
+    this.gaps = new int[last - first + 1];
+    Arrays.fill(gaps, gap);
+    Arrays.stream(Optional.ofNullable(exclusions).orElse(new int[] {})).map((exclusion) -> exclusion - first).filter((i) -> i > -1 && i < gaps.length).forEach((i) -> gaps[i] = 0);
   }
 
   /**
@@ -74,10 +91,41 @@ public final class Kanizr {
    *
    * @param string the String, maybe null
    * @return Hiraganized text
+   * @see Memoizr#Hiraganizr
    */
   public static String hiraganize(final String string) {
-    return RegexrOrigin.isEmpty(string) ? string
-        : RegexrOrigin.replaceAll(Hiraganizr.kanize(string), new RegexrStandard("\\x{30F7}", "\u308F\u309B"), new RegexrStandard("\\x{30F8}", "\u3090\u309B"), new RegexrStandard("\\x{30F9}", "\u3091\u309B"), new RegexrStandard("\\x{30FA}", "\u3092\u309B"));
+    return RegexrOrigin.isEmpty(string) ? string : Memoizr.Hiraganizr.apply(string, (key) -> hiraganizing(key, new StringBuilder(key.length())).toString());
+  }
+
+  /**
+   * Katakana convert to Hiragana, and appends the result to the specified {@link Appendable} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append Hiraganized text
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public static <T extends Appendable> T hiraganize(final CharSequence text, final T result) {
+    return text == null || text.length() < 1 ? result : hiraganizing(text, result);
+  }
+
+  /**
+   * Katakana convert to Hiragana .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text
+   * @param result {@link Appendable} to append Hiraganized text
+   * @return {@code result}
+   */
+  private static <T extends Appendable> T hiraganizing(final CharSequence text, final T result) {
+    final long started = Metricr.started();
+    final NormalizationEvent event = NormalizationEvent.begin("Kanizr.hiraganize", text, result);
+    Hiraganizr.kanize(text, result, event);
+    if (Metricr.enabled) hiraganizeMetrics.record(started, text.length(), 0);
+    event.end(result);
+
+    return result;
   }
 
   /**
@@ -85,36 +133,115 @@ public final class Kanizr {
    *
    * @param string the String, maybe null
    * @return Katakanized text
+   * @see Memoizr#Katakanizr
    */
   public static String katakanize(final String string) {
-    return Katakanizr.kanize(string);
+    return RegexrOrigin.isEmpty(string) ? string : Memoizr.Katakanizr.apply(string, (key) -> katakanizing(key, new StringBuilder(key.length())).toString());
+  }
+
+  /**
+   * Hiragana convert to Katakana, and appends the result to the specified {@link Appendable} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append Katakanized text
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public static <T extends Appendable> T katakanize(final CharSequence text, final T result) {
+    return text == null || text.length() < 1 ? result : katakanizing(text, result);
+  }
+
+  /**
+   * Hiragana convert to Katakana, without normalization .
+   *
+   * @param codePoint Unicode code point
+   * @return Katakana if the character is Hiragana which has Katakana pair
+   */
+  static int toKatakana(final int codePoint) {
+    return Katakanizr.translate(codePoint);
+  }
+
+  /**
+   * Hiragana convert to Katakana .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text
+   * @param result {@link Appendable} to append Katakanized text
+   * @return {@code result}
+   */
+  private static <T extends Appendable> T katakanizing(final CharSequence text, final T result) {
+    final long started = Metricr.started();
+    final NormalizationEvent event = NormalizationEvent.begin("Kanizr.katakanize", text, result);
+    Katakanizr.kanize(text, result, event);
+    if (Metricr.enabled) katakanizeMetrics.record(started, text.length(), 0);
+    event.end(result);
+
+    return result;
   }
 
   /**
    * flatten out Kana to Hiragana and Katakana .
    *
-   * @param string the String, maybe null
-   * @return converted text
+   * <p>
+   * the pieces of normalized text ( see {@link CjkNormalizr#normalize(CharSequence, CjkNormalizr.Receivr, StringBuilder)} ) are translated into the result
+   * directly, so that neither the normalized text nor the converted text is materialized in another buffer .
+   * </p>
+   *
+   * @param text the text
+   * @param result {@link Appendable} to append converted text
+   * @param event {@link NormalizationEvent} to record the duration of stages
+   * @throws UncheckedIOException if an I/O error occurs
    */
-  private String kanize(String string) {
-    // @formatter:off
-      return RegexrOrigin.isEmpty(string) ? string :
-        Optional.ofNullable(CjkNormalizr.normalize(string)).orElse("")
-          .codePoints()
-          .map(this::translate)
-          .mapToObj(RegexrOrigin::newString)
-          .collect(Collectors.joining())
-        ;
-      // @formatter:on
+  private void kanize(final CharSequence text, final Appendable result, final NormalizationEvent event) {
+    final CjkNormalizr.Receivr translating = (normalized, start, end) -> translate(normalized, start, end, result);
+    CjkNormalizr.normalize(text, translating, null);
+    event.translated();
+  }
+
+  /**
+   * appends the characters in the specified range of the text, which are converted Kana .
+   *
+   * @param text the text
+   * @param start the beginning index, inclusive
+   * @param end the ending index, exclusive
+   * @param result {@link Appendable} to append
+   * @throws UncheckedIOException if an I/O error occurs
+   */
+  private void translate(final CharSequence text, final int start, final int end, final Appendable result) {
+    try {
+      for (int i = start; i < end; i++) {
+        final char c = text.charAt(i);
+        if (isExpandable(c)) {
+          result.append(expansions[c - 0x30F7]).append('\u309B');
+        } else {
+          result.append((char) translate(c));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * detects whether the specified character is Katakana which has no Hiragana pair, and expands to Hiragana and a voiced sound mark .
+   *
+   * @param c the character
+   * @return true if the character is one of U+30F7 - U+30FA, and this converts to Hiragana
+   */
+  private boolean isExpandable(final char c) {
+    return expanding && c >= '\u30F7' && c <= '\u30FA';
   }
 
   /**
    * convert Kana .
    *
    * @param codePoint Unicode code point
-   * @return converted Kana if the character is the member of {@code targetCodeBlock}
+   * @return converted Kana if the character is the member of the Unicode code block to convert
    */
   private int translate(final int codePoint) {
-    return codePoint + (!exclusions.contains(codePoint) && targetCodeBlock.equals(UnicodeBlock.of(codePoint)) ? gap : 0);
+    final int index = codePoint - origin;
+
+    return index < 0 || index >= gaps.length ? codePoint : codePoint + gaps[index];
   }
 }
@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * bounded memoization of the results of normalization, for repetitive inputs ( e.g. company names, prefectures ) .
+ *
+ * <p>
+ * disabled by default, and enabled using system property "{@code jp.furplag.text.normalize.Memoizr.maximumWeight}" ( the number of
+ * characters to hold, both of inputs and results ) . the inputs longer than "{@code jp.furplag.text.normalize.Memoizr.maximumLength}"
+ * ( default: 256 ) are never cached .
+ * </p>
+ * <p>
+ * the entries are striped into segments by the hash, each segment has its own lock, least recently used ordering and a frequency sketch .
+ * a new entry which needs to evict the least recently used one, is admitted only if it is used more frequently than the victim
+ * ( TinyLFU ), so that the frequent keys are never flushed out by the one-hit wonders . the results are computed outside of the lock .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class Memoizr {
+
+  /** the maximum weight ( the number of characters ) of each cache, disabled if zero . */
+  static final long maximumWeight = Math.max(0, Long.getLong(Memoizr.class.getName() + ".maximumWeight", 0));
+
+  /** the maximum length of the input to cache . */
+  static final int maximumLength = Math.max(0, Integer.getInteger(Memoizr.class.getName() + ".maximumLength", 256));
+
+  /** the cache of {@link CjkNormalizr#normalize(String)} . */
+  public static final Memoizr Normalizr = new Memoizr(maximumWeight, maximumLength);
+
+  /** the cache of {@link Kanizr#hiraganize(String)} . */
+  public static final Memoizr Hiraganizr = new Memoizr(maximumWeight, maximumLength);
+
+  /** the cache of {@link Kanizr#katakanize(String)} . */
+  public static final Memoizr Katakanizr = new Memoizr(maximumWeight, maximumLength);
+
+  /** the minimum weight of each segment . */
+  private static final int minimumSegmentWeight = 1 << 12;
+
+  /** the maximum length of the input to cache . */
+  private final int lengthLimit;
+
+  /** segments, or empty if disabled . */
+  private final Segment[] segments;
+
+  /** the number of lookups which found the cached result . */
+  private final LongAdder hits = new LongAdder();
+
+  /** the number of lookups which computed the result . */
+  private final LongAdder misses = new LongAdder();
+
+  /** the number of inputs which are too long to cache . */
+  private final LongAdder bypasses = new LongAdder();
+
+  /** the number of entries evicted . */
+  private final LongAdder evictions = new LongAdder();
+
+  /** the number of results which are not admitted, because those are less frequent than the victim . */
+  private final LongAdder rejections = new LongAdder();
+
+  /**
+   *
+   * @param maximumWeight the maximum weight ( the number of characters ) to hold, disabled if zero
+   * @param maximumLength the maximum length of the input to cache
+   */
+  Memoizr(final long maximumWeight, final int maximumLength) {
+    this(maximumWeight, maximumLength, Runtime.getRuntime().availableProcessors() * 4);
+  }
+
+  /**
+   *
+   * @param maximumWeight the maximum weight ( the number of characters ) to hold, disabled if zero
+   * @param maximumLength the maximum length of the input to cache
+   * @param concurrency the number of segments, at most
+   */
+  Memoizr(final long maximumWeight, final int maximumLength, final int concurrency) {
+    final int count = maximumWeight < 1 ? 0 : Integer.highestOneBit((int) Math.max(1, Math.min(Math.max(1, concurrency), maximumWeight / minimumSegmentWeight)));
+    lengthLimit = maximumLength;
+    segments = new Segment[count];
+    Arrays.setAll(segments, (i) -> new Segment(maximumWeight / count));
+  }
+
+  /**
+   * returns whether this cache is enabled .
+   *
+   * @return true if enabled
+   */
+  public boolean isEnabled() {
+    return segments.length > 0;
+  }
+
+  /**
+   * returns the cached result of the function, or computes and caches it .
+   *
+   * @param key the input, not null
+   * @param function the function, which must be pure
+   * @return the result of the function
+   */
+  public String apply(final String key, final UnaryOperator<String> function) {
+    if (segments.length < 1) return function.apply(key);
+    if (key.length() > lengthLimit) {
+      bypasses.increment();
+
+      return function.apply(key);
+    }
+    final int hash = spread(key.hashCode());
+    final Segment segment = segments[hash & (segments.length - 1)];
+    final String cached = segment.get(key, hash);
+    if (cached != null) {
+      hits.increment();
+
+      return cached;
+    }
+    misses.increment();
+    final String result = function.apply(key);
+    segment.put(key, result.equals(key) ? key : result, hash);
+
+    return result;
+  }
+
+  /** discards all entries, and resets the statistics . */
+  public void invalidateAll() {
+    Arrays.stream(segments).forEach(Segment::clear);
+    Arrays.asList(hits, misses, bypasses, evictions, rejections).forEach(LongAdder::reset);
+  }
+
+  /**
+   * returns the snapshot of the statistics .
+   *
+   * @return {@link Statistics}
+   */
+  public Statistics statistics() {
+    long size = 0;
+    long weight = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.entries.size();
+        weight += segment.weight;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+
+    return new Statistics(hits.sum(), misses.sum(), bypasses.sum(), evictions.sum(), rejections.sum(), size, weight);
+  }
+
+  /**
+   * returns the weight of the entry .
+   *
+   * @param key the input
+   * @param value the result
+   * @return the number of characters to hold
+   */
+  private static long weigh(final String key, final String value) {
+    return key.length() + (value == key ? 0 : value.length());
+  }
+
+  /**
+   * spreads the bits of the hash code, so that the segment and the sketch use different bits .
+   *
+   * @param hashCode the hash code
+   * @return spread hash
+   */
+  private static int spread(final int hashCode) {
+    final int hash = hashCode * 0x9E3779B9;
+
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * a stripe of the cache, which is guarded by its own lock .
+   *
+   * @author furplag
+   *
+   */
+  private final class Segment {
+
+    /** guards this segment, not {@code synchronized} so that the virtual threads never pin the carrier . */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** entries, in access-order . */
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(16, .75f, true);
+
+    /** the maximum weight of this segment . */
+    private final long maximumWeight;
+
+    /** the frequency of the keys . */
+    private final Sketch sketch;
+
+    /** the current weight of this segment . */
+    private long weight;
+
+    /**
+     *
+     * @param maximumWeight the maximum weight of this segment
+     */
+    private Segment(final long maximumWeight) {
+      this.maximumWeight = maximumWeight;
+      sketch = new Sketch((int) Math.min(1 << 16, Math.max(16, maximumWeight / 16)));
+    }
+
+    /**
+     * returns the cached result, and records the frequency of the key .
+     *
+     * @param key the input
+     * @param hash the spread hash of the key
+     * @return the cached result, or null if absent
+     */
+    private String get(final String key, final int hash) {
+      lock.lock();
+      try {
+        sketch.increment(hash);
+
+        return entries.get(key);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * caches the result, evicts the least recently used entries only if the candidate is more frequent than the eldest one .
+     *
+     * @param key the input
+     * @param value the result
+     * @param hash the spread hash of the key
+     */
+    private void put(final String key, final String value, final int hash) {
+      final long entryWeight = weigh(key, value);
+      if (entryWeight > maximumWeight) return;
+      lock.lock();
+      try {
+        if (entries.containsKey(key)) return;
+        final Iterator<Map.Entry<String, String>> eldests = entries.entrySet().iterator();
+        for (boolean admitted = false; weight + entryWeight > maximumWeight; admitted = true) {
+          final Map.Entry<String, String> victim = eldests.next();
+          if (!admitted && sketch.frequency(hash) <= sketch.frequency(spread(victim.getKey().hashCode()))) {
+            rejections.increment();
+
+            return;
+          }
+          weight -= weigh(victim.getKey(), victim.getValue());
+          eldests.remove();
+          evictions.increment();
+        }
+        entries.put(key, value);
+        weight += entryWeight;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** discards all entries . */
+    private void clear() {
+      lock.lock();
+      try {
+        entries.clear();
+        sketch.clear();
+        weight = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * approximate frequency of the keys ( Count-Min sketch of 4-bit counters, two in a byte ), which halves all counters periodically so that
+   * the frequency follows the recent usage .
+   *
+   * @author furplag
+   *
+   */
+  private static final class Sketch {
+
+    /** 4-bit counters ( 0 - 15 ), packed two in a byte, 16 counters per entry so that those rarely saturate . */
+    private final byte[] table;
+
+    /** the mask of the index of the counters, the number of the counters minus one . */
+    private final int mask;
+
+    /** the number of increments to halve all counters . */
+    private final int sampleSize;
+
+    /** the number of increments after the last halving . */
+    private int additions;
+
+    /**
+     *
+     * @param capacity the expected number of entries
+     */
+    private Sketch(final int capacity) {
+      final int counters = Integer.highestOneBit(capacity - 1) << 5;
+      table = new byte[counters >>> 1];
+      mask = counters - 1;
+      sampleSize = capacity * 10;
+    }
+
+    /**
+     * records an occurrence of the key .
+     *
+     * @param hash the spread hash of the key
+     */
+    private void increment(final int hash) {
+      boolean added = false;
+      for (int depth = 0; depth < 4; depth++) {
+        final int index = indexOf(hash, depth);
+        if (counter(index) < 15) {
+          table[index >>> 1] += 1 << ((index & 1) << 2);
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) halve();
+    }
+
+    /**
+     * returns the estimated frequency of the key .
+     *
+     * @param hash the spread hash of the key
+     * @return the estimated frequency, 0 - 15
+     */
+    private int frequency(final int hash) {
+      int frequency = 15;
+      for (int depth = 0; depth < 4; depth++) {
+        frequency = Math.min(frequency, counter(indexOf(hash, depth)));
+      }
+
+      return frequency;
+    }
+
+    /**
+     * returns the value of the counter .
+     *
+     * @param index the index of the counter
+     * @return the value of the counter, 0 - 15
+     */
+    private int counter(final int index) {
+      return (table[index >>> 1] >>> ((index & 1) << 2)) & 0x0F;
+    }
+
+    /** halves all counters, the both halves of each byte at once . */
+    private void halve() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (byte) (((table[i] & 0xFF) >>> 1) & 0x77);
+      }
+      additions >>>= 1;
+    }
+
+    /** resets all counters . */
+    private void clear() {
+      Arrays.fill(table, (byte) 0);
+      additions = 0;
+    }
+
+    /**
+     * returns the index of the counter for the key in the row .
+     *
+     * @param hash the spread hash of the key
+     * @param depth the row
+     * @return the index of the counter
+     */
+    private int indexOf(final int hash, final int depth) {
+      final int h = (hash + depth) * (0x85EBCA6B + (depth << 5));
+
+      return (h ^ (h >>> 15)) & mask;
+    }
+  }
+
+  /**
+   * the snapshot of the statistics of {@link Memoizr} .
+   *
+   * @author furplag
+   *
+   */
+  public static final class Statistics {
+
+    /** the number of lookups which found the cached result . */
+    private final long hitCount;
+
+    /** the number of lookups which computed the result . */
+    private final long missCount;
+
+    /** the number of inputs which are too long to cache . */
+    private final long bypassCount;
+
+    /** the number of entries evicted . */
+    private final long evictionCount;
+
+    /** the number of results which are not admitted . */
+    private final long rejectionCount;
+
+    /** the number of entries . */
+    private final long size;
+
+    /** the number of characters held . */
+    private final long weight;
+
+    /**
+     *
+     * @param hitCount the number of lookups which found the cached result
+     * @param missCount the number of lookups which computed the result
+     * @param bypassCount the number of inputs which are too long to cache
+     * @param evictionCount the number of entries evicted
+     * @param rejectionCount the number of results which are not admitted
+     * @param size the number of entries
+     * @param weight the number of characters held
+     */
+    private Statistics(final long hitCount, final long missCount, final long bypassCount, final long evictionCount, final long rejectionCount, final long size, final long weight) {
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.bypassCount = bypassCount;
+      this.evictionCount = evictionCount;
+      this.rejectionCount = rejectionCount;
+      this.size = size;
+      this.weight = weight;
+    }
+
+    /** @return the number of lookups which found the cached result */
+    public long hitCount() {
+      return hitCount;
+    }
+
+    /** @return the number of lookups which computed the result */
+    public long missCount() {
+      return missCount;
+    }
+
+    /** @return the number of inputs which are too long to cache */
+    public long bypassCount() {
+      return bypassCount;
+    }
+
+    /** @return the number of entries evicted */
+    public long evictionCount() {
+      return evictionCount;
+    }
+
+    /** @return the number of results which are not admitted, because those are less frequent than the victim */
+    public long rejectionCount() {
+      return rejectionCount;
+    }
+
+    /** @return the number of entries */
+    public long size() {
+      return size;
+    }
+
+    /** @return the number of characters held */
+    public long weight() {
+      return weight;
+    }
+
+    /** @return the ratio of hits in lookups, or 1 if never looked up */
+    public double hitRate() {
+      final long lookups = hitCount + missCount;
+
+      return lookups < 1 ? 1d : (double) hitCount / lookups;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+      return String.format("hit: %d, miss: %d, bypass: %d, eviction: %d, rejection: %d, size: %d, weight: %d", hitCount, missCount, bypassCount, evictionCount, rejectionCount, size, weight);
+    }
+  }
+}
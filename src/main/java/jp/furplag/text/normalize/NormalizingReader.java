@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import java.io.Reader;
+
+import jp.furplag.text.optimize.OptimizingReader;
+
+/**
+ * a {@link Reader} which normalizes the text incrementally, the same as {@link CjkNormalizr#normalize(String)} .
+ *
+ * <p>
+ * reads the underlying reader at most the buffer size at once, and passes it through {@link NormalizingWriter},
+ * so that the memory usage depends on the buffer size, not on the length of the text .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class NormalizingReader extends OptimizingReader {
+
+  /**
+   *
+   * @param in the underlying reader
+   */
+  public NormalizingReader(final Reader in) {
+    this(in, defaultBufferSize);
+  }
+
+  /**
+   *
+   * @param in the underlying reader
+   * @param bufferSize the number of characters to read the underlying reader at once
+   */
+  public NormalizingReader(final Reader in, final int bufferSize) {
+    super(in, bufferSize, (out) -> new NormalizingWriter(out, bufferSize));
+  }
+}
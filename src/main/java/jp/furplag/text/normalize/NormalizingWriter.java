@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Objects;
+
+import jp.furplag.text.optimize.OptimizingWriter;
+import jp.furplag.text.regex.Regexr;
+
+/**
+ * a {@link Writer} which normalizes the text incrementally, the same as {@link CjkNormalizr#normalize(String)} .
+ *
+ * <p>
+ * the text is held in the buffer until a boundary that the normalization never changes the text across,
+ * e.g. Halfwidth Katakana and a following voiced sound mark are normalized together even if those are written separately .
+ * the boundary is the position before a Latin character except space ( which may be a part of sound mark ), a Kana letter, a CJK Unified Ideograph or a Fullwidth ( Halfwidth ) Form except sound marks and Hangul .
+ * if the buffer is filled without any boundary, the whole buffer is normalized, so the memory usage never exceeds the buffer size .
+ * </p>
+ * <p>
+ * the text remaining in the buffer is normalized when {@link #close()} is called, so be sure to close the writer .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class NormalizingWriter extends Writer {
+
+  /** the default buffer size . */
+  private static final int defaultBufferSize = 8192;
+
+  /** the underlying writer, which optimizes the normalized text . */
+  private final OptimizingWriter out;
+
+  /** the text which is not normalized yet . */
+  private final char[] buffer;
+
+  /** the normalized text . */
+  private final StringBuilder normalized;
+
+  /** the buffer to write {@code normalized} through . */
+  private char[] chars;
+
+  /** the length of the text in {@code buffer} . */
+  private int length;
+
+  /**
+   *
+   * @param out the underlying writer
+   */
+  public NormalizingWriter(final Writer out) {
+    this(out, defaultBufferSize);
+  }
+
+  /**
+   *
+   * @param out the underlying writer
+   * @param bufferSize the number of characters to hold until normalizing
+   */
+  public NormalizingWriter(final Writer out, final int bufferSize) {
+    super(Objects.requireNonNull(out));
+    if (bufferSize < 1) throw new IllegalArgumentException("bufferSize must be greater than 0 .");
+    this.out = new OptimizingWriter(out);
+    this.buffer = new char[bufferSize];
+    this.normalized = new StringBuilder(bufferSize);
+    this.chars = new char[bufferSize];
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void write(final char[] cbuf, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    synchronized (lock) {
+      for (int i = off; i < off + len;) {
+        final int read = Math.min(off + len - i, buffer.length - length);
+        System.arraycopy(cbuf, i, buffer, length, read);
+        length += read;
+        i += read;
+        if (length == buffer.length) normalize(boundary());
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void write(final String str, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, str.length());
+    synchronized (lock) {
+      for (int i = off; i < off + len;) {
+        final int read = Math.min(off + len - i, buffer.length - length);
+        str.getChars(i, i + read, buffer, length);
+        length += read;
+        i += read;
+        if (length == buffer.length) normalize(boundary());
+      }
+    }
+  }
+
+  /**
+   * normalizes the text until the last boundary, and flushes the underlying writer .
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public void flush() throws IOException {
+    synchronized (lock) {
+      final int boundary = boundary();
+      if (boundary < length) normalize(boundary);
+      out.flush();
+    }
+  }
+
+  /**
+   * normalizes all of the text remaining in the buffer, and closes the underlying writer .
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      normalize(length);
+      out.close();
+    }
+  }
+
+  /**
+   * returns the last boundary in the buffer, or the length of the text if there is no boundary .
+   *
+   * @return the last boundary in the buffer
+   */
+  private int boundary() {
+    for (int i = length - 1; i > 0; i--) {
+      if (isBoundary(buffer[i])) return i;
+    }
+
+    return length;
+  }
+
+  /**
+   * normalizes the text in the buffer until the specified position, and writes it to the underlying writer .
+   *
+   * @param end the position of the buffer to normalize until
+   * @throws IOException if an I/O error occurs
+   */
+  private void normalize(final int end) throws IOException {
+    if (end < 1) return;
+    normalized.setLength(0);
+    Regexr.CjkNormalizr.replaceAll(CharBuffer.wrap(buffer, 0, end), normalized);
+    if (chars.length < normalized.length()) chars = new char[normalized.length()];
+    normalized.getChars(0, normalized.length(), chars, 0);
+    out.write(chars, 0, normalized.length());
+    System.arraycopy(buffer, end, buffer, 0, length - end);
+    length -= end;
+  }
+
+  /**
+   * detects whether the normalization never changes the text across the position before the specified character .
+   *
+   * @param c the character
+   * @return true if the specified character never combines with the preceding character
+   */
+  static boolean isBoundary(final char c) {
+    return (c < '\u0300' && c != '\u0020') || c == '\u3000' || (c >= '\u3041' && c <= '\u3096') || (c >= '\u30A1' && c <= '\u30FA') || (c >= '\u4E00' && c <= '\u9FFF') || (c >= '\uFF01' && c <= '\uFF9D');
+  }
+}
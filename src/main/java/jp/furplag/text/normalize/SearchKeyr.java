@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+import jp.furplag.text.regex.RegexrOrigin;
+
+/**
+ * generates the key for searching, which folds the text in a single pass using the specified {@link Folding Folding(s)} .
+ *
+ * <p>
+ * the key is always the same as applying {@link Folding Folding(s)} in the order of {@link Folding} one by one, e.g. the key of all foldings is the same as
+ * {@code CjkNormalizr.normalize(string)} , then replacing newlines with a space, then converting Hiragana to Katakana and then folding the case .
+ * but the text is read only once, and normalized in pieces which are folded directly into one buffer
+ * ( see {@link CjkNormalizr#normalize(CharSequence, CjkNormalizr.Receivr, StringBuilder)} ) , so that width folding never normalizes the rest of the text
+ * into another buffer .
+ * the instance is immutable and thread-safe .
+ * </p>
+ *
+ * <pre>{@code
+ * final SearchKeyr searchKeyr = SearchKeyr.of(Folding.values());
+ * searchKeyr.key("ﾔﾏﾀﾞ　たろう\nＴａｒｏ"); // "ヤマダ タロウ taro"
+ * }</pre>
+ *
+ * @author furplag
+ *
+ */
+public final class SearchKeyr {
+
+  /**
+   * foldings of the key .
+   *
+   * @author furplag
+   *
+   */
+  public enum Folding {
+    /** width folding and the other normalization, same as {@link CjkNormalizr#normalize(String)} . */
+    WIDTH,
+    /** Hiragana convert to Katakana ( without normalization, so that Halfwidth Katakana remains unless {@link #WIDTH} ) . */
+    KANA,
+    /** removes control characters, and replaces a sequence of whitespaces ( including newlines ) with a single space, and removes leading and trailing whitespaces . */
+    SPACE,
+    /** simple case folding, which is independent of locale and never changes the length of the text ( {@code toLowerCase(toUpperCase(codePoint))} ) . */
+    CASE
+  }
+
+  /** {@link Folding Folding(s)} of this . */
+  private final Set<Folding> foldings;
+
+  /** true if {@link Folding#WIDTH} . */
+  private final boolean width;
+
+  /** true if {@link Folding#KANA} . */
+  private final boolean kana;
+
+  /** true if {@link Folding#SPACE} . */
+  private final boolean space;
+
+  /** true if {@link Folding#CASE} . */
+  private final boolean casing;
+
+  /**
+   *
+   * @param foldings {@link Folding Folding(s)}
+   */
+  private SearchKeyr(final Set<Folding> foldings) {
+    this.foldings = Collections.unmodifiableSet(foldings);
+    width = foldings.contains(Folding.WIDTH);
+    kana = foldings.contains(Folding.KANA);
+    space = foldings.contains(Folding.SPACE);
+    casing = foldings.contains(Folding.CASE);
+  }
+
+  /**
+   * returns {@link SearchKeyr} which folds the text using the specified {@link Folding Folding(s)} .
+   *
+   * @param foldings {@link Folding Folding(s)}, maybe null
+   * @return {@link SearchKeyr}
+   */
+  public static SearchKeyr of(final Folding... foldings) {
+    final Set<Folding> folds = EnumSet.noneOf(Folding.class);
+    Arrays.stream(Objects.requireNonNullElse(foldings, new Folding[] {})).filter(Objects::nonNull).forEach(folds::add);
+
+    return new SearchKeyr(folds);
+  }
+
+  /**
+   * returns the key of the specified string .
+   *
+   * @param string the string, maybe null
+   * @return the key
+   */
+  public String key(final String string) {
+    return RegexrOrigin.isEmpty(string) ? string : key(string, new StringBuilder(string.length())).toString();
+  }
+
+  /**
+   * appends the key of the specified text to the specified {@link Appendable} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append the key
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public <T extends Appendable> T key(final CharSequence text, final T result) {
+    if (text == null || text.length() < 1) return result;
+    final Foldr foldr = new Foldr(result instanceof StringBuilder ? (StringBuilder) result : new StringBuilder(text.length()));
+    if (width) {
+      CjkNormalizr.normalize(text, foldr, null);
+    } else {
+      foldr.receive(text, 0, text.length());
+    }
+
+    return foldr.result == result ? result : RegexrOrigin.append(result, foldr.result);
+  }
+
+  /**
+   * returns {@link Folding Folding(s)} of this .
+   *
+   * @return {@link Folding Folding(s)}, unmodifiable
+   */
+  public Set<Folding> foldings() {
+    return foldings;
+  }
+
+  /**
+   * folds the code point .
+   *
+   * @param codePoint Unicode code point
+   * @return folded code point
+   */
+  private int fold(final int codePoint) {
+    final int folded = kana ? Kanizr.toKatakana(codePoint) : codePoint;
+
+    return casing ? Character.toLowerCase(Character.toUpperCase(folded)) : folded;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || (obj instanceof SearchKeyr && foldings.equals(((SearchKeyr) obj).foldings));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode() {
+    return foldings.hashCode();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return foldings.toString();
+  }
+
+  /**
+   * appends folded pieces of the text, holding a pending separator same as {@link jp.furplag.text.optimize.Optimizr} if {@link Folding#SPACE} .
+   *
+   * @author furplag
+   *
+   */
+  private final class Foldr implements CjkNormalizr.Receivr {
+
+    /** the buffer to append the key . */
+    private final StringBuilder result;
+
+    /** true if any whitespace pending . */
+    private boolean pending;
+
+    /** true until any character appended . */
+    private boolean leading = true;
+
+    /**
+     *
+     * @param result the buffer to append the key
+     */
+    private Foldr(final StringBuilder result) {
+      this.result = result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void receive(final CharSequence text, final int start, final int end) {
+      for (int i = start; i < end; i++) {
+        final char c = text.charAt(i);
+        if (space && (Character.isWhitespace(c) || c == '\u00A0')) {
+          pending = true;
+        } else if (space && Character.isISOControl(c)) {
+          continue;
+        } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+          append().appendCodePoint(fold(Character.toCodePoint(c, text.charAt(++i))));
+        } else {
+          append().appendCodePoint(fold(c));
+        }
+      }
+    }
+
+    /**
+     * returns the buffer, after the pending separator appended if any character appended already .
+     *
+     * @return the buffer
+     */
+    private StringBuilder append() {
+      if (pending && !leading) result.append(' ');
+      pending = false;
+      leading = false;
+
+      return result;
+    }
+  }
+}
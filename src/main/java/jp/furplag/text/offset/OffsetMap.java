@@ -0,0 +1,472 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.offset;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * the map of offsets between a text and the result of its conversion ( e.g. normalization ) .
+ *
+ * <p>
+ * consists of segments, each of which maps a range of the source to a range of the result .
+ * characters in a segment of the same length map one by one ( copied, or replaced one to one ), the other segments map only those ends
+ * ( e.g. {@code "ｶﾞ"} to {@code "ガ"}, or a sequence of whitespaces to a space ) .
+ * adjacent segments of the same length merge, so that the map holds two {@code int} for each change, not for each character .
+ * </p>
+ *
+ * <pre>{@code
+ * final OffsetMap.Builder offsets = new OffsetMap.Builder();
+ * final String normalized = CjkNormalizr.normalize("ｶﾞｯｺｳ　ﾆ　ｲｸ", new StringBuilder(), offsets).toString(); // ガッコウ ニ イク
+ * offsets.build().toSource(5); // 7, the beginning of "ﾆ"
+ * }</pre>
+ *
+ * @author furplag
+ *
+ */
+public final class OffsetMap {
+
+  /** the offsets of the source at the boundaries of segments, in ascending order . */
+  private final int[] sources;
+
+  /** the offsets of the result at the boundaries of segments, in ascending order . */
+  private final int[] results;
+
+  /**
+   *
+   * @param sources the offsets of the source at the boundaries of segments
+   * @param results the offsets of the result at the boundaries of segments
+   */
+  private OffsetMap(final int[] sources, final int[] results) {
+    this.sources = sources;
+    this.results = results;
+  }
+
+  /**
+   * returns the map which maps each character to itself .
+   *
+   * @param length the length of the text
+   * @return {@link OffsetMap}
+   */
+  public static OffsetMap identity(final int length) {
+    return new Builder().copy(length).build();
+  }
+
+  /**
+   * returns the length of the source .
+   *
+   * @return the length of the source
+   */
+  public int sourceLength() {
+    return sources[sources.length - 1];
+  }
+
+  /**
+   * returns the length of the result .
+   *
+   * @return the length of the result
+   */
+  public int resultLength() {
+    return results[results.length - 1];
+  }
+
+  /**
+   * returns the number of segments .
+   *
+   * @return the number of segments
+   */
+  public int segments() {
+    return sources.length - 1;
+  }
+
+  /**
+   * returns the offset of the result, which the character at the specified offset of the source converted to .
+   *
+   * @param offset the offset of the source
+   * @return the offset of the result, the beginning of the replacement if the character is a part of a replaced range
+   */
+  public int toResult(final int offset) {
+    return map(sources, results, offset, false);
+  }
+
+  /**
+   * returns the offset of the result, which the range of the source ends at ( exclusive ) .
+   *
+   * @param offset the offset of the source, exclusive
+   * @return the offset of the result, the end of the replacement if the character is a part of a replaced range
+   */
+  public int toResultEnd(final int offset) {
+    return map(sources, results, offset, true);
+  }
+
+  /**
+   * returns the offset of the source, which the character at the specified offset of the result converted from .
+   *
+   * @param offset the offset of the result
+   * @return the offset of the source, the beginning of the replaced range if the character is a part of a replacement
+   */
+  public int toSource(final int offset) {
+    return map(results, sources, offset, false);
+  }
+
+  /**
+   * returns the offset of the source, which the range of the result ends at ( exclusive ) .
+   *
+   * @param offset the offset of the result, exclusive
+   * @return the offset of the source, the end of the replaced range if the character is a part of a replacement
+   */
+  public int toSourceEnd(final int offset) {
+    return map(results, sources, offset, true);
+  }
+
+  /**
+   * detects whether the specified offset of the source is not inside any replaced range, so that the source is able to split at there .
+   *
+   * @param offset the offset of the source
+   * @return true if the offset maps to exactly one offset of the result
+   */
+  public boolean isAligned(final int offset) {
+    if (offset <= 0 || offset >= sourceLength()) return offset == 0 || offset == sourceLength();
+    final int segment = floor(sources, offset);
+
+    return sources[segment] == offset || isLinear(segment);
+  }
+
+  /**
+   * returns the map of the conversion, which converts the result of this by the specified map .
+   *
+   * @param next the map of the conversion of the result of this
+   * @return the composed map
+   * @throws IllegalArgumentException if the length of the result of this differs from the length of the source of the specified map
+   */
+  public OffsetMap andThen(final OffsetMap next) {
+    if (resultLength() != Objects.requireNonNull(next).sourceLength()) throw new IllegalArgumentException("the length does not match: " + resultLength() + ", " + next.sourceLength());
+    final Builder builder = new Builder();
+    final int segments = segments();
+    final int nextSegments = next.segments();
+    int i = 0;
+    int j = 0;
+    int offset = 0;
+    int nextOffset = 0;
+    while (i < segments || j < nextSegments) {
+      if (i < segments && j < nextSegments && isLinear(i) && next.isLinear(j)) {
+        final int length = Math.min(results[i + 1] - results[i] - offset, next.sources[j + 1] - next.sources[j] - nextOffset);
+        builder.copy(length);
+        offset += length;
+        nextOffset += length;
+        if (results[i] + offset == results[i + 1]) { i++; offset = 0; }
+        if (next.sources[j] + nextOffset == next.sources[j + 1]) { j++; nextOffset = 0; }
+        continue;
+      }
+      // a group of segments, which ends at the boundaries of the both maps .
+      int sourceLength = 0;
+      int resultLength = 0;
+      int balance = 0;
+      do {
+        if (balance > 0 || (balance == 0 && (i >= segments || (isLinear(i) && j < nextSegments)))) {
+          final int remaining = next.sources[j + 1] - next.sources[j] - nextOffset;
+          if (remaining <= balance || !next.isLinear(j) || balance == 0) {
+            resultLength += next.results[j + 1] - next.results[j] - nextOffset;
+            balance -= remaining;
+            j++;
+            nextOffset = 0;
+          } else {
+            resultLength += balance;
+            nextOffset += balance;
+            balance = 0;
+          }
+        } else {
+          final int remaining = results[i + 1] - results[i] - offset;
+          if (remaining <= -balance || !isLinear(i) || balance == 0) {
+            sourceLength += sources[i + 1] - sources[i] - offset;
+            balance += remaining;
+            i++;
+            offset = 0;
+          } else {
+            sourceLength -= balance;
+            offset -= balance;
+            balance = 0;
+          }
+        }
+      } while (balance != 0);
+      builder.replace(sourceLength, resultLength);
+    }
+
+    return builder.build();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || (obj instanceof OffsetMap && Arrays.equals(sources, ((OffsetMap) obj).sources) && Arrays.equals(results, ((OffsetMap) obj).results));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(sources) + Arrays.hashCode(results);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    for (int i = 0; i < segments(); i++) {
+      joiner.add(String.format("%d-%d: %d-%d", sources[i], sources[i + 1], results[i], results[i + 1]));
+    }
+
+    return joiner.toString();
+  }
+
+  /**
+   * detects whether the characters of the segment map one by one .
+   *
+   * @param segment the index of the segment
+   * @return true if the source and the result of the segment have the same length
+   */
+  private boolean isLinear(final int segment) {
+    return sources[segment + 1] - sources[segment] == results[segment + 1] - results[segment];
+  }
+
+  /**
+   * returns the index of the last boundary which is not greater than the specified offset .
+   *
+   * @param boundaries the offsets at the boundaries of segments
+   * @param offset the offset, in between zero and the length ( exclusive )
+   * @return the index of the segment which contains the offset
+   */
+  private static int floor(final int[] boundaries, final int offset) {
+    int low = 0;
+    int high = boundaries.length - 2;
+    while (low < high) {
+      final int middle = (low + high + 1) >>> 1;
+      if (boundaries[middle] <= offset) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * maps the offset .
+   *
+   * @param from the offsets at the boundaries of segments, of the side which the offset belongs to
+   * @param to the offsets at the boundaries of segments, of the other side
+   * @param offset the offset
+   * @param end the offset is the end of range ( exclusive ), if true
+   * @return the offset of the other side
+   */
+  private static int map(final int[] from, final int[] to, final int offset, final boolean end) {
+    if (offset <= 0) return 0;
+    if (offset >= from[from.length - 1]) return to[to.length - 1];
+    final int segment = floor(from, end ? offset - 1 : offset);
+    if (from[segment + 1] - from[segment] == to[segment + 1] - to[segment]) return to[segment] + offset - from[segment];
+
+    return end ? to[segment + 1] : to[segment];
+  }
+
+  /**
+   * builds {@link OffsetMap} through the conversion, from the beginning of the source in order .
+   *
+   * @author furplag
+   *
+   */
+  public static final class Builder {
+
+    /** the offsets of the source at the boundaries of segments . */
+    private int[] sources = new int[16];
+
+    /** the offsets of the result at the boundaries of segments . */
+    private int[] results = new int[16];
+
+    /** the number of the boundaries . */
+    private int size = 1;
+
+    /**
+     * appends the characters copied as is, or replaced one to one .
+     *
+     * @param length the number of the characters
+     * @return this
+     */
+    public Builder copy(final int length) {
+      if (length < 0) throw new IllegalArgumentException("length must not be negative: " + length);
+      if (length < 1) return this;
+      if (size > 1 && isLinear()) {
+        sources[size - 1] += length;
+        results[size - 1] += length;
+
+        return this;
+      }
+
+      return add(length, length);
+    }
+
+    /**
+     * appends a range of the source, which is replaced with a range of the result .
+     *
+     * @param sourceLength the length of the range of the source
+     * @param resultLength the length of the replacement
+     * @return this
+     */
+    public Builder replace(final int sourceLength, final int resultLength) {
+      if (sourceLength < 0 || resultLength < 0) throw new IllegalArgumentException("length must not be negative: " + sourceLength + ", " + resultLength);
+      if (sourceLength == resultLength) return copy(sourceLength);
+
+      return add(sourceLength, resultLength);
+    }
+
+    /**
+     * appends the characters of the source, which are composed into the last character of the result ( e.g. a voiced sound mark ) .
+     *
+     * @param sourceLength the number of the characters
+     * @return this
+     */
+    public Builder compose(final int sourceLength) {
+      if (sourceLength < 1 || size < 2 || results[size - 1] == results[size - 2]) return replace(Math.max(0, sourceLength), 0);
+      if (!isLinear() || results[size - 1] - results[size - 2] == 1) {
+        sources[size - 1] += sourceLength;
+      } else {
+        sources[size - 1]--;
+        results[size - 1]--;
+        add(1 + sourceLength, 1);
+      }
+
+      return this;
+    }
+
+    /**
+     * appends the map as the difference between the source and the result, that is, the range between the common prefix and the common suffix is replaced .
+     *
+     * @param source the source
+     * @param result the result
+     * @return this
+     */
+    public Builder difference(final CharSequence source, final CharSequence result) {
+      final int limit = Math.min(source.length(), result.length());
+      int prefix = 0;
+      while (prefix < limit && source.charAt(prefix) == result.charAt(prefix)) prefix++;
+      int suffix = 0;
+      while (suffix < limit - prefix && source.charAt(source.length() - suffix - 1) == result.charAt(result.length() - suffix - 1)) suffix++;
+
+      return copy(prefix).replace(source.length() - prefix - suffix, result.length() - prefix - suffix).copy(suffix);
+    }
+
+    /**
+     * appends all segments of the map .
+     *
+     * @param map {@link OffsetMap}
+     * @return this
+     */
+    public Builder append(final OffsetMap map) {
+      return append(map, 0, map.sourceLength());
+    }
+
+    /**
+     * appends the segments of the map, in the specified range of the source .
+     *
+     * @param map {@link OffsetMap}
+     * @param from the offset of the source, which should be {@link OffsetMap#isAligned(int) aligned}
+     * @param to the offset of the source ( exclusive ), which should be {@link OffsetMap#isAligned(int) aligned}
+     * @return this
+     * @throws IllegalArgumentException if the range splits any replaced range
+     */
+    public Builder append(final OffsetMap map, final int from, final int to) {
+      Objects.checkFromToIndex(from, to, map.sourceLength());
+      if (!map.isAligned(from) || !map.isAligned(to)) throw new IllegalArgumentException("the range splits a replacement: " + from + ", " + to);
+      // insertions at the beginning belong to the range, and insertions at the end belong to the next range ( except the end of the source ) .
+      int i = from < 1 ? 0 : floor(map.sources, from);
+      while (i > 0 && map.sources[i - 1] == from) i--;
+      for (; i < map.segments() && map.sources[i] <= to; i++) {
+        final int start = Math.max(from, map.sources[i]);
+        final int end = Math.min(to, map.sources[i + 1]);
+        if (map.isLinear(i)) {
+          copy(end - start);
+        } else if (start < end || (map.sources[i] == map.sources[i + 1] && (map.sources[i] == from || map.sources[i] < to || to == map.sourceLength()))) {
+          replace(map.sources[i + 1] - map.sources[i], map.results[i + 1] - map.results[i]);
+        } else {
+          continue;
+        }
+        // the segments inside the range are copied in bulk, those never merge with each other .
+        int last = i + 1;
+        while (last < map.segments() && map.sources[last + 1] < to) last++;
+        if (last > i + 1) {
+          final int count = last - i - 1;
+          final int sourceShift = sources[size - 1] - map.sources[i + 1];
+          final int resultShift = results[size - 1] - map.results[i + 1];
+          ensureCapacity(size + count);
+          for (int k = 0; k < count; k++) {
+            sources[size + k] = map.sources[i + 2 + k] + sourceShift;
+            results[size + k] = map.results[i + 2 + k] + resultShift;
+          }
+          size += count;
+          i = last - 1;
+        }
+      }
+
+      return this;
+    }
+
+    /**
+     * returns the map .
+     *
+     * @return {@link OffsetMap}
+     */
+    public OffsetMap build() {
+      return new OffsetMap(Arrays.copyOf(sources, size), Arrays.copyOf(results, size));
+    }
+
+    /**
+     * detects whether the last segment maps its characters one by one .
+     *
+     * @return true if the source and the result of the last segment have the same length
+     */
+    private boolean isLinear() {
+      return sources[size - 1] - sources[size - 2] == results[size - 1] - results[size - 2];
+    }
+
+    /**
+     * grows the buffers .
+     *
+     * @param capacity the number of the boundaries to hold
+     */
+    private void ensureCapacity(final int capacity) {
+      if (capacity <= sources.length) return;
+      final int grown = Math.max(capacity, sources.length << 1);
+      sources = Arrays.copyOf(sources, grown);
+      results = Arrays.copyOf(results, grown);
+    }
+
+    /**
+     * appends a segment .
+     *
+     * @param sourceLength the length of the range of the source
+     * @param resultLength the length of the range of the result
+     * @return this
+     */
+    private Builder add(final int sourceLength, final int resultLength) {
+      ensureCapacity(size + 1);
+      sources[size] = sources[size - 1] + sourceLength;
+      results[size] = results[size - 1] + resultLength;
+      size++;
+
+      return this;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+/**
+ * finds the characters which need any work to optimize ( or normalize ), so that the other characters are skipped in bulk .
+ *
+ * <p>
+ * this is the scalar implementation, and Java 17 or later uses the implementation with Vector API ( multi-release JAR ),
+ * only if the module enabled ( {@code --add-modules jdk.incubator.vector} ), unless the system property
+ * {@code jp.furplag.text.optimize.CharScannr.vectorized} is {@code false} .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class CharScannr {
+
+  /** the text to scan . */
+  protected final CharSequence text;
+
+  /**
+   *
+   * @param text the text to scan
+   */
+  CharScannr(final CharSequence text) {
+    this.text = text;
+  }
+
+  /**
+   * returns a scanner of the specified text .
+   *
+   * @param text the text to scan
+   * @return {@link CharScannr}
+   */
+  public static CharScannr of(final CharSequence text) {
+    return CharScannrProvider.of(text);
+  }
+
+  /**
+   * returns whether the scanning uses Vector API .
+   *
+   * @return true if the scanning uses Vector API
+   */
+  public static boolean isVectorized() {
+    return CharScannrProvider.isVectorized();
+  }
+
+  /**
+   * detects whether the specified character needs no work to optimize .
+   *
+   * @param c the character
+   * @return true if the character is neither a control character nor a whitespace ( including no-break space )
+   */
+  static boolean isPlain(final char c) {/* @formatter:off */
+    return c > '\u0020' && (c < '\u007F' || c > '\u00A0') && c != '\u1680' && (c < '\u2000' || c > '\u200A')
+      && c != '\u2028' && c != '\u2029' && c != '\u205F' && c != '\u3000';
+  /* @formatter:on */}
+
+  /**
+   * returns the index of the first character which needs any work to optimize, in between the specified index and the end of text .
+   *
+   * <p>
+   * a space which stands between the characters which need no work, needs no work too .
+   * </p>
+   *
+   * @param from the index to start scanning
+   * @return the index of the character, or the length of text if not found
+   */
+  public int skip(final int from) {
+    return scan(from, false);
+  }
+
+  /**
+   * returns the index of the first character which needs any work to optimize, or may change by normalization ( U+2010 and later ) .
+   *
+   * @param from the index to start scanning
+   * @return the index of the character, or the length of text if not found
+   * @see #skip(int)
+   */
+  public int skipLatin(final int from) {
+    return scan(from, true);
+  }
+
+  /**
+   * scans the text one by one .
+   *
+   * @param from the index to start scanning
+   * @param latin stops at the characters U+2010 and later, if true
+   * @return the index of the character, or the length of text if not found
+   */
+  protected int scan(final int from, final boolean latin) {
+    final int length = text.length();
+    for (int i = Math.max(0, from); i < length; i++) {
+      if (!isClean(i, length, latin)) return i;
+    }
+
+    return length;
+  }
+
+  /**
+   * detects whether the character at the specified index needs no work .
+   *
+   * @param i the index of the character
+   * @param length the length of text
+   * @param latin the characters U+2010 and later need any work, if true
+   * @return true if the character needs no work
+   */
+  final boolean isClean(final int i, final int length, final boolean latin) {
+    final char c = text.charAt(i);
+    if (latin && c >= '\u2010') return false;
+
+    return isPlain(c) || (c == '\u0020' && i > 0 && i + 1 < length && isPlain(text.charAt(i - 1)) && isPlain(text.charAt(i + 1)));
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+/**
+ * creates {@link CharScannr}, the scalar implementation for Java 11 .
+ *
+ * @author furplag
+ *
+ */
+final class CharScannrProvider {
+
+  /**
+   * CharScannrProvider instances should NOT be constructed in standard programming.
+   */
+  private CharScannrProvider() {}
+
+  /**
+   * returns whether the scanning uses Vector API .
+   *
+   * @return false, Java 11 never uses Vector API
+   */
+  static boolean isVectorized() {
+    return false;
+  }
+
+  /**
+   * returns a scanner of the specified text .
+   *
+   * @param text the text to scan
+   * @return {@link CharScannr}
+   */
+  static CharScannr of(final CharSequence text) {
+    return new CharScannr(text);
+  }
+}
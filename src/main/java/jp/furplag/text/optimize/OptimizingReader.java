@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * a {@link Reader} which optimizes the text incrementally, the same as {@link Optimizr#optimize(String)} .
+ *
+ * <p>
+ * reads the underlying reader at most the buffer size at once, and passes it through the pipeline,
+ * so that the memory usage depends on the buffer size, not on the length of the text .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class OptimizingReader extends Reader {
+
+  /** the default buffer size . */
+  protected static final int defaultBufferSize = 8192;
+
+  /** the underlying reader . */
+  private final Reader in;
+
+  /** the buffer to read the underlying reader . */
+  private final char[] buffer;
+
+  /** the text which has passed through the pipeline, and not read yet . */
+  private final StringBuilder pending;
+
+  /** the pipeline which writes into {@code pending} . */
+  private final Writer pipeline;
+
+  /** the position of {@code pending} to read next . */
+  private int position;
+
+  /** true if the underlying reader reached the end of stream . */
+  private boolean eof;
+
+  /**
+   *
+   * @param in the underlying reader
+   */
+  public OptimizingReader(final Reader in) {
+    this(in, defaultBufferSize);
+  }
+
+  /**
+   *
+   * @param in the underlying reader
+   * @param bufferSize the number of characters to read the underlying reader at once
+   */
+  public OptimizingReader(final Reader in, final int bufferSize) {
+    this(in, bufferSize, OptimizingWriter::new);
+  }
+
+  /**
+   *
+   * @param in the underlying reader
+   * @param bufferSize the number of characters to read the underlying reader at once
+   * @param pipeline the function which decorates the writer to {@code pending}
+   */
+  protected OptimizingReader(final Reader in, final int bufferSize, final Function<Writer, Writer> pipeline) {
+    super(Objects.requireNonNull(in));
+    if (bufferSize < 1) throw new IllegalArgumentException("bufferSize must be greater than 0 .");
+    this.in = in;
+    this.buffer = new char[bufferSize];
+    this.pending = new StringBuilder(bufferSize);
+    this.pipeline = pipeline.apply(new Writer() {
+
+      @Override
+      public void write(char[] cbuf, int off, int len) {
+        pending.append(cbuf, off, len);
+      }
+
+      @Override
+      public void flush() {/* nothing to do . */}
+
+      @Override
+      public void close() {/* nothing to do . */}
+    });
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    synchronized (lock) {
+      if (len < 1) return 0;
+      while (position >= pending.length()) {
+        if (eof) return -1;
+        pending.setLength(0);
+        position = 0;
+        final int read = in.read(buffer, 0, buffer.length);
+        if (read < 0) {
+          pipeline.close();
+          eof = true;
+        } else {
+          pipeline.write(buffer, 0, read);
+        }
+      }
+      final int read = Math.min(len, pending.length() - position);
+      pending.getChars(position, position + read, cbuf, off);
+      position += read;
+
+      return read;
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean ready() throws IOException {
+    synchronized (lock) {
+      return position < pending.length();
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * a {@link Writer} which optimizes the text incrementally, the same as {@link Optimizr#optimize(String)} .
+ *
+ * <p>
+ * the state of whitespaces is carried over between writes, so that leading and trailing whitespaces are dropped,
+ * and a sequence of whitespaces turns into a single separator even if it lies across the writes .
+ * the pending separator is written only if any character follows, and never be written by {@link #flush()} .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public class OptimizingWriter extends Writer {
+
+  /** the underlying writer . */
+  private final Writer out;
+
+  /** the buffer to write a string through . */
+  private final char[] chars = new char[1024];
+
+  /** pending separator, or {@code 0} if there is no whitespace since the last character . */
+  private char separator;
+
+  /** true if no character has been written . */
+  private boolean leading = true;
+
+  /**
+   *
+   * @param out the underlying writer
+   */
+  public OptimizingWriter(final Writer out) {
+    super(Objects.requireNonNull(out));
+    this.out = out;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void write(final char[] cbuf, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    synchronized (lock) {
+      int start = -1;
+      for (int i = off; i < off + len; i++) {
+        final char c = cbuf[i];
+        final boolean removable = Optimizr.isRemovable(c);
+        if (!removable && !Optimizr.isWhitespace(c)) {
+          if (start < 0) {
+            if (separator != 0 && !leading) out.write(separator);
+            start = i;
+            separator = 0;
+            leading = false;
+          }
+          continue;
+        }
+        if (start > -1) {
+          out.write(cbuf, start, i - start);
+          start = -1;
+        }
+        if (!removable) separator = c == '\n' || separator == '\n' ? '\n' : ' ';
+      }
+      if (start > -1) out.write(cbuf, start, off + len - start);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void write(final String str, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, str.length());
+    synchronized (lock) {
+      for (int i = off; i < off + len; i += chars.length) {
+        final int end = Math.min(off + len, i + chars.length);
+        str.getChars(i, end, chars, 0);
+        write(chars, 0, end - i);
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
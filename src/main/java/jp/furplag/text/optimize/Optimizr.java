@@ -15,6 +15,12 @@
  */
 package jp.furplag.text.optimize;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import jp.furplag.text.metrics.Metricr;
+import jp.furplag.text.metrics.NormalizationEvent;
+import jp.furplag.text.offset.OffsetMap;
 import jp.furplag.text.regex.Regexr;
 import jp.furplag.text.regex.RegexrOrigin;
 
@@ -33,8 +39,8 @@ import jp.furplag.text.regex.RegexrOrigin;
  */
 public final class Optimizr {
 
-  /** {@link Regexr}. */
-  private static final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.SpaceNormalizr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr};
+  /** metrics of {@link #optimize(CharSequence, Appendable)} . */
+  private static final Metricr.Stage optimizeMetrics = Metricr.stage("Optimizr.optimize");
 
   /**
    * Optimizr instances should NOT be constructed in standard programming.
@@ -44,13 +50,26 @@ public final class Optimizr {
   /**
    * detects whether the specified string is optimized.
    *
+   * <p>
+   * scans the string only once ( skips the characters which need no work in bulk, using {@link CharScannr} ), and stops at the first character which any of {@link Regexr#CtrlRemovr}, {@link Regexr#SpaceLintr},
+   * {@link Regexr#LinefeedLintr} and {@link Regexr#Trimr} matches .
+   * </p>
+   *
    * @param string the string, maybe null
    * @return true if the specified string is optimized
    */
   public static boolean isOptimized(final String string) {
-    Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr};
+    if (RegexrOrigin.isEmpty(string)) return true;
+    if (Character.isWhitespace(string.charAt(0)) || Character.isWhitespace(string.charAt(string.length() - 1))) return false;
+    final CharScannr scannr = CharScannr.of(string);
+    for (int i = scannr.skip(0); i < string.length(); i = scannr.skip(i + 1)) {
+      final char c = string.charAt(i);
+      final char previous = i > 0 ? string.charAt(i - 1) : 0;
+      if (isRemovable(c)) return false;
+      if (c == '\n' ? isSpace(previous) : previous == '\n' ? isSpace(c) : Character.isWhitespace(c) && Character.isWhitespace(previous)) return false;
+    }
 
-    return RegexrOrigin.isEmpty(string) || !RegexrOrigin.anyMatch(string, regexrs);
+    return true;
   }
 
   /**
@@ -67,6 +86,149 @@ public final class Optimizr {
    * @return optimized text
    */
   public static String optimize(final String string) {
-    return RegexrOrigin.replaceAll(string, regexrs);
+    return RegexrOrigin.isEmpty(string) ? string : optimize(string, new StringBuilder(string.length())).toString();
+  }
+
+  /**
+   * appends optimized text to the specified {@link Appendable} in a single pass, which is the same as replacing {@link Regexr#CtrlRemovr},
+   * {@link Regexr#SpaceNormalizr}, {@link Regexr#SpaceLintr}, {@link Regexr#LinefeedLintr} and {@link Regexr#Trimr} in order .
+   *
+   * <ul>
+   * <li>control characters are skipped .</li>
+   * <li>a sequence of whitespaces turns into a pending separator, which is a newline if the sequence contains any newline, otherwise a space .</li>
+   * <li>the separator is written only if it stands between the characters, so that leading and trailing whitespaces are dropped .</li>
+   * </ul>
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append optimized text
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public static <T extends Appendable> T optimize(final CharSequence text, final T result) {
+    return optimize(text, result, null);
+  }
+
+  /**
+   * appends optimized text to the specified {@link Appendable}, and records the offsets of the optimization .
+   *
+   * <p>
+   * a sequence of whitespaces and control characters maps to the separator ( or nothing ), and the other characters map one by one .
+   * </p>
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append optimized text
+   * @param offsets {@link OffsetMap.Builder} to record the offsets between the text and the appended text, or null not to record
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   * @see #optimize(CharSequence, Appendable)
+   */
+  public static <T extends Appendable> T optimize(final CharSequence text, final T result, final OffsetMap.Builder offsets) {
+    if (text == null) return result;
+    final long started = Metricr.started();
+    final NormalizationEvent event = NormalizationEvent.begin("Optimizr.optimize", text, result);
+    try {
+      optimizing(text, result, offsets);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (Metricr.enabled) optimizeMetrics.record(started, text.length(), 0);
+    event.optimized();
+    event.end(result);
+
+    return result;
+  }
+
+  /**
+   * appends optimized text to the specified {@link Appendable}, the characters between the separators are appended in bulk .
+   *
+   * <p>
+   * a space which stands between the characters never changes, so that the space is a part of the bulk ( {@link CharScannr#skip(int)} ) .
+   * </p>
+   *
+   * @param text the text
+   * @param result {@link Appendable} to append optimized text
+   * @param offsets {@link OffsetMap.Builder} to record the offsets, or null not to record
+   * @throws IOException if an I/O error occurs
+   */
+  private static void optimizing(final CharSequence text, final Appendable result, final OffsetMap.Builder offsets) throws IOException {
+    final CharScannr scannr = CharScannr.of(text);
+    char separator = 0;
+    boolean leading = true;
+    int start = -1;
+    int end = 0;
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      final boolean removable = isRemovable(c);
+      if (!removable && !isWhitespace(c)) {
+        if (start < 0) {
+          final boolean separated = separator != 0 && !leading;
+          if (separated) result.append(separator);
+          if (offsets != null) offsets.replace(i - end, separated ? 1 : 0);
+          start = i;
+          separator = 0;
+          leading = false;
+        }
+        i = scannr.skip(i + 1) - 1;
+        continue;
+      }
+      if (start > -1) {
+        result.append(text, start, i);
+        if (offsets != null) offsets.copy(i - start);
+        start = -1;
+        end = i;
+      }
+      if (removable) {
+        continue;
+      } else if (c == '\n') {
+        separator = '\n';
+      } else {
+        separator = separator == '\n' ? '\n' : '\u0020';
+      }
+    }
+    if (start > -1) result.append(text, start, text.length());
+    if (offsets != null) offsets.copy(start > -1 ? text.length() - start : 0).replace(start > -1 ? 0 : text.length() - end, 0);
+  }
+
+  /**
+   * detects whether the optimization never changes across between the specified characters, so that the text is able to be optimized separately at there .
+   *
+   * @param previous the character before the boundary
+   * @param c the character after the boundary
+   * @return true if the both characters are neither control characters nor whitespaces
+   */
+  public static boolean isSeparable(final char previous, final char c) {
+    return !isRemovable(previous) && !isWhitespace(previous) && !isRemovable(c) && !isWhitespace(c);
+  }
+
+  /**
+   * detects whether the specified character is the target of {@link Regexr#CtrlRemovr} .
+   *
+   * @param c the character
+   * @return true if the specified character is a control character except whitespaces
+   */
+  static boolean isRemovable(final char c) {
+    return c < '\t' || (c > '\r' && c < '\u001C') || (c >= '\u007F' && c <= '\u009F');
+  }
+
+  /**
+   * detects whether the specified character is a whitespace character in regular expression ( {@code \\s} ) .
+   *
+   * @param c the character
+   * @return true if the specified character is one of {@code [ \\t\\n\\x0B\\f\\r]}
+   */
+  private static boolean isSpace(final char c) {
+    return c == '\u0020' || (c >= '\t' && c <= '\r');
+  }
+
+  /**
+   * detects whether the specified character is a whitespace, or a no-break space .
+   *
+   * @param c the character
+   * @return true if the specified character is the target of {@link Regexr#SpaceNormalizr}, or is a space or a newline
+   */
+  static boolean isWhitespace(final char c) {
+    return Character.isWhitespace(c) || c == '\u00A0';
   }
 }
@@ -15,6 +15,9 @@
  */
 package jp.furplag.text.optimize;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import jp.furplag.text.regex.Regexr;
 import jp.furplag.text.regex.RegexrOrigin;
 
@@ -26,8 +29,6 @@ import jp.furplag.text.regex.RegexrOrigin;
  */
 public final class Trimr {
 
-  private static final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.Trimr};
-
   /**
    * Trimr instances should NOT be constructed in standard programming.
    */
@@ -36,11 +37,22 @@ public final class Trimr {
   /**
    * detects whether the specified string is trimmed.
    *
+   * <p>
+   * scans the string only once, and stops at the first character which {@link Regexr#CtrlRemovr} or {@link Regexr#Trimr} matches .
+   * </p>
+   *
    * @param string the string, maybe null
    * @return true if the specified string is trimmed
    */
   public static boolean isTrimmed(final String string) {
-    return RegexrOrigin.isEmpty(string) || !RegexrOrigin.anyMatch(string, regexrs);
+    if (RegexrOrigin.isEmpty(string)) return true;
+    if (Character.isWhitespace(string.charAt(0)) || Character.isWhitespace(string.charAt(string.length() - 1))) return false;
+    final CharScannr scannr = CharScannr.of(string);
+    for (int i = scannr.skip(0); i < string.length(); i = scannr.skip(i + 1)) {
+      if (Optimizr.isRemovable(string.charAt(i))) return false;
+    }
+
+    return true;
   }
 
   /**
@@ -50,6 +62,51 @@ public final class Trimr {
    * @return trimmed text
    */
   public static String trim(final String string) {
-    return RegexrOrigin.replaceAll(string, regexrs);
+    return RegexrOrigin.isEmpty(string) ? string : trim(string, new StringBuilder(string.length())).toString();
+  }
+
+  /**
+   * remove Control Character and remove leading and trailing space, and appends the result to the specified {@link Appendable} .
+   *
+   * <p>
+   * the same as replacing {@link Regexr#CtrlRemovr} and {@link Regexr#Trimr} in order, in a single pass .
+   * </p>
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append trimmed text
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public static <T extends Appendable> T trim(final CharSequence text, final T result) {
+    if (text == null) return result;
+    int begin = 0;
+    int end = text.length();
+    while (begin < end && isTrimmable(text.charAt(begin))) begin++;
+    while (end > begin && isTrimmable(text.charAt(end - 1))) end--;
+    try {
+      final CharScannr scannr = CharScannr.of(text);
+      int start = begin;
+      for (int i = scannr.skip(begin); i < end; i = scannr.skip(i + 1)) {
+        if (!Optimizr.isRemovable(text.charAt(i))) continue;
+        result.append(text, start, i);
+        start = i + 1;
+      }
+      result.append(text, start, end);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return result;
+  }
+
+  /**
+   * detects whether the specified character is a control character, or a whitespace .
+   *
+   * @param c the character
+   * @return true if the specified character is the target of {@link Regexr#CtrlRemovr} or {@link Regexr#Trimr}
+   */
+  private static boolean isTrimmable(final char c) {
+    return Optimizr.isRemovable(c) || Character.isWhitespace(c);
   }
 }
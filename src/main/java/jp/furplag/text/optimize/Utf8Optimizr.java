@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+import jp.furplag.text.regex.Regexr;
+
+/**
+ * optimize ( or normalize ) UTF-8 encoded text without decoding to {@link String} .
+ *
+ * <p>
+ * the result is the same as the UTF-8 encoded {@link Optimizr#optimize(String)} ( or {@link jp.furplag.text.normalize.CjkNormalizr#normalize(String)} ) of the decoded text .
+ * runs of ASCII characters except whitespaces and control characters are detected eight bytes at a time and copied in bulk,
+ * and the other characters are classified by the code point without decoding .
+ * </p>
+ * <p>
+ * normalizing applies {@link Regexr#CjkNormalizr} to each run of non-ASCII characters, which contains one or two spaces in between
+ * or in front of non-ASCII characters, because the replacements never match ASCII characters except spaces which precede voiced sound marks .
+ * </p>
+ * <p>
+ * malformed input is processed as a {@link String} which decoded with replacement characters ( U+FFFD ),
+ * same as {@link String#String(byte[], java.nio.charset.Charset)} .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class Utf8Optimizr {
+
+  /** the most significant bit of each byte in a long . */
+  private static final long highBits = 0x8080808080808080L;
+
+  /**
+   * Utf8Optimizr instances should NOT be constructed in standard programming.
+   */
+  private Utf8Optimizr() {}
+
+  /**
+   * returns optimized UTF-8 bytes .
+   *
+   * @param bytes UTF-8 encoded text, maybe null
+   * @return optimized UTF-8 bytes
+   * @see Optimizr#optimize(String)
+   */
+  public static byte[] optimize(final byte[] bytes) {
+    return optimize(bytes, null);
+  }
+
+  /**
+   * returns normalized UTF-8 bytes .
+   *
+   * @param bytes UTF-8 encoded text, maybe null
+   * @return normalized UTF-8 bytes
+   * @see jp.furplag.text.normalize.CjkNormalizr#normalize(String)
+   */
+  public static byte[] normalize(final byte[] bytes) {
+    return optimize(bytes, Regexr.CjkNormalizr::replaceAll);
+  }
+
+  /**
+   * returns optimized UTF-8 bytes, after the preprocessor applied to each run of non-ASCII characters .
+   *
+   * @param bytes UTF-8 encoded text, maybe null
+   * @param preprocessor the function which appends the preprocessed text to the specified {@link StringBuilder}, maybe null
+   * @return optimized UTF-8 bytes
+   */
+  private static byte[] optimize(final byte[] bytes, final BiFunction<CharSequence, StringBuilder, StringBuilder> preprocessor) {
+    if (bytes == null || bytes.length < 1) return bytes;
+    final ByteBuffer destination = ByteBuffer.allocate(preprocessor == null ? bytes.length : bytes.length * 2);
+    boolean optimized;
+    try {
+      optimized = optimizing(ByteBuffer.wrap(bytes), destination, preprocessor);
+    } catch (BufferOverflowException e) {
+      optimized = false;
+    }
+
+    return optimized ? Arrays.copyOf(destination.array(), destination.position()) : fallback(new String(bytes, UTF_8), preprocessor).getBytes(UTF_8);
+  }
+
+  /**
+   * writes optimized UTF-8 bytes to the destination .
+   *
+   * @param source UTF-8 encoded text between the position and the limit, maybe null
+   * @param destination the buffer to write optimized text, the same remaining as the source is enough if the source is well-formed
+   * @return {@code destination}
+   * @throws BufferOverflowException if the destination has not enough remaining, and then the positions of both buffers never change
+   * @see Optimizr#optimize(String)
+   */
+  public static ByteBuffer optimize(final ByteBuffer source, final ByteBuffer destination) {
+    return optimize(source, destination, null);
+  }
+
+  /**
+   * writes normalized UTF-8 bytes to the destination .
+   *
+   * @param source UTF-8 encoded text between the position and the limit, maybe null
+   * @param destination the buffer to write normalized text, twice the remaining of the source is enough if the source is well-formed
+   * @return {@code destination}
+   * @throws BufferOverflowException if the destination has not enough remaining, and then the positions of both buffers never change
+   * @see jp.furplag.text.normalize.CjkNormalizr#normalize(String)
+   */
+  public static ByteBuffer normalize(final ByteBuffer source, final ByteBuffer destination) {
+    return optimize(source, destination, Regexr.CjkNormalizr::replaceAll);
+  }
+
+  /**
+   * writes optimized UTF-8 bytes to the destination, after the preprocessor applied to each run of non-ASCII characters .
+   *
+   * <p>
+   * the position of the source advances to the limit, and the position of the destination advances with written bytes .
+   * </p>
+   *
+   * @param source UTF-8 encoded text between the position and the limit, maybe null
+   * @param destination the buffer to write optimized text
+   * @param preprocessor the function which appends the preprocessed text to the specified {@link StringBuilder}, maybe null
+   * @return {@code destination}
+   * @throws BufferOverflowException if the destination has not enough remaining, and then the positions of both buffers never change
+   */
+  private static ByteBuffer optimize(final ByteBuffer source, final ByteBuffer destination, final BiFunction<CharSequence, StringBuilder, StringBuilder> preprocessor) {
+    if (source == null) return destination;
+    final int position = destination.position();
+    try {
+      if (!optimizing(source, destination, preprocessor)) {
+        destination.position(position);
+        destination.put(fallback(UTF_8.decode(source.duplicate()).toString(), preprocessor).getBytes(UTF_8));
+      }
+    } catch (BufferOverflowException e) {
+      destination.position(position);
+      throw e;
+    }
+    source.position(source.limit());
+
+    return destination;
+  }
+
+  /**
+   * optimize the text in decoded, for malformed input .
+   *
+   * @param string the string
+   * @param preprocessor the function which appends the preprocessed text to the specified {@link StringBuilder}, maybe null
+   * @return optimized text
+   */
+  private static String fallback(final String string, final BiFunction<CharSequence, StringBuilder, StringBuilder> preprocessor) {
+    return Optimizr.optimize(preprocessor == null ? string : preprocessor.apply(string, new StringBuilder(string.length())).toString());
+  }
+
+  /**
+   * writes optimized UTF-8 bytes to the destination, never changes the position of the source .
+   *
+   * @param source UTF-8 encoded text
+   * @param destination the buffer to write optimized text
+   * @param preprocessor the function which appends the preprocessed text to the specified {@link StringBuilder}, maybe null
+   * @return false if the source is malformed
+   */
+  private static boolean optimizing(final ByteBuffer source, final ByteBuffer destination, final BiFunction<CharSequence, StringBuilder, StringBuilder> preprocessor) {
+    final Sink sink = new Sink(source, destination);
+    final StringBuilder decoded = preprocessor == null ? null : new StringBuilder();
+    final StringBuilder preprocessed = preprocessor == null ? null : new StringBuilder();
+    final int end = source.limit();
+    int i = source.position();
+    while (i < end) {
+      final int j = preprocessor == null ? skip(source, i, end) : skipPlain(source, i, end);
+      if (j < 0) {
+        return false;
+      } else if (j > i) {
+        sink.copy(i, j);
+        i = j;
+      } else if (preprocessor != null && isIsland(source, i, end)) {
+        decoded.setLength(0);
+        while (i < end && isIsland(source, i, end)) {
+          if (source.get(i) >= 0) {
+            decoded.append((char) source.get(i++));
+            continue;
+          }
+          final int length = length(source, i, end);
+          if (length < 0) return false;
+          decoded.appendCodePoint(decode(source, i, length));
+          i += length;
+        }
+        preprocessed.setLength(0);
+        final StringBuilder result = preprocessor.apply(decoded, preprocessed);
+        for (int k = 0; k < result.length(); k++) {
+          final char c = result.charAt(k);
+          if (Character.isHighSurrogate(c) && k + 1 < result.length() && Character.isLowSurrogate(result.charAt(k + 1))) {
+            sink.accept(Character.toCodePoint(c, result.charAt(++k)));
+          } else {
+            sink.accept(Character.isSurrogate(c) ? '?' : c);
+          }
+        }
+      } else if (source.get(i) >= 0) {
+        sink.accept(source.get(i++));
+      } else {
+        final int length = length(source, i, end);
+        sink.accept(decode(source, i, length));
+        i += length;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * returns the end of the run of ASCII characters except whitespaces and control characters .
+   *
+   * @param source UTF-8 encoded text
+   * @param index the index to start
+   * @param end the limit of the text
+   * @return the end of the run
+   */
+  private static int skipPlain(final ByteBuffer source, final int index, final int end) {
+    int i = index;
+    while (i + Long.BYTES <= end && isPlain(source.getLong(i))) i += Long.BYTES;
+    while (i < end && isPlain(source.get(i))) i++;
+
+    return i;
+  }
+
+  /**
+   * returns the end of the run of characters except whitespaces and control characters .
+   *
+   * <p>
+   * only the sequences which lead with {@code 0xC2}, {@code 0xE1}, {@code 0xE2} or {@code 0xE3} need to decode,
+   * because the other non-ASCII characters are never whitespaces and control characters .
+   * </p>
+   *
+   * @param source UTF-8 encoded text
+   * @param index the index to start
+   * @param end the limit of the text
+   * @return the end of the run, or -1 if malformed
+   */
+  private static int skip(final ByteBuffer source, final int index, final int end) {
+    int i = skipPlain(source, index, end);
+    while (i < end && source.get(i) < 0) {
+      final int length = length(source, i, end);
+      if (length < 0) return -1;
+      final int leading = source.get(i) & 0xFF;
+      if (leading == 0xC2 || (leading > 0xE0 && leading < 0xE4)) {
+        final char c = (char) decode(source, i, length);
+        if (Optimizr.isRemovable(c) || Optimizr.isWhitespace(c)) break;
+      }
+      i = skipPlain(source, i + length, end);
+    }
+
+    return i;
+  }
+
+  /**
+   * detects whether the specified index is in a run of non-ASCII characters, or one or two spaces which precede the run .
+   *
+   * @param source UTF-8 encoded text
+   * @param index the index
+   * @param end the limit of the text
+   * @return true if the byte is not ASCII, or the spaces followed by non-ASCII character
+   */
+  private static boolean isIsland(final ByteBuffer source, final int index, final int end) {
+    for (int i = index; i < Math.min(end, index + 3); i++) {
+      if (source.get(i) < 0) return true;
+      if (source.get(i) != ' ') return false;
+    }
+
+    return false;
+  }
+
+  /**
+   * detects whether the specified eight bytes are all ASCII characters except whitespaces and control characters .
+   *
+   * @param bytes eight bytes
+   * @return true if all bytes are in between {@code 0x21} and {@code 0x7E}
+   */
+  private static boolean isPlain(final long bytes) {
+    final long deleted = bytes ^ 0x7F7F7F7F7F7F7F7FL;
+
+    return ((bytes | ((bytes - 0x2121212121212121L) & ~bytes) | ((deleted - 0x0101010101010101L) & ~deleted)) & highBits) == 0;
+  }
+
+  /**
+   * detects whether the specified byte is an ASCII character except whitespaces and control characters .
+   *
+   * @param b a byte
+   * @return true if the byte is in between {@code 0x21} and {@code 0x7E}
+   */
+  private static boolean isPlain(final byte b) {
+    return b > ' ' && b != '\u007F';
+  }
+
+  /**
+   * returns the length of the well-formed UTF-8 sequence .
+   *
+   * @param source UTF-8 encoded text
+   * @param index the index of the leading byte
+   * @param end the limit of the text
+   * @return the length of the sequence, or -1 if malformed
+   */
+  private static int length(final ByteBuffer source, final int index, final int end) {
+    final int leading = source.get(index) & 0xFF;
+    final int length = leading < 0xC2 ? -1 : leading < 0xE0 ? 2 : leading < 0xF0 ? 3 : leading < 0xF5 ? 4 : -1;
+    if (length < 0 || index + length > end) return -1;
+    final int second = source.get(index + 1) & 0xFF;
+    if (second < (leading == 0xE0 ? 0xA0 : leading == 0xF0 ? 0x90 : 0x80) || second > (leading == 0xED ? 0x9F : leading == 0xF4 ? 0x8F : 0xBF)) return -1;
+    for (int i = index + 2; i < index + length; i++) {
+      if ((source.get(i) & 0xC0) != 0x80) return -1;
+    }
+
+    return length;
+  }
+
+  /**
+   * decodes the well-formed UTF-8 sequence .
+   *
+   * @param source UTF-8 encoded text
+   * @param index the index of the leading byte
+   * @param length the length of the sequence
+   * @return the code point
+   */
+  private static int decode(final ByteBuffer source, final int index, final int length) {
+    int codePoint = source.get(index) & (0xFF >> (length + 1));
+    for (int i = index + 1; i < index + length; i++) {
+      codePoint = (codePoint << 6) | (source.get(i) & 0x3F);
+    }
+
+    return codePoint;
+  }
+
+  /**
+   * writes optimized UTF-8 bytes, holding the separator in pending same as {@link Optimizr#optimize(CharSequence, Appendable)} .
+   */
+  private static final class Sink {
+
+    /** UTF-8 encoded text . */
+    private final ByteBuffer source;
+
+    /** a view of the source to copy in bulk, if the source is not backed by an array . */
+    private final ByteBuffer view;
+
+    /** the buffer to write optimized text . */
+    private final ByteBuffer destination;
+
+    /** pending separator, a space or a newline, {@code 0} if no whitespaces pending . */
+    private char separator;
+
+    /** true until any character written . */
+    private boolean leading = true;
+
+    private Sink(final ByteBuffer source, final ByteBuffer destination) {
+      this.source = source;
+      this.destination = destination;
+      view = source.hasArray() ? null : source.duplicate();
+    }
+
+    /**
+     * writes the characters of the source in bulk .
+     *
+     * @param from the index of the source, inclusive
+     * @param to the index of the source, exclusive
+     */
+    private void copy(final int from, final int to) {
+      separate();
+      if (view == null) {
+        destination.put(source.array(), source.arrayOffset() + from, to - from);
+      } else {
+        view.limit(to).position(from);
+        destination.put(view);
+      }
+    }
+
+    /**
+     * writes a character, or holds the separator in pending .
+     *
+     * @param codePoint the code point
+     */
+    private void accept(final int codePoint) {
+      if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT && Optimizr.isRemovable((char) codePoint)) return;
+      if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT && Optimizr.isWhitespace((char) codePoint)) {
+        separator = codePoint == '\n' || separator == '\n' ? '\n' : ' ';
+
+        return;
+      }
+      separate();
+      if (codePoint < 0x80) {
+        destination.put((byte) codePoint);
+      } else if (codePoint < 0x800) {
+        destination.put((byte) (0xC0 | (codePoint >> 6))).put((byte) (0x80 | (codePoint & 0x3F)));
+      } else if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        destination.put((byte) (0xE0 | (codePoint >> 12))).put((byte) (0x80 | ((codePoint >> 6) & 0x3F))).put((byte) (0x80 | (codePoint & 0x3F)));
+      } else {
+        destination.put((byte) (0xF0 | (codePoint >> 18))).put((byte) (0x80 | ((codePoint >> 12) & 0x3F))).put((byte) (0x80 | ((codePoint >> 6) & 0x3F))).put((byte) (0x80 | (codePoint & 0x3F)));
+      }
+    }
+
+    /** writes the pending separator, if any character written already . */
+    private void separate() {
+      if (separator != 0 && !leading) destination.put((byte) separator);
+      separator = 0;
+      leading = false;
+    }
+  }
+}
@@ -16,18 +16,16 @@
 package jp.furplag.text.regex;
 
 import java.io.Serializable;
-import java.text.Normalizer;
 import java.text.Normalizer.Form;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import jp.furplag.sandbox.stream.Streamr;
+import jp.furplag.text.metrics.Metricr;
+import jp.furplag.text.offset.OffsetMap;
 
 /**
  * for text linting .
@@ -56,7 +54,7 @@ public abstract class Regexr implements RegexrOrigin, Serializable, Comparable<R
    * modified normalization for CJK text .
    *
    * <p>
-   * normalize the character member of Halfwidth and Fullwidth Forms uning {@link Form#NFKC} .
+   * normalize the character member of Halfwidth and Fullwidth Forms uning {@link Form#NFKC} ( with precomputed tables ) .
    * </p>
    * <ul>
    * <li>CJK half width character replace to full width mostly ( Hangul, Katakana, Hiragana ) .</li>
@@ -74,32 +72,77 @@ public abstract class Regexr implements RegexrOrigin, Serializable, Comparable<R
     Trimr = new RegexrStandard("^[\\p{javaWhitespace}]+|[\\p{javaWhitespace}]+$", "", 10_000);
     CjkNormalizr = new Regexr("([\u3000-\u30FF\uFF00-\uFFEF&&[^\uFF5E\uFF04\uFFE0\uFFE1\uFFE5\uFFE6]]+)", "$1", 100_000) {
 
-      private final UnaryOperator<String> _preNormalize = (t) -> RegexrOrigin.replaceAll(t
-        , new RegexrStandard("[\u2010-\u2012]", "\u002D", 1)
-        , new RegexrStandard("\u0020?[\u3099\u309B]", "\uFF9E", 2)
-        , new RegexrStandard("\u0020?[\u309A\u309C]", "\uFF9F", 3)
+      private final RegexrChain _preNormalizrs = RegexrChain.of(
+        RegexrPool.standard("[\u2010-\u2012]", "\u002D", 1)
+        , RegexrPool.standard("\u0020?[\u3099\u309B]", "\uFF9E", 2)
+        , RegexrPool.standard("\u0020?[\u309A\u309C]", "\uFF9F", 3)
       );
-      private final UnaryOperator<String> _normalize = (t) -> {
-        final AtomicReference<String> result = new AtomicReference<>(t);
-        pattern.matcher(result.get()).results().forEach((r) -> {
-          final String _r = r.group();
-          result.set(result.get().replace(_r, Normalizer.normalize(_r, Form.NFKC)));
-        });
-
-        return result.get();
-      };
-      private final UnaryOperator<String> _postNormalize = (t) -> RegexrOrigin.replaceAll(t
-        , new RegexrStandard("\u0020?([\u3099])", "\u309B", 1)
-        , new RegexrStandard("\u0020?([\u309A])", "\u309C", 2)
+      private final RegexrChain _postNormalizrs = RegexrChain.of(
+        RegexrPool.standard("\u0020?([\u3099])", "\u309B", 1)
+        , RegexrPool.standard("\u0020?([\u309A])", "\u309C", 2)
       );
+      /** {@inheritDoc} */
+      @Override
+      public String replaceAll(final String text) {
+        if (Objects.toString(text, "").isEmpty()) return text;
+        try (Scratchr scratch = Scratchr.acquire()) {
+          return replaceAll(text, scratch.builder()).toString();
+        }
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public <T extends Appendable> T replaceAll(final CharSequence text, final T result) {
+        if (text == null || text.length() < 1) return result;
+        final long started = Metricr.started();
+        try (Scratchr scratch = Scratchr.acquire()) {
+          final StringBuilder preNormalized = _preNormalizrs.replaceAll(text, scratch.builder());
+          final Matcher matcher = scratch.matcher(pattern, preNormalized);
+          final StringBuilder normalized;
+          int matches = 0;
+          if (matcher.find()) {
+            normalized = scratch.builder();
+            int position = 0;
+            do {
+              WidthNormalizr.normalize(preNormalized, matcher.start(), matcher.end(), normalized.append(preNormalized, position, matcher.start()));
+              position = matcher.end();
+              matches++;
+            } while (matcher.find());
+            normalized.append(preNormalized, position, preNormalized.length());
+          } else {
+            normalized = preNormalized;
+          }
+          _postNormalizrs.replaceAll(normalized, result);
+          if (Metricr.enabled) stage().record(started, text.length(), matches);
+        }
+
+        return result;
+      }
 
       /** {@inheritDoc} */
       @Override
-      public String replaceAll(final String text) {/* @formatter:off */
-        return Objects.toString(text, "").isEmpty() ? text : Streamr.stream(text)
-          .map(_preNormalize).map(_normalize).map(_postNormalize)
-          .findFirst().orElse(null);
-      /* @formatter:on */}
+      public <T extends Appendable> T replaceAll(final CharSequence text, final T result, final OffsetMap.Builder offsets) {
+        if (offsets == null) return replaceAll(text, result);
+        if (text == null || text.length() < 1) return result;
+        final OffsetMap.Builder preNormalizing = new OffsetMap.Builder();
+        final StringBuilder preNormalized = _preNormalizrs.replaceAll(text, new StringBuilder(text.length()), preNormalizing);
+        final OffsetMap.Builder normalizing = new OffsetMap.Builder();
+        final StringBuilder normalized = new StringBuilder(preNormalized.length());
+        final Matcher matcher = pattern.matcher(preNormalized);
+        int position = 0;
+        while (matcher.find()) {
+          normalizing.copy(matcher.start() - position);
+          WidthNormalizr.normalize(preNormalized, matcher.start(), matcher.end(), normalized.append(preNormalized, position, matcher.start()), normalizing);
+          position = matcher.end();
+        }
+        normalizing.copy(preNormalized.length() - position);
+        normalized.append(preNormalized, position, preNormalized.length());
+        final OffsetMap.Builder postNormalizing = new OffsetMap.Builder();
+        _postNormalizrs.replaceAll(normalized, result, postNormalizing);
+        offsets.append(preNormalizing.build().andThen(normalizing.build()).andThen(postNormalizing.build()));
+
+        return result;
+      }
     };
   }
 
@@ -112,6 +155,9 @@ public abstract class Regexr implements RegexrOrigin, Serializable, Comparable<R
   /** the order in replecing . */
   protected final int order;
 
+  /** metrics of replacing, resolved on first use . */
+  private transient Metricr.Stage stage;
+
   /**
    * shorthand for {@code Pattern.compile(regex).matcher(text).replaceAll(replacement)} .
    *
@@ -142,9 +188,11 @@ public abstract class Regexr implements RegexrOrigin, Serializable, Comparable<R
   public List<String> find(String string) {
     List<String> result = new ArrayList<>();
     if (!RegexrOrigin.isEmpty(string)) {
-      Matcher matcher = pattern.matcher(string);
-      while (matcher.find()) {
-        result.add(matcher.group());
+      try (Scratchr scratch = Scratchr.acquire()) {
+        final Matcher matcher = scratch.matcher(pattern, string);
+        while (matcher.find()) {
+          result.add(matcher.group());
+        }
       }
     }
 
@@ -165,7 +213,10 @@ public abstract class Regexr implements RegexrOrigin, Serializable, Comparable<R
   /** {@inheritDoc} */
   @Override
   public boolean matches(String string) {
-    return !RegexrOrigin.isEmpty(string) && pattern.matcher(string).find();
+    if (RegexrOrigin.isEmpty(string)) return false;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      return scratch.matcher(pattern, string).find();
+    }
   }
 
   /** {@inheritDoc} */
@@ -180,10 +231,134 @@ public abstract class Regexr implements RegexrOrigin, Serializable, Comparable<R
     return pattern;
   }
 
-  /** {@inheritDoc} */
+  /**
+   * {@inheritDoc}
+   * <p>
+   * the {@link Matcher} and the buffer are reused per thread ( see {@link Scratchr} ), and returns the string itself if no match .
+   * </p>
+   *
+   */
   @Override
   public String replaceAll(String string) {
-    return RegexrOrigin.isEmpty(string) ? string : pattern.matcher(string).replaceAll(replacement);
+    if (RegexrOrigin.isEmpty(string)) return string;
+    final long started = Metricr.started();
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final Matcher matcher = scratch.matcher(pattern, string);
+      if (!matcher.find()) {
+        if (Metricr.enabled) stage().record(started, string.length(), 0);
+
+        return string;
+      }
+
+      final StringBuilder buffer = scratch.builder();
+
+      return replacing(string, matcher, buffer, buffer, started).toString();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * the gaps between matches are appended as is, and the replacement is appended directly if it has no group reference .
+   * </p>
+   *
+   */
+  @Override
+  public <T extends Appendable> T replaceAll(final CharSequence text, final T result) {
+    if (text == null || text.length() < 1) return result;
+    final long started = Metricr.started();
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final Matcher matcher = scratch.matcher(pattern, text);
+      if (!matcher.find()) {
+        if (Metricr.enabled) stage().record(started, text.length(), 0);
+
+        return RegexrOrigin.append(result, text);
+      }
+
+      return replacing(text, matcher, result, result instanceof StringBuilder ? (StringBuilder) result : scratch.builder(), started);
+    }
+  }
+
+  /**
+   * appends the replaced text to the specified {@link Appendable}, the matcher has found the first match already .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text
+   * @param matcher {@link Matcher} which found the first match
+   * @param result {@link Appendable} to append replaced text
+   * @param buffer the buffer to write through, or {@code result} itself if it is a {@link StringBuilder}
+   * @param started the time returned by {@link Metricr#started()}
+   * @return {@code result}
+   */
+  private <T extends Appendable> T replacing(final CharSequence text, final Matcher matcher, final T result, final StringBuilder buffer, final long started) {
+    int matches = 0;
+    final boolean literal = replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0;
+    int position = 0;
+    do {
+      matches++;
+      if (literal) {
+        buffer.append(text, position, matcher.start()).append(replacement);
+        position = matcher.end();
+      } else {
+        matcher.appendReplacement(buffer, replacement);
+      }
+      if (buffer != result) {
+        RegexrOrigin.append(result, buffer);
+        buffer.setLength(0);
+      }
+    } while (matcher.find());
+    if (literal) {
+      buffer.append(text, position, text.length());
+    } else {
+      matcher.appendTail(buffer);
+    }
+    if (buffer != result) RegexrOrigin.append(result, buffer);
+    if (Metricr.enabled) stage().record(started, text.length(), matches);
+
+    return result;
+  }
+
+  /**
+   * appends the replaced text to the specified {@link Appendable}, and records the offsets of the replacing .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append replaced text
+   * @param offsets {@link OffsetMap.Builder} to record the offsets between the text and the appended text, or null not to record
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public <T extends Appendable> T replaceAll(final CharSequence text, final T result, final OffsetMap.Builder offsets) {
+    if (offsets == null) return replaceAll(text, result);
+    if (text == null || text.length() < 1) return result;
+    final Matcher matcher = pattern.matcher(text);
+    final StringBuilder buffer = new StringBuilder(text.length());
+    int position = 0;
+    while (matcher.find()) {
+      final int replaced = buffer.length() + matcher.start() - position;
+      matcher.appendReplacement(buffer, replacement);
+      offsets.copy(matcher.start() - position).replace(matcher.end() - matcher.start(), buffer.length() - replaced);
+      position = matcher.end();
+    }
+    matcher.appendTail(buffer);
+    offsets.copy(text.length() - position);
+
+    return RegexrOrigin.append(result, buffer);
+  }
+
+  /**
+   * returns metrics of this, named by {@link #toString()} .
+   *
+   * <p>
+   * the stages of ad hoc instances share the stage "{@value Metricr#other}", when the number of stages reached the bound of {@link Metricr} .
+   * </p>
+   *
+   * @return {@link Metricr.Stage}
+   */
+  protected final Metricr.Stage stage() {
+    final Metricr.Stage resolved = stage;
+
+    return resolved != null ? resolved : (stage = Metricr.stage("Regexr" + toString()));
   }
 
   /** {@inheritDoc} */
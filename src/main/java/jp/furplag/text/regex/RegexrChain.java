@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.MatchResult;
+import java.util.stream.Stream;
+
+import jp.furplag.text.offset.OffsetMap;
+
+/**
+ * an immutable sequence of {@link Regexr}, which applies those in order .
+ *
+ * <p>
+ * nulls and duplicates are removed, and the rest are sorted by {@link Regexr#order()} only once when constructing,
+ * so that {@link #replaceAll(String)}, {@link #matches(String)} and {@link #find(String)} are just an indexed loop .
+ * the instance is thread-safe, since {@link Regexr} is immutable .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class RegexrChain implements Serializable {
+
+  /** an empty chain . */
+  private static final RegexrChain empty = new RegexrChain(new Regexr[] {});
+
+  /** {@link Regexr Regexr(s)}, sorted by the order . */
+  private final Regexr[] regexrs;
+
+  /**
+   *
+   * @param regexrs {@link Regexr Regexr(s)}, sorted and distinct
+   */
+  private RegexrChain(final Regexr[] regexrs) {
+    this.regexrs = regexrs;
+  }
+
+  /**
+   * returns a chain of the specified {@link Regexr Regexr(s)} .
+   *
+   * @param regexrs {@link Regexr Regexr(s)}, maybe null
+   * @return the chain which applies {@code regexrs} in order
+   */
+  public static RegexrChain of(final Regexr... regexrs) {
+    final Regexr[] sorted = Arrays.stream(Objects.requireNonNullElse(regexrs, new Regexr[] {})).filter(Objects::nonNull).distinct().sorted().toArray(Regexr[]::new);
+
+    return sorted.length < 1 ? empty : new RegexrChain(sorted);
+  }
+
+  /**
+   * returns matched elements of the given string, in order of {@link Regexr Regexr(s)} .
+   *
+   * @param string the string, maybe null
+   * @return matched elements of the given string
+   */
+  public List<String> find(final String string) {
+    final List<String> result = new ArrayList<>();
+    for (int i = 0; i < regexrs.length; i++) {
+      result.addAll(regexrs[i].find(string));
+    }
+
+    return result;
+  }
+
+  /**
+   * returns matches of the given text lazily, in order of {@link Regexr Regexr(s)} .
+   *
+   * @param text the text, maybe null
+   * @return the stream of matches, which searches the text only as much as consumed
+   * @see Regexr#results(CharSequence)
+   */
+  public Stream<MatchResult> results(final CharSequence text) {
+    return Arrays.stream(regexrs).flatMap((regexr) -> regexr.results(text));
+  }
+
+  /**
+   * returns the number of matches of the given text, without creating the substrings .
+   *
+   * @param text the text, maybe null
+   * @return the number of matches
+   * @see Regexr#count(CharSequence)
+   */
+  public long count(final CharSequence text) {
+    long count = 0;
+    for (int i = 0; i < regexrs.length; i++) {
+      count += regexrs[i].count(text);
+    }
+
+    return count;
+  }
+
+  /**
+   * returns true if any of {@link Regexr Regexr(s)} matches the given string .
+   *
+   * @param string the string, maybe null
+   * @return true if any of {@link Regexr Regexr(s)} matches the given string
+   */
+  public boolean matches(final String string) {
+    if (RegexrOrigin.isEmpty(string)) return false;
+    for (int i = 0; i < regexrs.length; i++) {
+      if (regexrs[i].matches(string)) return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * returns {@link Regexr Regexr(s)} of this chain, in order .
+   *
+   * @return {@link Regexr Regexr(s)}, unmodifiable
+   */
+  public List<Regexr> regexrs() {
+    return Collections.unmodifiableList(Arrays.asList(regexrs));
+  }
+
+  /**
+   * replaces the given string using {@link Regexr Regexr(s)} in order .
+   *
+   * @param string the string, maybe null
+   * @return the string constructed by replacing each matching subsequence by the replacement string
+   */
+  public String replaceAll(final String string) {
+    if (RegexrOrigin.isEmpty(string)) return string;
+    String result = string;
+    for (int i = 0; i < regexrs.length; i++) {
+      result = regexrs[i].replaceAll(result);
+    }
+
+    return result;
+  }
+
+  /**
+   * replaces the given text using {@link Regexr Regexr(s)} in order, and appends the result to the given {@link Appendable} .
+   *
+   * <p>
+   * each {@link Regexr} except the last one writes the result into an intermediate buffer, and the last one writes into {@code result} directly .
+   * two intermediate buffers are reused alternately per thread ( see {@link Scratchr} ) .
+   * </p>
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append the result
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   */
+  public <T extends Appendable> T replaceAll(final CharSequence text, final T result) {
+    if (text == null || text.length() < 1) return result;
+    if (regexrs.length < 1) return RegexrOrigin.append(result, text);
+    if (regexrs.length < 2) return regexrs[0].replaceAll(text, result);
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final StringBuilder[] buffers = {scratch.builder(), scratch.builder()};
+      CharSequence replaced = text;
+      for (int i = 0; i < regexrs.length - 1; i++) {
+        final StringBuilder buffer = buffers[i % 2];
+        buffer.setLength(0);
+        replaced = regexrs[i].replaceAll(replaced, buffer);
+      }
+
+      return regexrs[regexrs.length - 1].replaceAll(replaced, result);
+    }
+  }
+
+  /**
+   * replaces the given text using {@link Regexr Regexr(s)} in order, and records the offsets of the replacing .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append the result
+   * @param offsets {@link OffsetMap.Builder} to record the offsets between the text and the appended text, or null not to record
+   * @return {@code result}
+   * @throws java.io.UncheckedIOException if an I/O error occurs
+   * @see Regexr#replaceAll(CharSequence, Appendable, OffsetMap.Builder)
+   */
+  public <T extends Appendable> T replaceAll(final CharSequence text, final T result, final OffsetMap.Builder offsets) {
+    if (offsets == null) return replaceAll(text, result);
+    if (text == null || text.length() < 1) return result;
+    if (regexrs.length < 1) {
+      offsets.copy(text.length());
+
+      return RegexrOrigin.append(result, text);
+    }
+    CharSequence replaced = text;
+    OffsetMap replacing = null;
+    for (int i = 0; i < regexrs.length; i++) {
+      final OffsetMap.Builder builder = new OffsetMap.Builder();
+      if (i < regexrs.length - 1) {
+        replaced = regexrs[i].replaceAll(replaced, new StringBuilder(replaced.length()), builder);
+      } else {
+        regexrs[i].replaceAll(replaced, result, builder);
+      }
+      replacing = replacing == null ? builder.build() : replacing.andThen(builder.build());
+    }
+    offsets.append(replacing);
+
+    return result;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || (obj instanceof RegexrChain && Arrays.equals(regexrs, ((RegexrChain) obj).regexrs));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(regexrs);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Arrays.toString(regexrs);
+  }
+}
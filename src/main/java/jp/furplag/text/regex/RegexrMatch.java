@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+
+/**
+ * an immutable {@link MatchResult} which holds offsets only, and creates the substrings on demand .
+ *
+ * <p>
+ * unlike {@link Matcher#toMatchResult()}, never copies the text, so that the text must not be modified while the result in use .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+final class RegexrMatch implements MatchResult {
+
+  /** the text . */
+  private final CharSequence text;
+
+  /** start and end offsets of each group, the group zero is the whole match . */
+  private final int[] offsets;
+
+  /**
+   *
+   * @param text the text
+   * @param matcher {@link Matcher} which matched
+   */
+  RegexrMatch(final CharSequence text, final Matcher matcher) {
+    this.text = text;
+    offsets = new int[(matcher.groupCount() + 1) * 2];
+    for (int i = 0; i <= matcher.groupCount(); i++) {
+      offsets[i * 2] = matcher.start(i);
+      offsets[i * 2 + 1] = matcher.end(i);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int start() {
+    return start(0);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int start(final int group) {
+    return offsets[index(group)];
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int end() {
+    return end(0);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int end(final int group) {
+    return offsets[index(group) + 1];
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String group() {
+    return group(0);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String group(final int group) {
+    final int index = index(group);
+
+    return offsets[index] < 0 ? null : text.subSequence(offsets[index], offsets[index + 1]).toString();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int groupCount() {
+    return offsets.length / 2 - 1;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return String.format("%d-%d: %s", start(), end(), group());
+  }
+
+  /**
+   * returns the index of the start offset of the group .
+   *
+   * @param group the index of the group
+   * @return the index of {@link #offsets}
+   * @throws IndexOutOfBoundsException if there is no group
+   */
+  private int index(final int group) {
+    if (group < 0 || group > groupCount()) throw new IndexOutOfBoundsException("No group " + group);
+
+    return group * 2;
+  }
+}
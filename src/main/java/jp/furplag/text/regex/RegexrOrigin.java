@@ -15,15 +15,24 @@
  */
 package jp.furplag.text.regex;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import jp.furplag.sandbox.stream.Streamr;
 
@@ -36,14 +45,33 @@ import jp.furplag.sandbox.stream.Streamr;
 public interface RegexrOrigin {
 
   /**
-   * returns result of evaluate that {@link RegexrOrigin#find(String)} .
+   * returns result of evaluate that {@link RegexrOrigin#find(String)}, scanning the string once using {@link RegexrUnion} .
    *
    * @param string the string
    * @param regexrs {@link Regexr Regexr(s)}
    * @return {@code true} if, and only if, a subsequence of the input sequence matches this pattern
    */
   static boolean anyMatch(final String string, final Regexr... regexrs) {
-    return Streamr.stream(regexrs).sorted().anyMatch((regexr) -> regexr.matches(string));
+    return RegexrUnion.of(regexrs).anyMatch(string);
+  }
+
+  /**
+   * shorthand for {@code appendable.append(text)}, and throws {@link UncheckedIOException} instead of {@link IOException} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param appendable {@link Appendable}
+   * @param text the text, maybe null
+   * @return {@code appendable}
+   * @throws UncheckedIOException if an I/O error occurs
+   */
+  static <T extends Appendable> T append(final T appendable, final CharSequence text) {
+    try {
+      if (text != null) appendable.append(text);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return appendable;
   }
 
   /**
@@ -59,14 +87,40 @@ public interface RegexrOrigin {
   }
 
   /**
-   * returns matched elements any of {@code regexrs} of the given string .
+   * returns matched elements any of {@code regexrs} of the given string, scanning the string once using {@link RegexrUnion} .
    *
    * @param string the string, maybe null
    * @param regexrs {@link Regexr Regexr(s)}
-   * @return matched elements any of {@code regexrs} of the given string
+   * @return matched elements any of {@code regexrs} of the given string, in order of {@link Regexr Regexr(s)}
    */
   static List<String> findAny(final String string, final Regexr... regexrs) {
-    return Streamr.stream(regexrs).sorted().flatMap((regexr) -> regexr.find(string).stream()).collect(Collectors.toCollection(ArrayList::new));
+    final Map<Regexr, List<String>> found = RegexrUnion.of(regexrs).find(string);
+
+    return Streamr.stream(regexrs).sorted().flatMap((regexr) -> found.get(regexr).stream()).collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  /**
+   * returns matches any of {@code regexrs} lazily, in order of {@link Regexr Regexr(s)} .
+   *
+   * @param text the text, maybe null
+   * @param regexrs {@link Regexr Regexr(s)}
+   * @return the stream of matches, which searches the text only as much as consumed
+   * @see #results(CharSequence)
+   */
+  static Stream<MatchResult> resultsAny(final CharSequence text, final Regexr... regexrs) {
+    return Streamr.stream(regexrs).sorted().flatMap((regexr) -> regexr.results(text));
+  }
+
+  /**
+   * returns the number of matches any of {@code regexrs}, without creating the substrings .
+   *
+   * @param text the text, maybe null
+   * @param regexrs {@link Regexr Regexr(s)}
+   * @return the number of matches
+   * @see #count(CharSequence)
+   */
+  static long countAny(final CharSequence text, final Regexr... regexrs) {
+    return Streamr.stream(regexrs).mapToLong((regexr) -> regexr.count(text)).sum();
   }
 
   /**
@@ -76,7 +130,13 @@ public interface RegexrOrigin {
    * @return {@code true} if {@link String#length() length} is {@code 0} or {@code null}, otherwise {@code false}
    */
   static boolean isEmpty(final String... strings) {
-    return join(strings).isEmpty();
+    if (strings != null) {
+      for (String string : strings) {
+        if (string != null && !string.isEmpty()) return false;
+      }
+    }
+
+    return true;
   }
 
   /**
@@ -120,6 +180,31 @@ public interface RegexrOrigin {
     return result[0];
   }
 
+  /**
+   * shorthand for {@code regexrs.foreach(r->r.replaceAll(text))}, and appends the result to the given {@link Appendable} .
+   *
+   * <p>
+   * each {@link Regexr} except the last one writes the result into an intermediate buffer, and the last one writes into {@code result} directly .
+   * </p>
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append the result
+   * @param regexrs {@link Regexr Regexr(s)}
+   * @return {@code result}
+   * @throws UncheckedIOException if an I/O error occurs
+   */
+  static <T extends Appendable> T appendReplaced(final CharSequence text, final T result, final Regexr... regexrs) {
+    if (text == null || text.length() < 1) return result;
+    final Regexr[] sorted = Streamr.stream(regexrs).sorted().toArray(Regexr[]::new);
+    CharSequence replaced = text;
+    for (int i = 0; i < sorted.length - 1; i++) {
+      replaced = sorted[i].replaceAll(replaced, new StringBuilder(replaced.length()));
+    }
+
+    return sorted.length < 1 ? append(result, replaced) : sorted[sorted.length - 1].replaceAll(replaced, result);
+  }
+
   /**
    * returns matched elements of the given string .
    *
@@ -128,6 +213,67 @@ public interface RegexrOrigin {
    */
   List<String> find(final String string);
 
+  /**
+   * returns matches of the given text lazily, so that the memory stays constant regardless of the number of matches .
+   *
+   * <p>
+   * each {@link MatchResult} holds the offsets only ( and creates the substrings on demand ), so that the text must not be modified while the stream in use .
+   * </p>
+   *
+   * @param text the text, maybe null
+   * @return the stream of matches in order, which searches the text only as much as consumed
+   */
+  default Stream<MatchResult> results(final CharSequence text) {
+    if (text == null || text.length() < 1 || pattern() == null) return Stream.empty();
+    final Matcher matcher = pattern().matcher(text);
+
+    return StreamSupport.stream(new Spliterators.AbstractSpliterator<MatchResult>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+
+      /** {@inheritDoc} */
+      @Override
+      public boolean tryAdvance(Consumer<? super MatchResult> action) {
+        if (!matcher.find()) return false;
+        action.accept(new RegexrMatch(text, matcher));
+
+        return true;
+      }
+    }, false);
+  }
+
+  /**
+   * returns the first match of the given text .
+   *
+   * @param text the text, maybe null
+   * @return the first match, or empty if not found
+   */
+  default Optional<MatchResult> findFirst(final CharSequence text) {
+    if (text == null || text.length() < 1 || pattern() == null) return Optional.empty();
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final Matcher matcher = scratch.matcher(pattern(), text);
+
+      return matcher.find() ? Optional.of(new RegexrMatch(text, matcher)) : Optional.empty();
+    }
+  }
+
+  /**
+   * returns the number of matches of the given text, without creating the substrings .
+   *
+   * @param text the text, maybe null
+   * @return the number of matches
+   */
+  default long count(final CharSequence text) {
+    if (text == null || text.length() < 1 || pattern() == null) return 0;
+    long count = 0;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final Matcher matcher = scratch.matcher(pattern(), text);
+      while (matcher.find()) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
 
   /**
    * returns result of evaluate that {@link Matcher#find()} .
@@ -160,4 +306,18 @@ public interface RegexrOrigin {
    * @return the string constructed by replacing each matching subsequence by the replacement string
    */
   String replaceAll(final String string);
+
+  /**
+   * replaces every subsequence of the input sequence that matches the pattern with the given replacement string,
+   * and appends the result to the given {@link Appendable} .
+   *
+   * @param <T> the type of {@link Appendable}
+   * @param text the text, maybe null
+   * @param result {@link Appendable} to append the result
+   * @return {@code result}
+   * @throws UncheckedIOException if an I/O error occurs
+   */
+  default <T extends Appendable> T replaceAll(final CharSequence text, final T result) {
+    return text == null || text.length() < 1 ? result : append(result, replaceAll(text.toString()));
+  }
 }
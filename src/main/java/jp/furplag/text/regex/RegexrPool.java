@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * canonical instances of {@link Regexr} .
+ *
+ * <p>
+ * compiled patterns are interned by the type, the regular expression, the replacement and the order,
+ * and least recently used ones are evicted when the number of instances exceeds {@link #maximumSize} .
+ * </p>
+ * <p>
+ * the bound is able to change using system property "{@code jp.furplag.text.regex.RegexrPool.maximumSize}" ( default: 256 ) .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class RegexrPool {
+
+  /** the maximum number of pooled instances . */
+  static final int maximumSize = Math.max(1, Integer.getInteger(RegexrPool.class.getName() + ".maximumSize", 256));
+
+  /** pooled instances, in access-order . */
+  private static final Map<List<Object>, Regexr> pool = Collections.synchronizedMap(new LinkedHashMap<>(16, .75f, true) {
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<List<Object>, Regexr> eldest) {
+      return size() > maximumSize;
+    }
+  });
+
+  /**
+   * RegexrPool instances should NOT be constructed in standard programming.
+   */
+  private RegexrPool() {}
+
+  /**
+   * returns the canonical {@link RegexrRecursive} .
+   *
+   * @param regex the regular expression
+   * @param replacement The replacement string, set empty string if this parameter is null
+   * @return the canonical {@link RegexrRecursive}
+   */
+  public static RegexrRecursive recursive(final String regex, final String replacement) {
+    return recursive(regex, replacement, 0);
+  }
+
+  /**
+   * returns the canonical {@link RegexrRecursive} .
+   *
+   * @param regex the regular expression
+   * @param replacement The replacement string, set empty string if this parameter is null
+   * @param order the order in replecing
+   * @return the canonical {@link RegexrRecursive}
+   */
+  public static RegexrRecursive recursive(final String regex, final String replacement, final int order) {
+    return (RegexrRecursive) intern(RegexrRecursive.class, regex, replacement, order, () -> new RegexrRecursive(regex, replacement, order));
+  }
+
+  /**
+   * returns the canonical {@link RegexrStandard} .
+   *
+   * @param regex the regular expression
+   * @param replacement The replacement string, set empty string if this parameter is null
+   * @return the canonical {@link RegexrStandard}
+   */
+  public static RegexrStandard standard(final String regex, final String replacement) {
+    return standard(regex, replacement, 0);
+  }
+
+  /**
+   * returns the canonical {@link RegexrStandard} .
+   *
+   * @param regex the regular expression
+   * @param replacement The replacement string, set empty string if this parameter is null
+   * @param order the order in replecing
+   * @return the canonical {@link RegexrStandard}
+   */
+  public static RegexrStandard standard(final String regex, final String replacement, final int order) {
+    return (RegexrStandard) intern(RegexrStandard.class, regex, replacement, order, () -> new RegexrStandard(regex, replacement, order));
+  }
+
+  /**
+   * returns the number of pooled instances .
+   *
+   * @return the number of pooled instances
+   */
+  static int size() {
+    return pool.size();
+  }
+
+  /**
+   * returns the pooled instance, or pools the new one if absent .
+   *
+   * <p>
+   * compiling is done outside of the lock, because initializing {@link Regexr} itself may use this pool .
+   * </p>
+   *
+   * @param type the type of {@link Regexr}
+   * @param regex the regular expression
+   * @param replacement The replacement string
+   * @param order the order in replecing
+   * @param regexr creates an instance if absent
+   * @return the canonical instance
+   */
+  private static Regexr intern(final Class<? extends Regexr> type, final String regex, final String replacement, final int order, final Supplier<Regexr> regexr) {
+    final List<Object> key = Arrays.asList(type, regex, replacement, order);
+    final Regexr pooled = pool.get(key);
+    if (pooled != null) return pooled;
+    final Regexr created = regexr.get();
+    final Regexr raced = pool.putIfAbsent(key, created);
+
+    return raced == null ? created : raced;
+  }
+}
@@ -15,23 +15,60 @@
  */
 package jp.furplag.text.regex;
 
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 
+import jp.furplag.text.metrics.Metricr;
+import jp.furplag.text.metrics.RecursiveReplacingEvent;
+import jp.furplag.text.offset.OffsetMap;
+
 /**
  * recursive text replacing .
  *
+ * <p>
+ * replacing repeats until the text has no more change, and each pass after the first rescans only around the changes of the previous pass
+ * ( then verifies the whole text once before finishing ) .
+ * rewriting stops also at the first text which appeared already since the length of the text changed last ( cyclic rewriting,
+ * detected by two independent 64-bit hashes of the texts ), or at the limits of divergent rewriting : when the passes reach {@link #maxIterations()},
+ * when the text grows longer than the input by more than {@code jp.furplag.text.regex.RegexrRecursive.maxGrowth} characters ( default: {@code 4096} ),
+ * or when the passes which grew the text have produced more than {@value #growthWork} times of the input and the growth limit in total,
+ * so that divergent rewriting ( e.g. {@code ^(x+)$ -> $1x} ) costs in proportion to the input, not to the square of the growth limit .
+ * the rewriting which stopped at the limits is recorded as truncated in {@link RecursiveReplacingEvent} .
+ * </p>
+ *
  * @author furplag
  *
  */
 public class RegexrRecursive extends Regexr {
 
+  /** the limit of rewriting passes in default, lazily, because {@link Regexr} creates instances while its initialization . */
+  static final class Defaults {
+
+    /** {@code 65536} unless the system property {@code jp.furplag.text.regex.RegexrRecursive.maxIterations} specified . */
+    static final int maxIterations = Math.max(1, Integer.getInteger(RegexrRecursive.class.getName() + ".maxIterations", 1 << 16));
+
+    /** {@code 4096} unless the system property {@code jp.furplag.text.regex.RegexrRecursive.maxGrowth} specified . */
+    static final int maxGrowth = Math.max(0, Integer.getInteger(RegexrRecursive.class.getName() + ".maxGrowth", 1 << 12));
+
+    private Defaults() {}
+  }
+
+  /** the limit of the characters which the passes growing the text produce, in multiples of the input and {@link Defaults#maxGrowth} . */
+  static final int growthWork = 16;
+
+  /** the limit of rewriting passes . */
+  private final int maxIterations;
+
   /**
    *
    * @param regex the regular expression
    * @param replacement The replacement string, set empty string if this parameter is null
    */
   public RegexrRecursive(String regex, String replacement) {
-    super(regex, replacement, 0);
+    this(regex, replacement, 0);
   }
 
   /**
@@ -41,25 +78,327 @@ public class RegexrRecursive extends Regexr {
    * @param order the order in replecing
    */
   public RegexrRecursive(String regex, String replacement, int order) {
+    this(regex, replacement, order, Defaults.maxIterations);
+  }
+
+  /**
+   *
+   * @param regex the regular expression
+   * @param replacement The replacement string, set empty string if this parameter is null
+   * @param order the order in replecing
+   * @param maxIterations the limit of rewriting passes
+   * @throws IllegalArgumentException maxIterations is less than one
+   */
+  public RegexrRecursive(String regex, String replacement, int order, int maxIterations) {
     super(regex, replacement, order);
+    if (maxIterations < 1) throw new IllegalArgumentException("maxIterations must be positive: " + maxIterations);
+    this.maxIterations = maxIterations;
+  }
+
+  /**
+   * returns the limit of rewriting passes .
+   *
+   * @return the limit of rewriting passes
+   */
+  public final int maxIterations() {
+    return maxIterations;
   }
 
   /**
    * {@inheritDoc}
-   * <p>recursive {@link Matcher#replaceAll(String)} .</p>
-   * <p><b>Note: </b>be careful to infinity loop .</p>
+   * <p>recursive {@link Matcher#replaceAll(String)}, always terminates .</p>
    *
    */
   @Override
   public String replaceAll(final String string) {
     if (RegexrOrigin.isEmpty(string)) return string;
-    String result = string;
-    Matcher matcher = pattern.matcher(result);
-    while (matcher.find()) {
-      result = matcher.replaceAll(replacement);
-      matcher.reset(result);
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final CharBuffer rewritten = rewrite(string, scratch);
+
+      return rewritten == null ? string : recycle(rewritten.toString(), rewritten, scratch);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>the result of recursive replacing appends to the given {@link Appendable} .</p>
+   *
+   */
+  @Override
+  public <T extends Appendable> T replaceAll(final CharSequence text, final T result) {
+    if (text == null || text.length() < 1) return result;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final CharBuffer rewritten = rewrite(text, scratch);
+
+      return rewritten == null ? RegexrOrigin.append(result, text) : recycle(RegexrOrigin.append(result, rewritten), rewritten, scratch);
     }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>the offsets are coarse, the range between the common prefix and the common suffix of the text and the result maps as a whole .</p>
+   *
+   */
+  @Override
+  public <T extends Appendable> T replaceAll(final CharSequence text, final T result, final OffsetMap.Builder offsets) {
+    if (offsets == null) return replaceAll(text, result);
+    if (text == null || text.length() < 1) return result;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final CharBuffer rewritten = rewrite(text, scratch);
+      offsets.difference(text, rewritten == null ? text : rewritten);
+
+      return rewritten == null ? RegexrOrigin.append(result, text) : recycle(RegexrOrigin.append(result, rewritten), rewritten, scratch);
+    }
+  }
+
+  /**
+   * rewrites the text until fixpoint .
+   *
+   * @param text the text to rewrite
+   * @param scratch the working state, which lends the buffer of the result
+   * @return the rewritten text, or null if the pattern never matched
+   */
+  private CharBuffer rewrite(final CharSequence text, final Scratchr scratch) {
+    final long started = Metricr.started();
+    final RecursiveReplacingEvent event = RecursiveReplacingEvent.begin(pattern.pattern(), text);
+    final Matcher matcher = scratch.matcher(pattern, text).useTransparentBounds(true).useAnchoringBounds(false);
+    if (!matcher.find()) {
+      if (Metricr.enabled) stage().record(started, text.length(), 0);
+      event.end(text.length(), 0, 0);
+
+      return null;
+    }
+
+    final boolean literal = replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0;
+    final StringBuilder expanded = literal ? null : scratch.builder();
+    Map<Long, Long> seen = null;
+    int length = text.length();
+    char[] current = getChars(text, scratch.chars(length));
+    char[] next = scratch.chars(length);
+    final long lengthLimit = (long) length + Defaults.maxGrowth;
+    final long workLimit = lengthLimit * growthWork;
+    long work = 0;
+    boolean truncated = false;
+    int reach = 1;
+    int from = 0;
+    int limit = Integer.MAX_VALUE;
+    int matches = 0;
+    int iteration = 0;
+    while (iteration < maxIterations) {
+      matcher.reset(CharBuffer.wrap(current, 0, length));
+      int position = from;
+      int nextLength = 0;
+      int first = -1;
+      int tail = 0;
+      int last = -1;
+      boolean changed = false;
+      while (position <= length) {
+        final boolean found = find(matcher, position, limit, length);
+        if (!found || matcher.start() > limit) break;
+
+        final int start = matcher.start();
+        final int end = matcher.end();
+        final int replaced = literal ? replacement.length() : expand(matcher, expanded).length();
+        next = ensureCapacity(next, nextLength + start - tail + replaced);
+        System.arraycopy(current, tail, next, nextLength, start - tail);
+        nextLength += start - tail;
+        first = first < 0 ? nextLength : first;
+        if (literal) {
+          replacement.getChars(0, replaced, next, nextLength);
+        } else {
+          expanded.getChars(0, replaced, next, nextLength);
+        }
+        changed |= !Arrays.equals(next, nextLength, nextLength + replaced, current, start, end);
+        nextLength += replaced;
+        last = nextLength;
+        reach = Math.max(reach, end - start);
+        tail = end;
+        position = end > start ? end : end + 1;
+        matches++;
+      }
+      if (!changed) {
+        if (from < 1 && limit == Integer.MAX_VALUE) break;
+        from = 0;
+        limit = Integer.MAX_VALUE;
+        continue;
+      }
+      next = ensureCapacity(next, nextLength + length - tail);
+      System.arraycopy(current, tail, next, nextLength, length - tail);
+      nextLength += length - tail;
+      iteration++;
+
+      // a text appears again only if the length never changed in between, because the length changes monotonically unless it shrinks .
+      final int delta = nextLength - length;
+      if (delta != 0) {
+        seen = null;
+      } else if (seen == null) {
+        seen = new HashMap<>();
+        seen.put(fingerprint(current, length), checksum(current, length));
+      }
+      final char[] previous = current;
+      current = next;
+      next = previous;
+      length = nextLength;
+      if (delta == 0) {
+        // stops only if the both hashes are equal, the text which only the fingerprint collides is rewritten until the other limits .
+        final long checksum = checksum(current, length);
+        final Long appeared = seen.putIfAbsent(fingerprint(current, length), checksum);
+        if (appeared != null && appeared == checksum) break;
+      }
+      if (delta > 0) work += length;
+      if (length > lengthLimit || work > workLimit || iteration >= maxIterations) {
+        truncated = true;
+        break;
+      }
+      from = Math.max(0, first - reach);
+      limit = last + reach;
+    }
+    if (Metricr.enabled) stage().record(started, text.length(), matches, iteration);
+    event.end(length, iteration, matches, truncated);
+    scratch.recycle(next);
+
+    return CharBuffer.wrap(current, 0, length);
+  }
+
+  /**
+   * returns the buffer of the rewritten text to the pool, after the text is consumed .
+   *
+   * @param <T> the type of the result
+   * @param result the result
+   * @param rewritten the rewritten text
+   * @param scratch the working state
+   * @return {@code result}
+   */
+  private static <T> T recycle(final T result, final CharBuffer rewritten, final Scratchr scratch) {
+    scratch.recycle(rewritten.array());
 
     return result;
   }
+
+  /**
+   * copies the characters of the text into the array .
+   *
+   * @param text the text
+   * @param chars the array, at least the length of the text
+   * @return {@code chars}
+   */
+  private static char[] getChars(final CharSequence text, final char[] chars) {
+    if (text instanceof String) {
+      ((String) text).getChars(0, text.length(), chars, 0);
+    } else if (text instanceof StringBuilder) {
+      ((StringBuilder) text).getChars(0, text.length(), chars, 0);
+    } else {
+      for (int i = 0; i < text.length(); i++) {
+        chars[i] = text.charAt(i);
+      }
+    }
+
+    return chars;
+  }
+
+  /**
+   * finds the next match which starts at the index in between from and limit .
+   *
+   * <p>
+   * tries to match at each index if the limit specified, so that the matching never scans the rest of the text,
+   * while the match itself may extend beyond the limit .
+   * </p>
+   *
+   * @param matcher the matcher
+   * @param from the index to start searching
+   * @param limit the maximum index where the match starts, or {@link Integer#MAX_VALUE}
+   * @param length the length of the text
+   * @return true if found
+   */
+  private static boolean find(final Matcher matcher, final int from, final int limit, final int length) {
+    if (limit == Integer.MAX_VALUE) return matcher.region(from, length).find();
+    for (int i = from; i <= Math.min(limit, length); i++) {
+      if (matcher.region(i, length).lookingAt()) return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * expands the replacement string for the current match, same as {@link Matcher#appendReplacement(StringBuilder, String)} .
+   *
+   * @param matcher the matcher which matched
+   * @param expanded the buffer to store the result
+   * @return the buffer
+   */
+  private StringBuilder expand(final Matcher matcher, final StringBuilder expanded) {
+    expanded.setLength(0);
+    for (int i = 0; i < replacement.length(); i++) {
+      final char c = replacement.charAt(i);
+      if (c == '\\') {
+        if (++i >= replacement.length()) throw new IllegalArgumentException("character to be escaped is missing");
+        expanded.append(replacement.charAt(i));
+      } else if (c != '$') {
+        expanded.append(c);
+      } else if (++i >= replacement.length()) {
+        throw new IllegalArgumentException("Illegal group reference: group index is missing");
+      } else if (replacement.charAt(i) == '{') {
+        final int close = replacement.indexOf('}', i);
+        if (close < 0) throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+        final String group = matcher.group(replacement.substring(i + 1, close));
+        expanded.append(group == null ? "" : group);
+        i = close;
+      } else {
+        int number = replacement.charAt(i) - '0';
+        if (number < 0 || number > 9) throw new IllegalArgumentException("Illegal group reference");
+        for (; i + 1 < replacement.length(); i++) {
+          final int digit = replacement.charAt(i + 1) - '0';
+          if (digit < 0 || digit > 9 || matcher.groupCount() < number * 10 + digit) break;
+          number = number * 10 + digit;
+        }
+        final String group = matcher.group(number);
+        expanded.append(group == null ? "" : group);
+      }
+    }
+
+    return expanded;
+  }
+
+  /**
+   * returns the buffer which has enough capacity .
+   *
+   * @param buffer the buffer
+   * @param capacity the capacity needed
+   * @return the buffer, or the copy of it if the capacity lacks
+   */
+  private static char[] ensureCapacity(final char[] buffer, final int capacity) {
+    return capacity > buffer.length ? Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1)) : buffer;
+  }
+
+  /**
+   * FNV-1a 64 bit hash of the text, to detect cyclic rewriting .
+   *
+   * @param text the text
+   * @param length the length of the text
+   * @return the hash
+   */
+  private static long fingerprint(final char[] text, final int length) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < length; i++) {
+      hash = (hash ^ text[i]) * 0x100000001B3L;
+    }
+
+    return hash;
+  }
+
+  /**
+   * the other hash of the text, which is independent of {@link #fingerprint(char[], int)}, to verify cyclic rewriting .
+   *
+   * @param text the text
+   * @param length the length of the text
+   * @return the hash
+   */
+  private static long checksum(final char[] text, final int length) {
+    long hash = length;
+    for (int i = 0; i < length; i++) {
+      hash = (Long.rotateLeft(hash, 17) + text[i]) * 0x9E3779B97F4A7C15L;
+    }
+
+    return hash ^ (hash >>> 31);
+  }
 }
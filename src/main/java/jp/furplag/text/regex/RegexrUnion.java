@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * an immutable set of {@link Regexr}, which scans the text only once to find any of those .
+ *
+ * <p>
+ * {@link #anyMatch(CharSequence)} and {@link #first(CharSequence)} find the text only once using one alternation of the patterns, which has a named group
+ * for each {@link Regexr} in order ( {@code (?<m0>...)|(?<m1>...)|...} ) , so that the leftmost match is found, and the lower order wins if those match
+ * at the same position . the patterns which are not able to be embedded in the alternation ( back references, named groups, quotations, comments and
+ * the flags which have no inline form ) are scanned one by one instead .
+ * </p>
+ * <p>
+ * {@link #find(String)} reads each character once, and tries to match only the {@link Regexr Regexr(s)} which are able to start a match with the character
+ * ( {@link Matcher#lookingAt()} at the position, so that the result is same as {@link Matcher#find()} ) . whether a {@link Regexr} is able to
+ * start a match with a character is tested using {@link Matcher#hitEnd()} at the first time the character appears, and remembered .
+ * the patterns which a match depends on the preceding text ( lookbehind, word boundary, the end of the previous match ) or which matches an empty string are
+ * scanned one by one instead, as well as the {@link Regexr Regexr(s)} beyond the 31st .
+ * </p>
+ * <p>
+ * nulls and duplicates are removed, and the rest are sorted by {@link Regexr#order()}, same as {@link RegexrChain} .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+public final class RegexrUnion {
+
+  /** an empty union . */
+  private static final RegexrUnion empty = new RegexrUnion(new Regexr[] {});
+
+  /** unions, keyed by {@link Regexr Regexr(s)} as specified and as sorted, bounded twice as many as {@link RegexrPool} . */
+  private static final Map<List<Regexr>, RegexrUnion> pool = new ConcurrentHashMap<>();
+
+  /** the constructs which a match depends on the preceding text ( including {@code \G} ), or on the surrogate pairs . */
+  private static final Pattern contextual = Pattern.compile("\\(\\?<=|\\\\[bBG]|\\\\N\\{|\\\\x\\{0*[1-9a-fA-F][0-9a-fA-F]{4,}\\}|\\\\u[dD][89a-fA-F]|[\\x{D800}-\\x{DFFF}]");
+
+  /** the constructs which are not able to be embedded in the alternation : back references, named groups, quotations and comments . */
+  private static final Pattern isolated = Pattern.compile("\\\\[1-9kQ]|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]*x");
+
+  /** the flag of the table which means the character is tested already . */
+  private static final int tested = 1 << 31;
+
+  /** {@link Regexr Regexr(s)}, sorted by the order . */
+  private final Regexr[] regexrs;
+
+  /** the bits of {@link Regexr Regexr(s)} which are scanned using the table . */
+  private final int scannable;
+
+  /** the alternation of the patterns of {@link Regexr Regexr(s)}, or null if none of those is able to be embedded . */
+  private final Pattern alternation;
+
+  /** the index of the group of each {@link Regexr} in the alternation, or {@code 0} if scanned one by one . */
+  private final int[] groups;
+
+  /** the bits of {@link Regexr Regexr(s)} able to start a match with the character, in pages of 256 characters, lazily . */
+  private final int[][] starters = new int[256][];
+
+  /**
+   *
+   * @param regexrs {@link Regexr Regexr(s)}, sorted and distinct
+   */
+  private RegexrUnion(final Regexr[] regexrs) {
+    this.regexrs = regexrs;
+    int scannable = 0;
+    for (int i = 0; i < Math.min(regexrs.length, 31); i++) {
+      if (isScannable(regexrs[i].pattern())) scannable |= 1 << i;
+    }
+    this.scannable = scannable;
+    final StringBuilder alternation = new StringBuilder();
+    final int[] groups = new int[regexrs.length];
+    for (int i = 0, group = 0; i < regexrs.length; i++) {
+      final String embedded = embed(regexrs[i].pattern());
+      if (embedded == null) continue;
+      alternation.append(alternation.length() > 0 ? "|" : "").append("(?<m").append(i).append('>').append(embedded).append(')');
+      groups[i] = ++group;
+      group += regexrs[i].pattern().matcher("").groupCount();
+    }
+    Pattern compiled = null;
+    try {
+      compiled = alternation.length() > 0 ? Pattern.compile(alternation.toString()) : null;
+    } catch (PatternSyntaxException e) {
+      Arrays.fill(groups, 0);
+    }
+    this.alternation = compiled;
+    this.groups = groups;
+  }
+
+  /**
+   * returns a union of the specified {@link Regexr Regexr(s)}, the same instance for the same {@link Regexr Regexr(s)} while pooled .
+   *
+   * @param regexrs {@link Regexr Regexr(s)}, maybe null
+   * @return the union of {@code regexrs}
+   */
+  public static RegexrUnion of(final Regexr... regexrs) {
+    if (regexrs == null || regexrs.length < 1) return empty;
+    final RegexrUnion specified = pool.get(Arrays.asList(regexrs));
+    if (specified != null) return specified;
+    final Regexr[] sorted = Arrays.stream(regexrs).filter(Objects::nonNull).distinct().sorted().toArray(Regexr[]::new);
+    if (sorted.length < 1) return empty;
+    final List<Regexr> key = Arrays.asList(sorted);
+    final RegexrUnion pooled = pool.get(key);
+    final RegexrUnion union = pooled != null ? pooled : pool(key, new RegexrUnion(sorted));
+
+    return pool(Arrays.asList(regexrs.clone()), union);
+  }
+
+  /**
+   * pools the union, and evicts others if the pool is full .
+   *
+   * @param key {@link Regexr Regexr(s)}
+   * @param union the union of {@code key}
+   * @return the union which is pooled already, or {@code union}
+   */
+  private static RegexrUnion pool(final List<Regexr> key, final RegexrUnion union) {
+    final RegexrUnion raced = pool.putIfAbsent(key, union);
+    if (raced != null) return raced;
+    for (Iterator<List<Regexr>> keys = pool.keySet().iterator(); pool.size() > RegexrPool.maximumSize * 2 && keys.hasNext();) {
+      if (!key.equals(keys.next())) keys.remove();
+    }
+
+    return union;
+  }
+
+  /**
+   * returns true if any of {@link Regexr Regexr(s)} matches the given text .
+   *
+   * @param text the text, maybe null
+   * @return true if any of {@link Regexr Regexr(s)} matches the given text
+   */
+  public boolean anyMatch(final CharSequence text) {
+    if (text == null || text.length() < 1 || regexrs.length < 1) return false;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      if (alternation != null && scratch.matcher(alternation, text).find()) return true;
+      for (int i = 0; i < regexrs.length; i++) {
+        if (groups[i] == 0 && scratch.matcher(regexrs[i].pattern(), text).find()) return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * returns the {@link Regexr} which matches the given text at the first, the lower order wins if those match at the same position .
+   *
+   * @param text the text, maybe null
+   * @return the {@link Regexr} which matches first, or empty if none of {@link Regexr Regexr(s)} matches
+   */
+  public Optional<Regexr> first(final CharSequence text) {
+    if (text == null || text.length() < 1 || regexrs.length < 1) return Optional.empty();
+    try (Scratchr scratch = Scratchr.acquire()) {
+      int first = -1;
+      int limit = text.length();
+      for (int i = 0; i < regexrs.length; i++) {
+        if (groups[i] > 0) continue;
+        final Matcher matcher = scratch.matcher(regexrs[i].pattern(), text);
+        if (matcher.find() && (first < 0 || matcher.start() < limit)) {
+          first = i;
+          limit = matcher.start();
+        }
+      }
+      final Matcher matcher = alternation == null ? null : scratch.matcher(alternation, text);
+      if (matcher != null && matcher.find() && (first < 0 || matcher.start() <= limit)) {
+        final int member = member(matcher);
+        first = first < 0 || matcher.start() < limit || member < first ? member : first;
+      }
+
+      return first < 0 ? Optional.empty() : Optional.of(regexrs[first]);
+    }
+  }
+
+  /**
+   * returns matched elements of the given string by each of {@link Regexr Regexr(s)}, scanning the string once .
+   *
+   * @param string the string, maybe null
+   * @return matched elements of the given string by each of {@link Regexr Regexr(s)} in order, same as {@link Regexr#find(String)}
+   */
+  public Map<Regexr, List<String>> find(final String string) {
+    final Map<Regexr, List<String>> result = new LinkedHashMap<>();
+    Arrays.stream(regexrs).forEach((regexr) -> result.put(regexr, new ArrayList<>()));
+    if (RegexrOrigin.isEmpty(string) || regexrs.length < 1) return result;
+    for (int i = 0; i < regexrs.length; i++) {
+      if (!isScannable(i)) result.get(regexrs[i]).addAll(regexrs[i].find(string));
+    }
+    if (scannable == 0) return result;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      final Matcher[] matchers = new Matcher[regexrs.length];
+      final int[] next = new int[regexrs.length];
+      for (int position = 0; position < string.length(); position++) {
+        final int candidates = starters(string.charAt(position));
+        for (int i = 0; candidates != 0 && i < regexrs.length; i++) {
+          if ((candidates & 1 << i) == 0 || next[i] > position || !lookingAt(matchers, i, string, position, scratch)) continue;
+          final int end = matchers[i].end();
+          result.get(regexrs[i]).add(string.substring(position, end));
+          next[i] = end > position ? end : end + 1;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * returns {@link Regexr Regexr(s)} of this union, in order .
+   *
+   * @return {@link Regexr Regexr(s)}, unmodifiable
+   */
+  public List<Regexr> regexrs() {
+    return Collections.unmodifiableList(Arrays.asList(regexrs));
+  }
+
+  /**
+   * returns true if the {@link Regexr} is embedded in the alternation .
+   *
+   * @param index the index of {@link #regexrs}
+   * @return true if the {@link Regexr} is embedded in the alternation
+   */
+  boolean isEmbedded(final int index) {
+    return groups[index] > 0;
+  }
+
+  /**
+   * returns the index of the {@link Regexr} which the alternation matched .
+   *
+   * @param matcher {@link Matcher} of the alternation, which matched
+   * @return the index of {@link #regexrs}
+   */
+  private int member(final Matcher matcher) {
+    for (int i = 0; i < groups.length; i++) {
+      if (groups[i] > 0 && matcher.start(groups[i]) > -1) return i;
+    }
+
+    return -1;
+  }
+
+  /**
+   * returns true if the {@link Regexr} is scanned using the table .
+   *
+   * @param index the index of {@link #regexrs}
+   * @return true if the {@link Regexr} is scanned using the table
+   */
+  boolean isScannable(final int index) {
+    return index < 31 && (scannable & 1 << index) != 0;
+  }
+
+  /**
+   * returns the bits of {@link Regexr Regexr(s)} able to start a match with the character .
+   *
+   * <p>
+   * the table is filled racy, that is harmless because the value is always the same .
+   * </p>
+   *
+   * @param c the character
+   * @return the bits of {@link Regexr Regexr(s)}
+   */
+  private int starters(final char c) {
+    int[] page = starters[c >>> 8];
+    if (page == null) page = starters[c >>> 8] = new int[256];
+    int bits = page[c & 0xFF];
+    if (bits != 0) return bits & ~tested;
+    bits = tested;
+    for (int i = 0; i < regexrs.length; i++) {
+      if (!isScannable(i)) continue;
+      final Matcher matcher = regexrs[i].pattern().matcher(String.valueOf(c));
+      if (Character.isSurrogate(c) || matcher.lookingAt() || matcher.hitEnd()) bits |= 1 << i;
+    }
+    page[c & 0xFF] = bits;
+
+    return bits & ~tested;
+  }
+
+  /**
+   * tries to match the {@link Regexr} at the position, same as {@link Matcher#find()} does at the position .
+   *
+   * @param matchers the matchers of each {@link Regexr}, lazily
+   * @param index the index of {@link #regexrs}
+   * @param text the text
+   * @param position the position
+   * @param scratch the working state
+   * @return true if matched
+   */
+  private boolean lookingAt(final Matcher[] matchers, final int index, final CharSequence text, final int position, final Scratchr scratch) {
+    if (matchers[index] == null) matchers[index] = scratch.matcher(regexrs[index].pattern(), text).useTransparentBounds(true).useAnchoringBounds(false);
+
+    return matchers[index].region(position, text.length()).lookingAt();
+  }
+
+  /**
+   * returns true if the match of the pattern never depends on the preceding text, and never be empty .
+   *
+   * @param pattern {@link Pattern}, maybe null
+   * @return true if the pattern is able to scan using the table
+   */
+  private static boolean isScannable(final Pattern pattern) {
+    return pattern != null && (pattern.flags() & Pattern.CANON_EQ) == 0 && !contextual.matcher(pattern.pattern()).find() && !pattern.matcher("").lookingAt();
+  }
+
+  /**
+   * returns the pattern which is able to be embedded in the alternation, that is enclosed with the inline flags .
+   *
+   * @param pattern {@link Pattern}, maybe null
+   * @return the pattern to embed, or null if the pattern has to be scanned one by one
+   */
+  private static String embed(final Pattern pattern) {
+    if (pattern == null || (pattern.flags() & (Pattern.CANON_EQ | Pattern.COMMENTS)) != 0) return null;
+    final boolean literal = (pattern.flags() & Pattern.LITERAL) != 0;
+    if (!literal && isolated.matcher(pattern.pattern()).find()) return null;
+    final StringBuilder flags = new StringBuilder();
+    final int[] bits = {Pattern.UNIX_LINES, Pattern.CASE_INSENSITIVE, Pattern.MULTILINE, Pattern.DOTALL, Pattern.UNICODE_CASE, Pattern.UNICODE_CHARACTER_CLASS};
+    for (int i = 0; i < bits.length; i++) {
+      if ((pattern.flags() & bits[i]) != 0) flags.append("dimsuU".charAt(i));
+    }
+    final String regex = literal ? Pattern.quote(pattern.pattern()) : pattern.pattern();
+
+    return flags.length() < 1 ? regex : "(?" + flags + ":" + regex + ")";
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || (obj instanceof RegexrUnion && Arrays.equals(regexrs, ((RegexrUnion) obj).regexrs));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(regexrs);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Arrays.toString(regexrs);
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * reusable working state of replacing, that is {@link Matcher Matcher(s)}, {@link StringBuilder StringBuilder(s)} and char arrays .
+ *
+ * <p>
+ * an instance is lent to one call at a time and returned by {@link #close()}, so that re-entrant calls ( e.g. {@link Regexr} inside {@link Regexr} )
+ * never share the state . platform threads keep a few instances in a {@link ThreadLocal}, and virtual threads borrow instances from
+ * the shared pool instead, so that the pool never grows with the number of threads . if the pool is empty, a fresh instance is lent,
+ * and pooled when returned if there is room .
+ * </p>
+ * <p>
+ * buffers larger than "{@code jp.furplag.text.regex.Scratchr.maximumCapacity}" ( default: 8192 characters ) are never retained .
+ * </p>
+ *
+ * <pre>{@code
+ * try (Scratchr scratch = Scratchr.acquire()) {
+ *   final Matcher matcher = scratch.matcher(pattern, text);
+ *   ...
+ * }
+ * }</pre>
+ *
+ * @author furplag
+ *
+ */
+final class Scratchr implements AutoCloseable {
+
+  /** the maximum capacity of buffers to retain . */
+  static final int maximumCapacity = Math.max(0, Integer.getInteger(Scratchr.class.getName() + ".maximumCapacity", 1 << 13));
+
+  /** the number of instances per platform thread, that is the depth of re-entrant calls which reuse the state . */
+  private static final int depth = 4;
+
+  /** the number of {@link Matcher Matcher(s)} per instance . */
+  private static final int matchers = 32;
+
+  /** the number of buffers per instance . */
+  private static final int buffers = 4;
+
+  /** {@code Thread#isVirtual()}, or null if the runtime has no virtual threads . */
+  private static final MethodHandle isVirtual = isVirtual();
+
+  /** pooled instances of the platform thread . */
+  private static final ThreadLocal<Scratchr[]> locals = ThreadLocal.withInitial(() -> new Scratchr[depth]);
+
+  /** pooled instances shared by virtual threads . */
+  private static final AtomicReferenceArray<Scratchr> shared = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1) << 1);
+
+  /** the patterns of {@link #matchers} . */
+  private final Pattern[] patterns = new Pattern[matchers];
+
+  /** {@link Matcher Matcher(s)}, by index of the pattern . */
+  private final Matcher[] cached = new Matcher[matchers];
+
+  /** true if the {@link Matcher} is lent to the current call . */
+  private final boolean[] lent = new boolean[matchers];
+
+  /** the index of the {@link Matcher} to discard next . */
+  private int victim;
+
+  /** pooled {@link StringBuilder StringBuilder(s)}, null if lent . */
+  private final StringBuilder[] builders = new StringBuilder[buffers];
+
+  /** {@link StringBuilder StringBuilder(s)} lent to the current call . */
+  private final StringBuilder[] borrowed = new StringBuilder[buffers];
+
+  /** pooled char arrays . */
+  private final char[][] arrays = new char[buffers][];
+
+  /** the pool which this instance returns to, that is the array of the platform thread, or null if shared . */
+  private Scratchr[] home;
+
+  /** use {@link #acquire()} . */
+  private Scratchr() {}
+
+  /**
+   * lends an instance to the current call, which must {@link #close()} it .
+   *
+   * @return {@link Scratchr}
+   */
+  static Scratchr acquire() {
+    final Thread thread = Thread.currentThread();
+    if (isVirtual(thread)) {
+      final int start = (int) thread.getId();
+      for (int i = 0; i < shared.length(); i++) {
+        final Scratchr scratch = shared.getAndSet((start + i) & (shared.length() - 1), null);
+        if (scratch != null) return scratch;
+      }
+
+      return new Scratchr();
+    }
+    final Scratchr[] pooled = locals.get();
+    for (int i = 0; i < pooled.length; i++) {
+      final Scratchr scratch = pooled[i];
+      if (scratch != null) {
+        pooled[i] = null;
+
+        return scratch;
+      }
+    }
+    final Scratchr scratch = new Scratchr();
+    scratch.home = pooled;
+
+    return scratch;
+  }
+
+  /**
+   * returns a {@link Matcher} of the pattern, which is reset with the text and the default bounds .
+   *
+   * @param pattern {@link Pattern}
+   * @param text the text
+   * @return {@link Matcher}
+   */
+  Matcher matcher(final Pattern pattern, final CharSequence text) {
+    int index = -1;
+    for (int i = 0; i < matchers; i++) {
+      if (patterns[i] == pattern && !lent[i]) {
+        index = i;
+        break;
+      } else if (patterns[i] == null) {
+        patterns[i] = pattern;
+        cached[i] = pattern.matcher("");
+        index = i;
+        break;
+      }
+    }
+    if (index < 0) {
+      for (int i = 0; i < matchers && index < 0; i++, victim = (victim + 1) % matchers) {
+        if (!lent[victim]) index = victim;
+      }
+      if (index < 0) return pattern.matcher(text);
+      patterns[index] = pattern;
+      cached[index] = pattern.matcher("");
+    }
+    lent[index] = true;
+
+    return cached[index].reset(text).useTransparentBounds(false).useAnchoringBounds(true);
+  }
+
+  /**
+   * returns an empty {@link StringBuilder} .
+   *
+   * @return {@link StringBuilder}
+   */
+  StringBuilder builder() {
+    for (int i = 0; i < buffers; i++) {
+      if (borrowed[i] == null) {
+        final StringBuilder builder = builders[i] == null ? new StringBuilder() : builders[i];
+        builders[i] = null;
+        borrowed[i] = builder;
+
+        return builder;
+      }
+    }
+
+    return new StringBuilder();
+  }
+
+  /**
+   * returns a char array, which is returned to the pool using {@link #recycle(char[])} .
+   *
+   * @param capacity the minimum length of the array
+   * @return a char array which has garbage, at least {@code capacity} length
+   */
+  char[] chars(final int capacity) {
+    for (int i = 0; i < buffers; i++) {
+      final char[] array = arrays[i];
+      if (array != null && array.length >= capacity) {
+        arrays[i] = null;
+
+        return array;
+      }
+    }
+
+    return new char[capacity];
+  }
+
+  /**
+   * returns the char array to the pool, replacing a smaller one if the pool is full .
+   *
+   * @param array the char array, maybe null
+   */
+  void recycle(final char[] array) {
+    if (array == null || array.length > maximumCapacity) return;
+    int index = 0;
+    for (int i = 0; i < buffers; i++) {
+      if (arrays[i] == array) return;
+      if (arrays[i] == null || arrays[index] != null && arrays[i].length < arrays[index].length) index = i;
+    }
+    if (arrays[index] == null || arrays[index].length < array.length) arrays[index] = array;
+  }
+
+  /**
+   * returns this instance to the pool, releasing the texts referred by {@link Matcher Matcher(s)} .
+   */
+  @Override
+  public void close() {
+    for (int i = 0; i < matchers; i++) {
+      if (lent[i]) {
+        cached[i].reset("");
+        lent[i] = false;
+      }
+    }
+    for (int i = 0; i < buffers; i++) {
+      final StringBuilder builder = borrowed[i];
+      borrowed[i] = null;
+      if (builder != null && builder.capacity() <= maximumCapacity) {
+        builder.setLength(0);
+        builders[i] = builder;
+      }
+    }
+    if (home != null) {
+      for (int i = 0; i < home.length; i++) {
+        if (home[i] == null) {
+          home[i] = this;
+
+          return;
+        }
+      }
+    } else {
+      final int start = (int) Thread.currentThread().getId();
+      for (int i = 0; i < shared.length(); i++) {
+        if (shared.compareAndSet((start + i) & (shared.length() - 1), null, this)) return;
+      }
+    }
+  }
+
+  /**
+   * returns true if the thread is virtual .
+   *
+   * @param thread {@link Thread}
+   * @return true if the thread is virtual
+   */
+  static boolean isVirtual(final Thread thread) {
+    try {
+      return isVirtual != null && (boolean) isVirtual.invokeExact(thread);
+    } catch (Throwable e) {
+      return false;
+    }
+  }
+
+  /**
+   * returns {@code Thread#isVirtual()} if the runtime supports .
+   *
+   * @return {@link MethodHandle}, or null if the runtime has no virtual threads
+   */
+  private static MethodHandle isVirtual() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+
+import jp.furplag.text.offset.OffsetMap;
+
+/**
+ * {@link Form#NFKC} normalization for the characters which {@link Regexr#CjkNormalizr} matches, using precomputed tables .
+ *
+ * <p>
+ * covers CJK Symbols and Punctuation, Hiragana, Katakana ( U+3000 - U+30FF ) and Halfwidth and Fullwidth Forms ( U+FF00 - U+FFEF ),
+ * and composes Kana with following ( halfwidth ) voiced sound marks, and Hangul Jamo into syllables .
+ * </p>
+ * <p>
+ * a run which contains any of ideographic tone marks ( U+302A - U+302F ) or fullwidth macron ( U+FFE3 ) needs canonical reordering,
+ * so that is normalized using {@link Normalizer} .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+final class WidthNormalizr {
+
+  /** Halfwidth CJK punctuation and Halfwidth Katakana ( U+FF61 - U+FF9F ), normalized . */
+  private static final String halfwidthKatakanas = "。「」、・ヲァィゥェォャュョッーアイウエオカキクケコサシスセソタチツテトナニヌネノハヒフヘホマミムメモヤユヨラリルレロワン\u3099\u309A";
+
+  /** Halfwidth Hangul ( U+FFA0 - U+FFDF ), normalized to Hangul Jamo . *//* @formatter:off */
+  private static final String halfwidthHanguls =
+    "\u1160\u1100\u1101\u11AA\u1102\u11AC\u11AD\u1103\u1104\u1105\u11B0\u11B1\u11B2\u11B3\u11B4\u11B5" +
+    "\u111A\u1106\u1107\u1108\u1121\u1109\u110A\u110B\u110C\u110D\u110E\u110F\u1110\u1111\u1112\uFFBF" +
+    "\uFFC0\uFFC1\u1161\u1162\u1163\u1164\u1165\u1166\uFFC8\uFFC9\u1167\u1168\u1169\u116A\u116B\u116C" +
+    "\uFFD0\uFFD1\u116D\u116E\u116F\u1170\u1171\u1172\uFFD8\uFFD9\u1173\u1174\u1175\uFFDD\uFFDE\uFFDF";
+  /* @formatter:on */
+
+  /** Fullwidth symbol variants and Halfwidth symbol variants ( U+FFE0 - U+FFEF ), normalized ( except U+FFE3 ) . */
+  private static final String symbols = "\u00A2\u00A3\u00AC\uFFE3\u00A6\u00A5\u20A9\uFFE7\u2502\u2190\u2191\u2192\u2193\u25A0\u25CB\uFFEF";
+
+  /** Kana which are able to compose with voiced sound mark . */
+  private static final String voicables = "うかきくけこさしすせそたちつてとはひふへほゝウカキクケコサシスセソタチツテトハヒフヘホワヰヱヲヽ";
+
+  /** Kana which composed with voiced sound mark . */
+  private static final String voiceds = "ゔがぎぐげござじずぜぞだぢづでどばびぶべぼゞヴガギグゲゴザジズゼゾダヂヅデドバビブベボヷヸヹヺヾ";
+
+  /** Kana which are able to compose with semi-voiced sound mark . */
+  private static final String semiVoicables = "はひふへほハヒフヘホ";
+
+  /** Kana which composed with semi-voiced sound mark . */
+  private static final String semiVoiceds = "ぱぴぷぺぽパピプペポ";
+
+  /** normalized Halfwidth and Fullwidth Forms ( U+FF00 - U+FFEF ) . */
+  private static final char[] forms = new char[0xFFF0 - 0xFF00];
+
+  /** voiced Kana ( U+3000 - U+30FF ), or {@code 0} if not composable . */
+  private static final char[] voiced = new char[0x3100 - 0x3000];
+
+  /** semi-voiced Kana ( U+3000 - U+30FF ), or {@code 0} if not composable . */
+  private static final char[] semiVoiced = new char[0x3100 - 0x3000];
+
+  static {
+    for (char c = '\uFF00'; c < '\uFFF0'; c++) {/* @formatter:off */
+      forms[c - 0xFF00] =
+        c == '\uFF00' ? c :
+        c < '\uFF5F' ? (char) (c - 0xFEE0) :
+        c == '\uFF5F' ? '\u2985' :
+        c == '\uFF60' ? '\u2986' :
+        c < '\uFFA0' ? halfwidthKatakanas.charAt(c - 0xFF61) :
+        c < '\uFFE0' ? halfwidthHanguls.charAt(c - 0xFFA0) :
+        symbols.charAt(c - 0xFFE0);
+    /* @formatter:on */}
+    for (int i = 0; i < voicables.length(); i++) {
+      voiced[voicables.charAt(i) - 0x3000] = voiceds.charAt(i);
+    }
+    for (int i = 0; i < semiVoicables.length(); i++) {
+      semiVoiced[semiVoicables.charAt(i) - 0x3000] = semiVoiceds.charAt(i);
+    }
+  }
+
+  /**
+   * WidthNormalizr instances should NOT be constructed in standard programming.
+   */
+  private WidthNormalizr() {}
+
+  /**
+   * appends the text normalized using {@link Form#NFKC} .
+   *
+   * @param text the text which consists of the characters in U+3000 - U+30FF and U+FF00 - U+FFEF
+   * @param start the index of the text to begin normalize
+   * @param end the index of the text to end normalize, exclusive
+   * @param result the buffer to append normalized text
+   * @return {@code result}
+   */
+  static StringBuilder normalize(final CharSequence text, final int start, final int end, final StringBuilder result) {
+    final int from = result.length();
+    for (int i = start; i < end; i++) {
+      final char c = text.charAt(i);
+      if (isReordering(c)) {
+        result.setLength(from);
+
+        return result.append(Normalizer.normalize(text.subSequence(start, end), Form.NFKC));
+      }
+      append(c, result, from);
+    }
+
+    return result;
+  }
+
+  /**
+   * appends the text normalized using {@link Form#NFKC}, and records the offsets of each character .
+   *
+   * <p>
+   * the text is normalized separately at the boundaries before the characters which never compose with the preceding character,
+   * so that a range which needs canonical reordering maps as a whole only between those boundaries .
+   * </p>
+   *
+   * @param text the text which consists of the characters in U+3000 - U+30FF and U+FF00 - U+FFEF
+   * @param start the index of the text to begin normalize
+   * @param end the index of the text to end normalize, exclusive
+   * @param result the buffer to append normalized text
+   * @param offsets {@link OffsetMap.Builder} to record the offsets, or null not to record
+   * @return {@code result}
+   */
+  static StringBuilder normalize(final CharSequence text, final int start, final int end, final StringBuilder result, final OffsetMap.Builder offsets) {
+    if (offsets == null) return normalize(text, start, end, result);
+    boolean reordering = false;
+    for (int i = start, begin = start; i < end; i++) {
+      reordering |= isReordering(text.charAt(i));
+      if (i + 1 < end && !isSeparable(text.charAt(i), text.charAt(i + 1))) continue;
+      final int from = result.length();
+      if (reordering) {
+        offsets.replace(i + 1 - begin, normalize(text, begin, i + 1, result).length() - from);
+      } else {
+        for (int j = begin; j <= i; j++) {
+          final int appended = result.length();
+          append(text.charAt(j), result, from);
+          if (result.length() == appended) {
+            offsets.compose(1);
+          } else {
+            offsets.replace(1, result.length() - appended);
+          }
+        }
+      }
+      begin = i + 1;
+      reordering = false;
+    }
+
+    return result;
+  }
+
+  /**
+   * detects whether the normalization never changes across between the specified characters .
+   *
+   * @param previous the character before the boundary
+   * @param c the character after the boundary
+   * @return true if the latter never composes with the former ( e.g. sound marks, Hangul Jamo ), and neither of those needs canonical reordering
+   */
+  private static boolean isSeparable(final char previous, final char c) {/* @formatter:off */
+    return (c < '\u3099' || c > '\u309C') && c != '\uFF9E' && c != '\uFF9F' && (c < '\uFFA0' || c > '\uFFDF')
+      && !isReordering(previous) && !isReordering(c);
+  /* @formatter:on */}
+
+  /**
+   * detects whether the character needs canonical reordering, which the precomputed tables do not cover .
+   *
+   * @param c the character
+   * @return true if the character is one of ideographic tone marks ( U+302A - U+302F ) or fullwidth macron ( U+FFE3 )
+   */
+  private static boolean isReordering(final char c) {
+    return (c >= '\u302A' && c <= '\u302F') || c == '\uFFE3';
+  }
+
+  /**
+   * appends the character normalized, except the characters which need canonical reordering .
+   *
+   * @param c the character
+   * @param result the buffer to append normalized text
+   * @param from the index of the result which the normalized text begins
+   * @return {@code result}
+   */
+  private static StringBuilder append(final char c, final StringBuilder result, final int from) {
+    switch (c) {
+      case '\u309B':
+      case '\u309C':
+        return compose(compose(result, from, ' '), from, c == '\u309B' ? '\u3099' : '\u309A');
+      case '\u309F':
+        return compose(compose(result, from, 'よ'), from, 'り');
+      case '\u30FF':
+        return compose(compose(result, from, 'コ'), from, 'ト');
+      default:
+        return compose(result, from, normalize(c));
+    }
+  }
+
+
+  /**
+   * returns the character which normalized using {@link Form#NFKC}, except the characters which decompose to several characters .
+   *
+   * @param c the character
+   * @return the character which normalized using {@link Form#NFKC}
+   */
+  private static char normalize(final char c) {
+    if (c >= '\uFF00' && c < '\uFFF0') return forms[c - 0xFF00];
+    switch (c) {/* @formatter:off */
+      case '\u3000': return ' ';
+      case '\u3036': return '〒';
+      case '\u3038': return '十';
+      case '\u3039': return '卄';
+      case '\u303A': return '卅';
+      default: return c;
+    /* @formatter:on */}
+  }
+
+  /**
+   * appends the character, or composes the character with the last character of the normalized text .
+   *
+   * @param result the buffer to append normalized text
+   * @param from the index of the result which the normalized text begins
+   * @param c the character
+   * @return {@code result}
+   */
+  private static StringBuilder compose(final StringBuilder result, final int from, final char c) {
+    final int last = result.length() - 1;
+    final char composed = last < from ? 0 : composite(result.charAt(last), c);
+    if (composed == 0) return result.append(c);
+    result.setCharAt(last, composed);
+
+    return result;
+  }
+
+  /**
+   * returns the primary composite of the characters .
+   *
+   * @param starter the character which precedes
+   * @param c the character
+   * @return the primary composite of the characters, or {@code 0} if those are not composable
+   */
+  private static char composite(final char starter, final char c) {/* @formatter:off */
+    return
+      c == '\u3099' ? (starter >= '\u3000' && starter < '\u3100' ? voiced[starter - 0x3000] : 0) :
+      c == '\u309A' ? (starter >= '\u3000' && starter < '\u3100' ? semiVoiced[starter - 0x3000] : 0) :
+      c >= '\u1161' && c <= '\u1175' && starter >= '\u1100' && starter <= '\u1112' ? (char) (0xAC00 + ((starter - 0x1100) * 21 + (c - 0x1161)) * 28) :
+      c >= '\u11A8' && c <= '\u11C2' && starter >= '\uAC00' && starter <= '\uD7A3' && (starter - 0xAC00) % 28 == 0 ? (char) (starter + (c - 0x11A7)) :
+      0;
+  /* @formatter:on */}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+/**
+ * creates {@link CharScannr}, uses Vector API if the module enabled ( {@code --add-modules jdk.incubator.vector} ) .
+ *
+ * @author furplag
+ *
+ */
+final class CharScannrProvider {
+
+  /** the minimum length of text to scan with Vector API . */
+  private static final int threshold = 64;
+
+  /** true if Vector API is available, and not disabled by the system property . */
+  private static final boolean vectorized = isAvailable();
+
+  /**
+   * CharScannrProvider instances should NOT be constructed in standard programming.
+   */
+  private CharScannrProvider() {}
+
+  /**
+   * returns whether the scanning uses Vector API .
+   *
+   * @return true if Vector API is available, and not disabled by the system property
+   */
+  static boolean isVectorized() {
+    return vectorized;
+  }
+
+  /**
+   * returns a scanner of the specified text .
+   *
+   * @param text the text to scan
+   * @return {@link CharScannr}
+   */
+  static CharScannr of(final CharSequence text) {
+    return vectorized && text.length() >= threshold && (text instanceof String || text instanceof StringBuilder) ? new VectorCharScannr(text) : new CharScannr(text);
+  }
+
+  /**
+   * detects whether Vector API is available .
+   *
+   * @return true if Vector API is available
+   */
+  private static boolean isAvailable() {
+    if (!Boolean.parseBoolean(System.getProperty(CharScannr.class.getName() + ".vectorized", "true"))) return false;
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+    try {
+      return VectorCharScannr.lanes > 1;
+    } catch (LinkageError e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link CharScannr} using Vector API, which tests {@link ShortVector#SPECIES_PREFERRED} characters at a time .
+ *
+ * <p>
+ * the text copies into a window in chunks, because Vector API can not read {@link String} directly .
+ * the window is reused by all scanners in the same thread, so that a scanner ( e.g. of a quick check ) allocates nothing but itself .
+ * </p>
+ *
+ * @author furplag
+ *
+ */
+final class VectorCharScannr extends CharScannr {
+
+  /**
+   * the window, which contains a part of the text and the characters around it .
+   *
+   * @author furplag
+   *
+   */
+  private static final class Window {
+
+    /** the characters . */
+    private final char[] chars = new char[Math.max(lanes, windowSize) + 2];
+
+    /** the number of times scanners took the window, which identifies the scanner filled the window last ( never holds the text ) . */
+    private long claims;
+
+    /** the index of the text where the window starts . */
+    private int base;
+
+    /** the length of the window filled, excluding the characters around it . */
+    private int filled;
+  }
+
+  /** the shape of vectors . */
+  private static final VectorSpecies<Short> species = ShortVector.SPECIES_PREFERRED;
+
+  /** the number of characters at a time . */
+  static final int lanes = species.length();
+
+  /** the maximum length of the window . */
+  private static final int windowSize = 2048;
+
+  /** the window of each thread, which scanners in the thread share ( a scanning never calls another ) . */
+  private static final ThreadLocal<Window> windows = ThreadLocal.withInitial(Window::new);
+
+  /** the window which this scanner filled last . */
+  private Window window;
+
+  /** the claim of the window, which this scanner took . */
+  private long claim;
+
+  /**
+   *
+   * @param text the text to scan, {@link String} or {@link StringBuilder}
+   */
+  VectorCharScannr(final CharSequence text) {
+    super(text);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * tests the first character before vectorizing, because the scanning often stops there ( e.g. in CJK text ) .
+   * a vector and its neighbours ( shifted by one character ) are loaded from the window, because
+   * {@link jdk.incubator.vector.VectorMask#toLong()} is not an intrinsic in Java 17 .
+   * </p>
+   */
+  @Override
+  protected int scan(final int from, final boolean latin) {
+    final int length = text.length();
+    int i = Math.max(0, from);
+    if (i < length && !isClean(i, length, latin)) return i;
+    if (i + lanes > length) return super.scan(i, latin);
+    final Window window = windows.get();
+    if (this.window != window || claim != window.claims) {
+      this.window = window;
+      claim = ++window.claims;
+      window.filled = 0;
+    }
+    final short limit = (short) (latin ? '\u200F' : '\uFFFF');
+    for (; i + lanes <= length; i += lanes) {
+      if (i < window.base || i + lanes > window.base + window.filled) fill(window, i, length);
+      final int offset = i - window.base + 1;
+      final ShortVector v = ShortVector.fromCharArray(species, window.chars, offset);
+      final VectorMask<Short> plain = plain(v);
+      final VectorMask<Short> clean = plain.and(v.compare(VectorOperators.UNSIGNED_LE, limit)).or(v.compare(VectorOperators.EQ, (short) '\u0020')
+        .and(plain(ShortVector.fromCharArray(species, window.chars, offset - 1))).and(plain(ShortVector.fromCharArray(species, window.chars, offset + 1))));
+      if (!clean.allTrue()) return i + clean.not().firstTrue();
+    }
+
+    return super.scan(i, latin);
+  }
+
+  /**
+   * copies the part of text which starts at the specified index into the window, with the characters around it .
+   *
+   * @param window the window
+   * @param from the index of the text
+   * @param length the length of the text
+   */
+  private void fill(final Window window, final int from, final int length) {
+    final char[] chars = window.chars;
+    window.base = from;
+    window.filled = Math.min(chars.length - 2, length - from);
+    if (text instanceof String) {
+      ((String) text).getChars(from, from + window.filled, chars, 1);
+    } else {
+      ((StringBuilder) text).getChars(from, from + window.filled, chars, 1);
+    }
+    chars[0] = from > 0 ? text.charAt(from - 1) : '\u0000';
+    chars[window.filled + 1] = from + window.filled < length ? text.charAt(from + window.filled) : '\u0000';
+  }
+
+  /**
+   * detects the characters which need no work to optimize, same as {@link CharScannr#isPlain(char)} .
+   *
+   * @param v characters
+   * @return the mask of the characters which need no work
+   */
+  private static VectorMask<Short> plain(final ShortVector v) {/* @formatter:off */
+    return v.compare(VectorOperators.UNSIGNED_GT, (short) '\u0020')
+      .and(v.sub((short) '\u007F').compare(VectorOperators.UNSIGNED_GT, (short) ('\u00A0' - '\u007F')))
+      .and(v.compare(VectorOperators.NE, (short) '\u1680'))
+      .and(v.sub((short) '\u2000').compare(VectorOperators.UNSIGNED_GT, (short) ('\u200A' - '\u2000')))
+      .and(v.and((short) 0xFFFE).compare(VectorOperators.NE, (short) '\u2028'))
+      .and(v.compare(VectorOperators.NE, (short) '\u205F'))
+      .and(v.compare(VectorOperators.NE, (short) '\u3000'));
+  /* @formatter:on */}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.batch.BatchNormalizr.Method;
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.normalize.Kanizr;
+import jp.furplag.text.optimize.Optimizr;
+import jp.furplag.text.optimize.Trimr;
+
+public class BatchNormalizrTest {
+
+  private static final Map<Method, UnaryOperator<String>> expects = Map.of(
+    Method.NORMALIZE, CjkNormalizr::normalize
+    , Method.DENORMALIZE, CjkNormalizr::denormalize
+    , Method.OPTIMIZE, Optimizr::optimize
+    , Method.TRIM, Trimr::trim
+    , Method.HIRAGANIZE, Kanizr::hiraganize
+    , Method.KATAKANIZE, Kanizr::katakanize
+  );
+
+  static String convert(String text, Method method, int parallelism, int chunkSize) throws IOException {
+    final Path source = Files.createTempFile("text-commonize", ".txt");
+    final Path destination = Files.createTempFile("text-commonize", ".txt");
+    try {
+      Files.writeString(source, text, StandardCharsets.UTF_8);
+      assertEquals(Files.size(source), BatchNormalizr.convert(source, destination, method, parallelism, chunkSize));
+
+      return Files.readString(destination, StandardCharsets.UTF_8);
+    } finally {
+      Files.deleteIfExists(source);
+      Files.deleteIfExists(destination);
+    }
+  }
+
+  @Test
+  void test() throws IOException {
+    assertThrows(IllegalArgumentException.class, () -> convert("", Method.NORMALIZE, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> convert("", Method.NORMALIZE, 1, 0));
+    for (Method method : Method.values()) {
+      assertEquals("", convert("", method, 2, 1));
+      assertEquals("", convert(" \n\u0001\n\t\n", method, 2, 1));
+    }
+    assertEquals("醜悪な 入力値(セクシャルヴァイオレット#1)\nMr. Copy&Paste", convert("\n　醜悪な　入力値（ｾｸｼｬﾙｳﾞｧｲｵﾚｯﾄ＃１）\r\n\n\nMr.\t Copy&Ｐａｓｔｅ\r\n", Method.NORMALIZE, 2, 1));
+    assertEquals("the String .\n \n\tthe String.", convert(" \n the\u0001 String .\n \n\tthe String. \n\n", Method.TRIM, 2, 1));
+  }
+
+  @Test
+  void testSameFile() throws IOException {
+    final Path source = Files.createTempFile("text-commonize", ".txt");
+    try {
+      Files.writeString(source, "ｶﾞｯｺｳ", StandardCharsets.UTF_8);
+      assertThrows(IllegalArgumentException.class, () -> BatchNormalizr.convert(source, source, Method.NORMALIZE, 1, 1));
+      assertThrows(IllegalArgumentException.class, () -> BatchNormalizr.convert(source, source.getParent().resolve(".").resolve(source.getFileName()), Method.NORMALIZE, 1, 1));
+      assertEquals("ｶﾞｯｺｳ", Files.readString(source, StandardCharsets.UTF_8));
+    } finally {
+      Files.deleteIfExists(source);
+    }
+    assertThrows(IllegalArgumentException.class, () -> convert("", Method.NORMALIZE, 1, BatchNormalizr.maximumChunkSize + 1));
+  }
+
+  @Test
+  void testChunkSize() {
+    assertEquals(1 << 10, BatchNormalizr.chunkSize("1"));
+    assertEquals(4096 << 10, BatchNormalizr.chunkSize("4096"));
+    assertEquals(BatchNormalizr.maximumChunkSize, BatchNormalizr.chunkSize(Integer.toString(BatchNormalizr.maximumChunkSize >> 10)));
+    assertEquals(-1, BatchNormalizr.chunkSize(Integer.toString((BatchNormalizr.maximumChunkSize >> 10) + 1)));
+    assertEquals(-1, BatchNormalizr.chunkSize("2097152"));
+    assertEquals(-1, BatchNormalizr.chunkSize("0"));
+    assertEquals(-1, BatchNormalizr.chunkSize("-1"));
+    assertEquals(-1, BatchNormalizr.chunkSize("4M"));
+    assertEquals(-1, BatchNormalizr.chunkSize(null));
+  }
+
+  @Test
+  void testChunked() throws IOException {
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0x0000, 0x00A0).filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 8 == 0), IntStream.of(0x0A, 0x0A, 0x0A, 0x0A, 0x2010, 0x2028, 0x3000, 0x3042, 0x304B, 0x3099, 0x309B, 0x30AB, 0x30F7, 0x4E16, 0xFF21, 0xFF76, 0xFF9E, 0xFFA1, 0xFFC2, 0x1F600))
+      .mapToObj(codePoint -> new String(Character.toChars(codePoint))).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    for (int i = 0; i < 20; i++) {
+      final String text = IntStream.range(0, random.nextInt(4096)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      for (Method method : Method.values()) {
+        assertEquals(expects.get(method).apply(text), convert(text, method, random.nextInt(4) + 1, random.nextInt(256) + 1), method.name());
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.normalize.Kanizr;
+import jp.furplag.text.regex.Regexr;
+
+public class MetricrTest {
+
+  @Test
+  void test() throws Exception {
+    assertEquals(Boolean.getBoolean(Metricr.class.getName() + ".enabled"), Metricr.enabled);
+    assertEquals(Metricr.enabled, new Metricr().isEnabled());
+    assertEquals(Metricr.enabled, ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(Metricr.objectName)));
+    assertSame(Metricr.stage("MetricrTest.test"), Metricr.stage("MetricrTest.test"));
+    assertEquals(Metricr.enabled, Metricr.stage("MetricrTest.test") != Metricr.stage("MetricrTest.test.another"));
+    if (!Metricr.enabled) assertEquals(0L, Metricr.started());
+  }
+
+  @Test
+  void testBounded() {
+    assertTrue(Metricr.maximumStages > 0);
+    if (!Metricr.enabled) {
+      assertSame(Metricr.stage("MetricrTest.testBounded"), Metricr.stage(Metricr.other));
+
+      return;
+    }
+    assertEquals("コンニチハ 世界", CjkNormalizr.normalize("ｺﾝﾆﾁﾊ　世界"));
+    try {
+      IntStream.range(0, Metricr.maximumStages + 10).forEach((i) -> Metricr.stage("MetricrTest.testBounded." + i).record(System.nanoTime(), 1, 0));
+      assertTrue(Metricr.stages.size() <= Metricr.maximumStages + 1);
+      assertSame(Metricr.stage(Metricr.other), Metricr.stage("MetricrTest.testBounded.overflow"));
+      assertTrue(Metricr.stage(Metricr.other).snapshot().getCalls() >= 10);
+      assertTrue(Metricr.stages.containsKey("CjkNormalizr.normalize"));
+    } finally {
+      Metricr.stages.keySet().removeIf((name) -> name.startsWith("MetricrTest.testBounded"));
+    }
+  }
+
+  @Test
+  void testStage() throws Exception {
+    final Metricr.Stage stage = new Metricr.Stage("MetricrTest.testStage");
+    assertEquals("MetricrTest.testStage: calls: 0, characters: 0, matches: 0, iterations: 0, mean: 0ns, median: 0ns, p99: 0ns, max: 0ns", stage.snapshot().toString());
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    IntStream.range(0, 4).forEach((t) -> executor.execute(() -> IntStream.range(0, 1_000).forEach((i) -> stage.record(System.nanoTime(), 10, 2, 1))));
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    stage.record(System.nanoTime() - TimeUnit.SECONDS.toNanos(1), 5, 0);
+
+    final Metricr.Snapshot snapshot = stage.snapshot();
+    assertEquals("MetricrTest.testStage", snapshot.getName());
+    assertEquals(4_001, snapshot.getCalls());
+    assertEquals(40_005, snapshot.getCharacters());
+    assertEquals(8_000, snapshot.getMatches());
+    assertEquals(4_000, snapshot.getIterations());
+    assertEquals(4_001, IntStream.range(0, Long.SIZE).mapToLong((i) -> snapshot.getLatencyHistogram()[i]).sum());
+    assertEquals(1, snapshot.getLatencyHistogram()[Long.SIZE - Long.numberOfLeadingZeros(snapshot.getMaxNanos())]);
+    assertTrue(snapshot.getMaxNanos() >= TimeUnit.SECONDS.toNanos(1));
+    assertTrue(snapshot.getMedianNanos() < TimeUnit.SECONDS.toNanos(1));
+    assertTrue(snapshot.getMedianNanos() <= snapshot.getP99Nanos());
+    assertTrue(snapshot.getP99Nanos() <= snapshot.getMaxNanos());
+    assertTrue(snapshot.getMeanNanos() >= TimeUnit.SECONDS.toNanos(1) / 4_001);
+    assertNotSame(snapshot.getLatencyHistogram(), snapshot.getLatencyHistogram());
+
+    stage.reset();
+    assertEquals(0, stage.snapshot().getCalls());
+    assertArrayEquals(new long[Long.SIZE], stage.snapshot().getLatencyHistogram());
+  }
+
+  @Test
+  void testMXBean() throws Exception {
+    final MBeanServer server = MBeanServerFactory.newMBeanServer();
+    final ObjectName name = new ObjectName(Metricr.objectName);
+    server.registerMBean(new Metricr(), name);
+    final Metricr.Stage stage = Metricr.stages.computeIfAbsent("MetricrTest.testMXBean", Metricr.Stage::new);
+    try {
+      stage.record(System.nanoTime(), 3, 1);
+      assertEquals(Metricr.enabled, server.getAttribute(name, "Enabled"));
+      final TabularData stages = (TabularData) server.getAttribute(name, "Stages");
+      final CompositeData row = stages.get(new Object[] {"MetricrTest.testMXBean"});
+      final CompositeData snapshot = (CompositeData) row.get("value");
+      assertEquals("MetricrTest.testMXBean", snapshot.get("name"));
+      assertEquals(1L, snapshot.get("calls"));
+      assertEquals(3L, snapshot.get("characters"));
+      assertEquals(1L, snapshot.get("matches"));
+      assertEquals(Long.SIZE, ((long[]) snapshot.get("latencyHistogram")).length);
+
+      server.invoke(name, "reset", new Object[0], new String[0]);
+      assertEquals(0L, stage.snapshot().getCalls());
+    } finally {
+      Metricr.stages.remove("MetricrTest.testMXBean");
+      server.unregisterMBean(name);
+    }
+  }
+
+  @Test
+  void testRecording() {
+    assertEquals("コンニチハ 世界", CjkNormalizr.normalize("ｺﾝﾆﾁﾊ　世界"));
+    assertEquals("コンニチハ 世界", Kanizr.katakanize("こんにちは　世界"));
+    assertEquals("a b", Regexr.SpaceLintr.replaceAll("a   b"));
+    final Metricr metricr = new Metricr();
+    if (!Metricr.enabled) {
+      assertTrue(metricr.getStages().keySet().stream().allMatch((name) -> name.startsWith("MetricrTest")));
+
+      return;
+    }
+    assertTrue(metricr.getStages().get("CjkNormalizr.normalize").getCalls() > 0);
+    assertTrue(metricr.getStages().get("Kanizr.katakanize").getCalls() > 0);
+    assertTrue(metricr.getStages().get("Optimizr.optimize").getCharacters() > 0);
+    assertTrue(metricr.getStages().get("Regexr" + Regexr.CjkNormalizr).getMatches() > 0);
+    assertTrue(metricr.getStages().get("Regexr" + Regexr.SpaceLintr).getIterations() > 0);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import jdk.jfr.Configuration;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.normalize.Kanizr;
+import jp.furplag.text.optimize.Optimizr;
+
+public class NormalizationEventTest {
+
+  @Test
+  void test() {
+    final NormalizationEvent event = NormalizationEvent.begin("NormalizationEventTest.test", "abc", new StringBuilder());
+    event.normalized();
+    event.optimized();
+    event.translated();
+    event.end(new StringBuilder("abc"));
+    NormalizationEvent.begin("NormalizationEventTest.test", "abc", null).end(3);
+  }
+
+  @Test
+  void testSettings() throws Exception {
+    try (Reader reader = new InputStreamReader(NormalizationEvent.class.getResourceAsStream("text-commonize.jfc"), StandardCharsets.UTF_8)) {
+      final Map<String, String> settings = Configuration.create(reader).getSettings();
+      assertEquals("true", settings.get(NormalizationEvent.name + "#enabled"));
+      assertEquals("10 ms", settings.get(NormalizationEvent.name + "#threshold"));
+      assertEquals("true", settings.get(RecursiveReplacingEvent.name + "#enabled"));
+      assertEquals("10 ms", settings.get(RecursiveReplacingEvent.name + "#threshold"));
+    }
+    assertEquals("10 ms", EventType.getEventType(NormalizationEvent.class).getSettingDescriptors().stream().filter((setting) -> "threshold".equals(setting.getName())).findFirst().orElseThrow().getDefaultValue());
+  }
+
+  @Test
+  void testRecording() throws Exception {
+    assertTrue(FlightRecorder.isAvailable());
+    final Path path = Files.createTempFile("text-commonize", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(NormalizationEvent.class).withThreshold(Duration.ZERO);
+      recording.enable(RecursiveReplacingEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+      assertEquals("コンニチハ 世界", CjkNormalizr.normalize("ｺﾝﾆﾁﾊ　世界", new StringBuilder()).toString());
+      assertEquals("ｃｏｎｎｉｃｈｉｗａ　世界", CjkNormalizr.denormalize("connichiwa 世界"));
+      assertEquals("> こんにちは 世界", Kanizr.hiraganize("ｺﾝﾆﾁﾊ　世界", new StringBuilder("> ")).toString());
+      assertEquals("コンニチハ 世界", Kanizr.katakanize("こんにちは　世界", new StringBuilder()).toString());
+      assertEquals("a b", Optimizr.optimize(" a   b ", new StringBuilder()).toString());
+      recording.stop();
+      recording.dump(path);
+
+      final List<RecordedEvent> events = RecordingFile.readAllEvents(path).stream().filter((event) -> NormalizationEvent.name.equals(event.getEventType().getName())).collect(Collectors.toList());
+      assertTrue(events.stream().anyMatch((event) -> matches(event, "CjkNormalizr.normalize", 8, 8)));
+      assertTrue(events.stream().anyMatch((event) -> matches(event, "CjkNormalizr.denormalize", 13, 13)));
+      assertTrue(events.stream().anyMatch((event) -> matches(event, "Kanizr.hiraganize", 8, 8)), "excludes the prefix");
+      assertTrue(events.stream().anyMatch((event) -> matches(event, "Kanizr.katakanize", 8, 8)));
+      assertTrue(events.stream().anyMatch((event) -> matches(event, "Optimizr.optimize", 7, 3)));
+      assertTrue(events.stream().filter((event) -> "Optimizr.optimize".equals(event.getString("operation"))).count() > 1, "nested in the other operations");
+      final RecordedEvent normalize = events.stream().filter((event) -> matches(event, "CjkNormalizr.normalize", 8, 8)).findFirst().orElseThrow();
+      assertTrue(normalize.getDuration().toNanos() >= normalize.getDuration("normalizingDuration").toNanos() + normalize.getDuration("optimizingDuration").toNanos());
+      assertEquals(0L, normalize.getDuration("translatingDuration").toNanos());
+      assertTrue(normalize.getStackTrace().getFrames().stream().anyMatch((frame) -> frame.getMethod().getType().getName().equals(NormalizationEventTest.class.getName())));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  private static boolean matches(final RecordedEvent event, final String operation, final int inputLength, final int outputLength) {
+    return operation.equals(event.getString("operation")) && event.getInt("inputLength") == inputLength && event.getInt("outputLength") == outputLength;
+  }
+}
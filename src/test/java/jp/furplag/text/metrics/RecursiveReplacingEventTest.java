@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jp.furplag.text.regex.Regexr;
+import jp.furplag.text.regex.RegexrRecursive;
+
+public class RecursiveReplacingEventTest {
+
+  @Test
+  void test() {
+    RecursiveReplacingEvent.begin("a", "abc").end(3, 0, 0);
+    RecursiveReplacingEvent.begin("a", "abc").end(6, 1, 1, true);
+  }
+
+  @Test
+  void testRecording() throws Exception {
+    final Path path = Files.createTempFile("text-commonize", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(RecursiveReplacingEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+      assertEquals("a b", Regexr.SpaceLintr.replaceAll("a   b"));
+      assertEquals("ab", Regexr.SpaceLintr.replaceAll("ab"));
+      assertEquals("aaaa", new RegexrRecursive("a", "aa", 0, 2).replaceAll("a"));
+      assertEquals("xxxx", new RegexrRecursive("^(x{1,3})$", "$1x").replaceAll("x"));
+      recording.stop();
+      recording.dump(path);
+
+      final List<RecordedEvent> events = RecordingFile.readAllEvents(path).stream().filter((event) -> RecursiveReplacingEvent.name.equals(event.getEventType().getName())).collect(Collectors.toList());
+      assertTrue(events.stream().anyMatch((event) -> event.getInt("inputLength") == 5 && event.getInt("outputLength") == 3 && event.getInt("iterations") > 0 && event.getInt("matches") > 0));
+      assertTrue(events.stream().anyMatch((event) -> event.getInt("inputLength") == 2 && event.getInt("outputLength") == 2 && event.getInt("iterations") == 0));
+      assertTrue(events.stream().allMatch((event) -> event.getString("regex") != null));
+      assertTrue(events.stream().anyMatch((event) -> "a".equals(event.getString("regex")) && event.getInt("outputLength") == 4 && event.getBoolean("truncated")));
+      assertTrue(events.stream().anyMatch((event) -> "^(x{1,3})$".equals(event.getString("regex")) && event.getInt("outputLength") == 4 && !event.getBoolean("truncated")));
+      assertTrue(events.stream().filter((event) -> event.getString("regex").startsWith("[")).noneMatch((event) -> event.getBoolean("truncated")));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
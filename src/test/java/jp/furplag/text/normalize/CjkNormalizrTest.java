@@ -18,14 +18,22 @@ package jp.furplag.text.normalize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.StringWriter;
 import java.lang.Character.UnicodeBlock;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
 import jp.furplag.sandbox.reflect.SavageReflection;
 import jp.furplag.text.optimize.Optimizr;
 import jp.furplag.text.regex.RegexrOrigin;
@@ -75,6 +83,21 @@ public class CjkNormalizrTest {
     String latins = RegexrOrigin.newString(IntStream.rangeClosed(0, 0x00FF).toArray());
     String expect = Optimizr.optimize(RegexrOrigin.newString(latins.codePoints().map(codePoint->exclusives.getOrDefault(codePoint, codePoint + (UnicodeBlock.BASIC_LATIN.equals(UnicodeBlock.of(codePoint)) && !Character.isWhitespace(codePoint) && !Character.isISOControl(codePoint) ? 65248 : 0))).toArray())).replaceAll(" ", "　");
     assertEquals(expect, CjkNormalizr.denormalize(latins));
+
+    String mixed = "\tｶﾞｷﾞ ｸﾞ 𠮷野家　Ｈｅｌｌｏ, World ！\r\n\r\n~￥$¢£¬¯¦₩│ ";
+    expect = RegexrOrigin.newString(CjkNormalizr.normalize(mixed).codePoints().map(codePoint -> exclusives.getOrDefault(codePoint, codePoint + (UnicodeBlock.BASIC_LATIN.equals(UnicodeBlock.of(codePoint)) && !Character.isWhitespace(codePoint) ? 65248 : 0))).toArray()).replaceAll(" ", "　");
+    assertEquals(expect, CjkNormalizr.denormalize(mixed));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testTranslate() throws SecurityException, ReflectiveOperationException {
+    Map<Integer, Integer> exclusives = (Map<Integer, Integer>) SavageReflection.get(CjkNormalizr.class, "exclusives");
+    Method translate = CjkNormalizr.class.getDeclaredMethod("translate", int.class);
+    translate.setAccessible(true);
+    for (int codePoint = Character.MIN_CODE_POINT; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+      assertEquals(exclusives.getOrDefault(codePoint, codePoint + (!UnicodeBlock.BASIC_LATIN.equals(UnicodeBlock.of(codePoint)) || Character.isWhitespace(codePoint) ? 0 : 65248)), translate.invoke(null, codePoint));
+    }
   }
 
   @Test
@@ -109,4 +132,87 @@ public class CjkNormalizrTest {
     assertTrue(CjkNormalizr.isNormalized("パ～やん"));
     assertTrue(CjkNormalizr.isNormalized("パ~やん"));
   }
+
+  @Test
+  void testAppendable() {
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, CjkNormalizr.normalize(null, sb));
+    assertSame(sb, CjkNormalizr.denormalize("", sb));
+    assertEquals("> Hello World.", CjkNormalizr.normalize("Ｈｅｌｌｏ　Ｗｏｒｌｄ．", sb).toString());
+
+    final String string = " Ｈｅｌｌｏ　Ｗｏｒｌｄ．\n\n ｺﾝﾆﾁﾊ　世界。ﾊﾞｰﾊﾞﾊﾟﾊﾟ、ハ゛ーハ゛ハ゜ハ゜、\u0001ｶ ｶｷ　ﾡￂﾡￂﾡￂﾣ 、Hello World. ";
+    assertEquals(CjkNormalizr.normalize(string), CjkNormalizr.normalize(CharBuffer.wrap(string), new StringWriter()).toString());
+    assertEquals(CjkNormalizr.denormalize(string), CjkNormalizr.denormalize(new StringBuilder(string), new StringWriter()).toString());
+  }
+
+  @Test
+  void testIsNormalizedQuickly() {
+    final String[] elements = IntStream.concat(IntStream.of(0x09, 0x0A, 0x0A, 0x0D, 0x20, 0x20, 0x20, 0x41, 0x61, 0xA0, 0x2010, 0x2028, 0x302A, 0x4E16, 0x1F600, 0x01, 0x7F), IntStream.concat(IntStream.rangeClosed(0x3000, 0x30FF), IntStream.rangeClosed(0xFF00, 0xFFEF)).filter(codePoint -> codePoint % 3 == 0 || (codePoint >= 0x3099 && codePoint <= 0x309C)))
+      .mapToObj(codePoint -> new String(Character.toChars(codePoint))).toArray(String[]::new);
+    final String[] stables = Arrays.stream(elements).filter(CjkNormalizr::isNormalized).toArray(String[]::new);
+    final Random random = new Random(20180102L);
+    IntStream.range(0, 20000).forEach(i -> {
+      final String[] source = i % 2 == 0 ? elements : stables;
+      final String text = IntStream.range(0, random.nextInt(6)).mapToObj(j -> source[random.nextInt(source.length)]).collect(Collectors.joining());
+      assertEquals(RegexrOrigin.isEmpty(text) || (Optimizr.isOptimized(text) && text.equals(CjkNormalizr.normalize(text))), CjkNormalizr.isNormalized(text), text);
+    });
+  }
+
+  @Test
+  void testOffsets() {
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+    assertEquals("> ガッコウ ニ イク", CjkNormalizr.normalize("ｶﾞｯｺｳ　ﾆ　ｲｸ", new StringBuilder("> "), offsets).toString());
+    assertEquals("{0-2: 0-1, 2-10: 1-9}", offsets.build().toString());
+    assertEquals(6, offsets.build().toSource(5));
+    assertSame(offsets, offsets.append(OffsetMap.identity(0)));
+    assertEquals("", CjkNormalizr.normalize(null, new StringBuilder(), new OffsetMap.Builder()).toString());
+
+    final String string = " Ｈｅｌｌｏ　Ｗｏｒｌｄ．\n\n ｺﾝﾆﾁﾊ　世界。ﾊﾞｰﾊﾞﾊﾟﾊﾟ、ハ゛ーハ゛ハ゜ハ゜、\u0001ｶ ｶｷ　ﾡￂﾡￂﾡￂﾣ 、ｶ〪ﾞ Hello World. ";
+    final OffsetMap.Builder builder = new OffsetMap.Builder();
+    assertEquals(CjkNormalizr.normalize(string), CjkNormalizr.normalize(string, new StringBuilder(), builder).toString());
+    final OffsetMap map = builder.build();
+    assertEquals(string.length(), map.sourceLength());
+    assertEquals(CjkNormalizr.normalize(string).length(), map.resultLength());
+    assertEquals("ｺﾝﾆﾁﾊ", string.substring(map.toSource(13), map.toSourceEnd(18)));
+    assertEquals("ﾊﾞｰﾊﾞﾊﾟﾊﾟ", string.substring(map.toSource(22), map.toSourceEnd(27)));
+  }
+
+  @Test
+  void testPieces() {
+    final List<String> pieces = new ArrayList<>();
+    final CjkNormalizr.Receivr receivr = (text, start, end) -> pieces.add(text.subSequence(start, end).toString());
+    CjkNormalizr.normalize("\uFF71\uFF72\uFF73\u6F22\uFF76\uFF9E\u3000\uFF21", receivr, null);
+    assertEquals(List.of("\u30A2\u30A4\u30A6", "\u6F22", "\u30AC", " ", "A"), pieces);
+
+    pieces.clear();
+    CjkNormalizr.normalize("\uFF76\uFF9E" + "\uFF71".repeat(1000) + " \uFF9E", receivr, null);
+    assertEquals("\u30AC" + "\u30A2".repeat(1000) + "\u309B", String.join("", pieces));
+    assertTrue(pieces.stream().allMatch((piece) -> piece.length() <= 256), "folded in bounded pieces");
+
+    final Random random = new Random(20180105L);
+    final String blanks = " \u3000\n\t\u0001\u00A0\u2010\u1100\u1161\u11A8a";
+    final StringBuilder normalized = new StringBuilder();
+    final CjkNormalizr.Receivr appending = (text, start, end) -> normalized.append(text, start, end);
+    for (int i = 0; i < 20_000; i++) {
+      final StringBuilder string = new StringBuilder();
+      IntStream.range(0, random.nextInt(10)).map((j) -> random.nextInt(3)).forEach((j) -> string.append(j == 0 ? (char) (0x3000 + random.nextInt(0x0100)) : j == 1 ? (char) (0xFF00 + random.nextInt(0x00F0)) : blanks.charAt(random.nextInt(blanks.length()))));
+      normalized.setLength(0);
+      CjkNormalizr.normalize(string, appending, null);
+      assertEquals(CjkNormalizr.normalize(string, new StringBuilder()).toString(), normalized.toString(), string::toString);
+    }
+  }
+
+  @Test
+  void testIsSeparable() {
+    assertTrue(CjkNormalizr.isSeparable('a', 'b'));
+    assertTrue(CjkNormalizr.isSeparable('漢', 'ｶ'));
+    assertTrue(CjkNormalizr.isSeparable('ｶ', 'ｶ'));
+    assertFalse(CjkNormalizr.isSeparable('ｶ', 'ﾞ'));
+    assertFalse(CjkNormalizr.isSeparable('か', '\u3099'));
+    assertFalse(CjkNormalizr.isSeparable('ﾡ', 'ￂ'));
+    assertFalse(CjkNormalizr.isSeparable('ｶ', '〪'));
+    assertFalse(CjkNormalizr.isSeparable('〪', 'ｶ'));
+    assertFalse(CjkNormalizr.isSeparable('a', '\u3000'));
+    assertFalse(CjkNormalizr.isSeparable('\u0001', 'a'));
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
+import jp.furplag.text.optimize.Optimizr;
+
+public class EditrTest {
+
+  private static final String[] elements = {
+    "ｶ", "ﾞ", "ﾟ", "ﾊ", "か", "゛", "゙", " ", "　", "\n", "\t", "\u0001", "a", "B", "漢", "字", "－", "‐", "ｱ", "ﾝ", "ﾍﾟ", "ﾡ", "ￂ", "한", "〪", "ゟ", "Ａ", "𠀋", "。", "ー"
+  };
+
+  @Test
+  void test() {
+    final Editr editr = Editr.normalize("ｺﾝﾆﾁﾊ　世界");
+    assertEquals(Editr.Method.NORMALIZE, editr.method());
+    assertEquals("ｺﾝﾆﾁﾊ　世界", editr.source());
+    assertEquals("コンニチハ 世界", editr.result());
+    assertEquals("コンニチハ 世界", editr.toString());
+    assertEquals(OffsetMap.identity(8), editr.offsets());
+
+    final Editr edited = editr.edit(6, 8, "ｾｶｲ");
+    assertEquals("ｺﾝﾆﾁﾊ　ｾｶｲ", edited.source());
+    assertEquals("コンニチハ セカイ", edited.result());
+    assertEquals(6, edited.offsets().toSource(6));
+    assertEquals("コンニチハ 世界", editr.result(), "never changes");
+
+    assertEquals("", Editr.normalize(null).result());
+    assertEquals("a", Editr.normalize(null).edit(0, 0, "ａ").result());
+    assertEquals("", Editr.optimize("abc").edit(0, 3, null).result());
+    assertEquals(Editr.Method.OPTIMIZE, Editr.optimize("abc").method());
+    assertThrows(IndexOutOfBoundsException.class, () -> Editr.normalize("abc").edit(2, 4, ""));
+    assertThrows(IndexOutOfBoundsException.class, () -> Editr.normalize("abc").edit(2, 1, ""));
+    assertThrows(NullPointerException.class, () -> Editr.of(null, "abc"));
+  }
+
+  @Test
+  void testOffsets() {
+    final Editr editr = Editr.normalize("ｶﾞｯｺｳ　ﾆ　ｲｸ").edit(6, 7, "ﾊﾞｽﾃﾞ");
+    assertEquals("ガッコウ バスデ イク", editr.result());
+    assertEquals(6, editr.offsets().toSource(5));
+    assertEquals(11, editr.offsets().toSourceEnd(8));
+    assertEquals("ﾊﾞｽﾃﾞ", editr.source().substring(editr.offsets().toSource(5), editr.offsets().toSourceEnd(8)));
+  }
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(20171231L);
+    for (Editr.Method method : Editr.Method.values()) {
+      IntStream.range(0, 2_000).forEach((i) -> {
+        Editr editr = Editr.of(method, text(random, random.nextInt(40)));
+        for (int j = 0; j < 5; j++) {
+          final int start = random.nextInt(editr.source().length() + 1);
+          final int end = start + random.nextInt(editr.source().length() - start + 1);
+          final Editr edited = editr.edit(start, end, text(random, random.nextInt(4)));
+          final Editr expect = Editr.of(method, edited.source());
+          assertEquals(method == Editr.Method.NORMALIZE ? CjkNormalizr.normalize(edited.source()) : Optimizr.optimize(edited.source()), edited.result(), edited.source());
+          assertEquals(expect.offsets(), edited.offsets(), edited.source());
+          editr = edited;
+        }
+      });
+    }
+  }
+
+  @Test
+  void testLocality() {
+    final Random random = new Random(20180101L);
+    final StringBuilder document = new StringBuilder();
+    while (document.length() < 1 << 16) document.append("ｶﾞｯｺｳ へ 行く。\n").append(text(random, 8)).append("漢字");
+    final Editr editr = Editr.normalize(document);
+    final Editr edited = editr.edit(1 << 15, (1 << 15) + 1, "ﾃｽﾄ");
+    assertEquals(CjkNormalizr.normalize(edited.source()), edited.result());
+    assertSame(editr.method(), edited.method());
+  }
+
+  private static String text(final Random random, final int length) {
+    return IntStream.range(0, length).mapToObj((i) -> elements[random.nextInt(elements.length)]).reduce("", String::concat);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class FingerprintrTest {
+
+  @Test
+  void testHash() {
+    assertArrayEquals(new long[] {0L, 0L}, Fingerprintr.hash128(null));
+    assertArrayEquals(new long[] {0L, 0L}, Fingerprintr.hash128(""));
+    assertArrayEquals(new long[] {0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L}, Fingerprintr.hash128("hello"));
+    assertArrayEquals(new long[] {0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L}, Fingerprintr.hash128("The quick brown fox jumps over the lazy dog"));
+    assertArrayEquals(new long[] {0x5831a40da036cae9L, 0x85ddc842d9a49ee4L}, Fingerprintr.hash128("ヤマダ タロウ"));
+    assertArrayEquals(new long[] {0x332669d73b0cf952L, 0x9a070441d86c3422L}, Fingerprintr.hash128("𠮷野家"));
+    assertEquals(0xcbd8a7b341bd9b02L, Fingerprintr.hash("hello"));
+    assertEquals(Fingerprintr.hash("hello"), Fingerprintr.hash(new StringBuilder("hello")));
+    assertEquals(Fingerprintr.hash("?"), Fingerprintr.hash("\uD842"));
+    assertEquals(Fingerprintr.hash("a?b?"), Fingerprintr.hash("a\uDFB7b\uD842"));
+  }
+
+  @Test
+  void testFingerprint() {
+    assertEquals(0L, Fingerprintr.Normalizr.fingerprint(null));
+    assertEquals(0L, Fingerprintr.Normalizr.fingerprint(" \t\n"));
+    assertEquals(0x5831a40da036cae9L, Fingerprintr.Normalizr.fingerprint("ﾔﾏﾀﾞ　ﾀﾛｳ"));
+    assertEquals(0x5831a40da036cae9L, Fingerprintr.Katakanizr.fingerprint(" やまだ　たろう "));
+    assertNotEquals(0x5831a40da036cae9L, Fingerprintr.Normalizr.fingerprint(" やまだ　たろう "));
+    assertArrayEquals(new long[] {0x5831a40da036cae9L, 0x85ddc842d9a49ee4L}, Fingerprintr.Katakanizr.fingerprint128(CharBuffer.wrap("ﾔﾏﾀﾞ　たろう")));
+  }
+
+  @Test
+  void testEquivalence() {
+    final String[] elements = {"ア", "か", "ｶ", "ﾞ", "ﾊﾟ", "ヷ", "ゔ", "ゞ", "ー", "･", "゛", "゙", " ", "　", "\n", "\r\n", "\t", "\u0001", "\u0085", " ", "‐", "Ａ", "a", "é", "ß", "€", "𠮷", "\uD842", "\uDFB7", "漢", "ﾡ", "￣"};
+    final Random random = new Random(20180106L);
+    for (int i = 0; i < 20_000; i++) {
+      final String string = IntStream.range(0, random.nextInt(40)).mapToObj((j) -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertArrayEquals(Fingerprintr.hash128(CjkNormalizr.normalize(string)), Fingerprintr.Normalizr.fingerprint128(string), string);
+      assertArrayEquals(Fingerprintr.hash128(Kanizr.katakanize(string)), Fingerprintr.Katakanizr.fingerprint128(string), string);
+    }
+    final String string = "\uFF8A\uFF9E\uFF70\uFF8A\uFF9E\uFF8A\uFF9F\uFF8A\uFF9F\u3000\uFF21\uFF22\uFF23 \u3042\u309B".repeat(10_000);
+    assertArrayEquals(Fingerprintr.hash128(CjkNormalizr.normalize(string)), Fingerprintr.Normalizr.fingerprint128(string));
+    assertArrayEquals(Fingerprintr.hash128(Kanizr.katakanize(string)), Fingerprintr.Katakanizr.fingerprint128(new StringBuilder(string)));
+  }
+}
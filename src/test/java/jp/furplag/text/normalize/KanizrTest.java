@@ -17,7 +17,20 @@ package jp.furplag.text.normalize;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.Character.UnicodeBlock;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import jp.furplag.sandbox.reflect.SavageReflection;
 
 public class KanizrTest {
 
@@ -66,4 +79,66 @@ public class KanizrTest {
     assertEquals("パ～ヤン", Kanizr.katakanize("パ～やん"));
     assertEquals("アレン・ギンズバーグ", Kanizr.katakanize("ｱﾚﾝ･ｷﾞﾝｽﾞﾊﾞｰｸﾞ"));
   }
+
+  @Test
+  void testTranslate() throws SecurityException, ReflectiveOperationException {
+    Method translate = Kanizr.class.getDeclaredMethod("translate", int.class);
+    translate.setAccessible(true);
+    Object hiraganizr = SavageReflection.get(Kanizr.class, "Hiraganizr");
+    Object katakanizr = SavageReflection.get(Kanizr.class, "Katakanizr");
+    Set<Integer> hiraganizrExclusions = Set.of(12448, 12535, 12536, 12537, 12538, 12539, 12540, 12543);
+    Set<Integer> katakanizrExclusions = Set.of(12352, 12439, 12440, 12441, 12442, 12443, 12444, 12447);
+    for (int codePoint = Character.MIN_CODE_POINT; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+      assertEquals(codePoint + (!hiraganizrExclusions.contains(codePoint) && UnicodeBlock.KATAKANA.equals(UnicodeBlock.of(codePoint)) ? -96 : 0), translate.invoke(hiraganizr, codePoint));
+      assertEquals(codePoint + (!katakanizrExclusions.contains(codePoint) && UnicodeBlock.HIRAGANA.equals(UnicodeBlock.of(codePoint)) ? 96 : 0), translate.invoke(katakanizr, codePoint));
+    }
+  }
+
+  @Test
+  void testAppendable() {
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, Kanizr.hiraganize(null, sb));
+    assertSame(sb, Kanizr.katakanize("", sb));
+    assertEquals("> ばーばぱぱ", Kanizr.hiraganize("ﾊﾞｰﾊﾞﾊﾟﾊﾟ", sb).toString());
+
+    final String string = " ｺﾝﾆﾁﾊ　世界。ﾊﾞｰﾊﾞﾊﾟﾊﾟ、ハ゛ーハ゛ハ゜ハ゜、あ゚い゚う゚え゚お゚な゙に゙ぬ゙ね゙の゙、ヷヸヴヹヺ、ｱﾚﾝ･ｷﾞﾝｽﾞﾊﾞｰｸﾞ ";
+    assertEquals(Kanizr.hiraganize(string), Kanizr.hiraganize(CharBuffer.wrap(string), new StringWriter()).toString());
+    assertEquals(Kanizr.katakanize(string), Kanizr.katakanize(new StringBuilder(string), new StringWriter()).toString());
+
+    final StringBuilder written = new StringBuilder();
+    assertThrows(UncheckedIOException.class, () -> Kanizr.hiraganize("\uFF71\uFF72\uFF73", new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) throws IOException {
+        throw new IOException();
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        throw new IOException();
+      }
+
+      @Override
+      public Appendable append(char c) throws IOException {
+        if (written.length() > 1) throw new IOException();
+        written.append(c);
+
+        return this;
+      }
+    }));
+    assertEquals("\u3042\u3044", written.toString(), "written into the result directly");
+  }
+
+  @Test
+  void testFused() {
+    final String[] elements = {"ア", "か", "ｶ", "ﾞ", "ﾟ", "ﾊﾟ", "ヷ", "ヺ", "ゔ", "ヽ", "ゞ", "ー", "･", "゛", "゜", "\u3099", "\u309A", " ", "　", "\n", "\r\n", "\t", "\u0001", "\u0085", "\u00A0", "\u001C", "\u2010", "-", "Ａ", "ａ", "A", "２", "～", "\uD842\uDFB7", "漢", "\u302A", "ﾡ", "ﾤ", "\uFFE3"};
+    final Random random = new Random(20180104L);
+    for (int i = 0; i < 20_000; i++) {
+      final String string = IntStream.range(0, random.nextInt(16)).mapToObj((j) -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      final String normalized = CjkNormalizr.normalize(string);
+      final String hiraganized = normalized.chars().mapToObj((c) -> c >= 0x30F7 && c <= 0x30FA ? "\u308F\u3090\u3091\u3092".charAt(c - 0x30F7) + "\u309B" : String.valueOf((char) ((c > 0x30A0 && c < 0x30F7) || c == 0x30FD || c == 0x30FE ? c - 96 : c))).collect(Collectors.joining());
+      final String katakanized = normalized.chars().mapToObj((c) -> String.valueOf((char) ((c > 0x3040 && c < 0x3097) || c == 0x309D || c == 0x309E ? c + 96 : c))).collect(Collectors.joining());
+      assertEquals(hiraganized, Kanizr.hiraganize(new StringBuilder(string), new StringBuilder()).toString(), string);
+      assertEquals(katakanized, Kanizr.katakanize(new StringBuilder(string), new StringBuilder()).toString(), string);
+    }
+  }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.sandbox.reflect.SavageReflection;
+
+public class MemoizrTest {
+
+  @Test
+  void test() {
+    assertEquals(Memoizr.maximumWeight > 0, Memoizr.Normalizr.isEnabled());
+    assertEquals(Memoizr.maximumWeight > 0, Memoizr.Hiraganizr.isEnabled());
+    assertEquals(Memoizr.maximumWeight > 0, Memoizr.Katakanizr.isEnabled());
+    final AtomicInteger calls = new AtomicInteger();
+    final Memoizr memoizr = new Memoizr(0, 256);
+    assertFalse(memoizr.isEnabled());
+    assertEquals("ABC", memoizr.apply("abc", counting(calls, String::toUpperCase)));
+    assertEquals("ABC", memoizr.apply("abc", counting(calls, String::toUpperCase)));
+    assertEquals(2, calls.get());
+    assertEquals("hit: 0, miss: 0, bypass: 0, eviction: 0, rejection: 0, size: 0, weight: 0", memoizr.statistics().toString());
+    assertEquals(1d, memoizr.statistics().hitRate());
+  }
+
+  @Test
+  void testApply() {
+    final AtomicInteger calls = new AtomicInteger();
+    final Memoizr memoizr = new Memoizr(1 << 16, 256);
+    assertTrue(memoizr.isEnabled());
+    final String first = memoizr.apply("ｺﾝﾆﾁﾊ　世界", counting(calls, CjkNormalizr::normalize));
+    assertEquals("コンニチハ 世界", first);
+    assertSame(first, memoizr.apply("ｺﾝﾆﾁﾊ　世界", counting(calls, CjkNormalizr::normalize)));
+    assertSame(first, memoizr.apply(new String("ｺﾝﾆﾁﾊ　世界"), counting(calls, CjkNormalizr::normalize)));
+    assertEquals(1, calls.get());
+    assertEquals(1, memoizr.statistics().missCount());
+    assertEquals(2, memoizr.statistics().hitCount());
+    assertEquals(2d / 3d, memoizr.statistics().hitRate());
+    assertEquals(1, memoizr.statistics().size());
+    assertEquals("ｺﾝﾆﾁﾊ　世界".length() + first.length(), memoizr.statistics().weight());
+
+    final String normalized = "Hello World.";
+    assertEquals(normalized, memoizr.apply(normalized, counting(calls, CjkNormalizr::normalize)));
+    assertEquals("ｺﾝﾆﾁﾊ　世界".length() + first.length() + normalized.length(), memoizr.statistics().weight(), "unchanged result shares the input");
+    assertSame(normalized, memoizr.apply(normalized, counting(calls, CjkNormalizr::normalize)));
+
+    memoizr.invalidateAll();
+    assertEquals("hit: 0, miss: 0, bypass: 0, eviction: 0, rejection: 0, size: 0, weight: 0", memoizr.statistics().toString());
+    assertNotSame(first, memoizr.apply("ｺﾝﾆﾁﾊ　世界", counting(calls, CjkNormalizr::normalize)));
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void testBypass() {
+    final AtomicInteger calls = new AtomicInteger();
+    final Memoizr memoizr = new Memoizr(1 << 16, 8);
+    final String string = "ｺﾝﾆﾁﾊ　世界 ｺﾝﾆﾁﾊ　世界";
+    IntStream.range(0, 3).forEach((i) -> assertEquals("コンニチハ 世界 コンニチハ 世界", memoizr.apply(string, counting(calls, CjkNormalizr::normalize))));
+    assertEquals(3, calls.get());
+    assertEquals(3, memoizr.statistics().bypassCount());
+    assertEquals(0, memoizr.statistics().missCount());
+    assertEquals(0, memoizr.statistics().size());
+  }
+
+  @Test
+  void testWeight() {
+    final Memoizr memoizr = new Memoizr(1 << 12, 256, 1);
+    IntStream.range(0, 10_000).mapToObj((i) -> String.format("%08d", i)).forEach((key) -> {
+      memoizr.apply(key, (k) -> k + "!");
+      memoizr.apply(key, (k) -> k + "!");
+      assertTrue(memoizr.statistics().weight() <= 1 << 12);
+    });
+    final Memoizr.Statistics statistics = memoizr.statistics();
+    assertTrue(statistics.evictionCount() > 0);
+    assertEquals(statistics.size() * 17, statistics.weight());
+    assertEquals(20_000, statistics.hitCount() + statistics.missCount());
+
+    assertEquals("!".repeat(1 << 13), new Memoizr(1 << 12, 1 << 12, 1).apply("a".repeat(1 << 12), (k) -> "!".repeat(1 << 13)), "too heavy to cache");
+  }
+
+  @Test
+  void testFrequency() {
+    final Memoizr memoizr = new Memoizr(1 << 12, 256, 1);
+    final List<String> frequents = new ArrayList<>();
+    IntStream.range(0, 64).mapToObj((i) -> String.format("frequent%08d", i)).forEach(frequents::add);
+    final AtomicInteger calls = new AtomicInteger();
+    // a frequent key comes again after 512 one-hit wonders, least recently used policy would have evicted it .
+    for (int i = 0; i < 40_000; i++) {
+      if (i == 20_000) calls.set(0);
+      memoizr.apply(i % 8 == 0 ? frequents.get(i / 8 % frequents.size()) : String.format("rare%08d", i), counting(calls, UnaryOperator.identity()));
+    }
+    assertTrue(memoizr.statistics().rejectionCount() > 0);
+    final int rares = 20_000 - 20_000 / 8;
+    assertTrue(calls.get() - rares < 20_000 / 8 / 10, "frequent keys never flushed out by one-hit wonders");
+  }
+
+  @Test
+  void testSketch() throws ReflectiveOperationException {
+    final Class<?> sketchClass = Class.forName(Memoizr.class.getName() + "$Sketch");
+    final Constructor<?> constructor = sketchClass.getDeclaredConstructor(int.class);
+    constructor.setAccessible(true);
+    final Method increment = sketchClass.getDeclaredMethod("increment", int.class);
+    increment.setAccessible(true);
+    final Method frequency = sketchClass.getDeclaredMethod("frequency", int.class);
+    frequency.setAccessible(true);
+    final Method halve = sketchClass.getDeclaredMethod("halve");
+    halve.setAccessible(true);
+
+    final Object sketch = constructor.newInstance(1 << 10);
+    assertEquals((1 << 14) / 2, ((byte[]) SavageReflection.get(sketch, "table")).length, "two counters in a byte");
+    for (int i = 0; i < 20; i++) increment.invoke(sketch, 1);
+    for (int i = 0; i < 9; i++) increment.invoke(sketch, 2);
+    assertEquals(15, frequency.invoke(sketch, 1), "saturates at 15");
+    assertEquals(9, frequency.invoke(sketch, 2));
+    assertEquals(0, frequency.invoke(sketch, 3));
+    halve.invoke(sketch);
+    assertEquals(7, frequency.invoke(sketch, 1));
+    assertEquals(4, frequency.invoke(sketch, 2), "halving never leaks between the neighbours");
+    assertEquals(0, frequency.invoke(sketch, 3));
+  }
+
+  @Test
+  void testConcurrency() throws Exception {
+    final Memoizr memoizr = new Memoizr(1 << 13, 256, 4);
+    final List<String> keys = new ArrayList<>();
+    IntStream.range(0, 2_000).mapToObj((i) -> String.format("ｺﾝﾆﾁﾊ　世界%d", i)).forEach(keys::add);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          int failures = 0;
+          for (int i = 0; i < 20_000; i++) {
+            final String key = keys.get(ThreadLocalRandom.current().nextInt(i % 3 == 0 ? keys.size() : 32));
+            failures += memoizr.apply(key, CjkNormalizr::normalize).equals(key.replace("ｺﾝﾆﾁﾊ　", "コンニチハ ")) ? 0 : 1;
+          }
+
+          return failures;
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        assertEquals(0, future.get().intValue());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    final Memoizr.Statistics statistics = memoizr.statistics();
+    assertEquals(160_000, statistics.hitCount() + statistics.missCount());
+    assertTrue(statistics.weight() <= 1 << 13);
+    assertTrue(statistics.hitRate() > .5, statistics::toString);
+  }
+
+  @Test
+  void testNormalizr() {
+    assertEquals(CjkNormalizr.normalize("ｺﾝﾆﾁﾊ　世界"), Memoizr.Normalizr.apply("ｺﾝﾆﾁﾊ　世界", CjkNormalizr::normalize));
+    assertEquals("こんにちは 世界", Kanizr.hiraganize("ｺﾝﾆﾁﾊ　世界"));
+    assertEquals("こんにちは 世界", Kanizr.hiraganize("ｺﾝﾆﾁﾊ　世界"));
+    assertEquals("コンニチハ 世界", Kanizr.katakanize("こんにちは　世界"));
+    assertEquals("コンニチハ 世界", Kanizr.katakanize("こんにちは　世界"));
+  }
+
+  private static UnaryOperator<String> counting(final AtomicInteger calls, final UnaryOperator<String> function) {
+    return (key) -> {
+      calls.incrementAndGet();
+
+      return function.apply(key);
+    };
+  }
+}
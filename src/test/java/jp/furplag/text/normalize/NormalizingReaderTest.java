@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class NormalizingReaderTest {
+
+  static String read(Reader reader, int length) throws IOException {
+    final StringBuilder result = new StringBuilder();
+    final char[] chars = new char[length];
+    try (reader) {
+      for (int read; (read = reader.read(chars)) > -1;) {
+        result.append(chars, 0, read);
+      }
+    }
+
+    return result.toString();
+  }
+
+  @Test
+  void test() throws IOException {
+    assertThrows(NullPointerException.class, () -> new NormalizingReader(null));
+    assertThrows(IllegalArgumentException.class, () -> new NormalizingReader(new StringReader(""), -1));
+    assertEquals("", read(new NormalizingReader(new StringReader("")), 16));
+    assertEquals("", read(new NormalizingReader(new StringReader(" 　\n\u0001"), 1), 16));
+    assertEquals("醜悪な 入力値(セクシャルヴァイオレット#1)", read(new NormalizingReader(new StringReader("醜悪な　入力値（ｾｸｼｬﾙｳﾞｧｲｵﾚｯﾄ＃１）"), 4), 1));
+    assertEquals("Mr. Copy&Paste", read(new NormalizingReader(new StringReader("Mr.\t Copy&Ｐａｓｔｅ\r\n"), 2), 3));
+    assertEquals("バーバパパ", read(new NormalizingReader(new StringReader("ﾊﾞｰﾊﾞﾊﾟﾊﾟ"), 3), 2));
+  }
+
+  @Test
+  void testChunked() throws IOException {
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0x0000, 0x00A0).filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 8 == 0), IntStream.of(0x2010, 0x2028, 0x302A, 0x3042, 0x304B, 0x306F, 0x3099, 0x309A, 0x309B, 0x309C, 0x30AB, 0x30CF, 0x30EF, 0x30FF, 0x4E16, 0xFF21, 0xFF5E, 0xFF76, 0xFF8A, 0xFF9E, 0xFF9F, 0xFFA1, 0xFFC2, 0xFFA3, 0xFFE3, 0x1F600))
+      .mapToObj(codePoint -> new String(Character.toChars(codePoint))).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    for (int i = 0; i < 1000; i++) {
+      final String uglified = IntStream.range(0, random.nextInt(256)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(CjkNormalizr.normalize(uglified), read(new NormalizingReader(new StringReader(uglified), random.nextInt(32) + 32), random.nextInt(8) + 1), uglified);
+    }
+  }
+}
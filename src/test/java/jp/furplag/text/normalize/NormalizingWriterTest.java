@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class NormalizingWriterTest {
+
+  static String normalize(int bufferSize, String... texts) throws IOException {
+    final StringWriter result = new StringWriter();
+    try (NormalizingWriter writer = new NormalizingWriter(result, bufferSize)) {
+      for (String text : texts) {
+        writer.write(text);
+      }
+    }
+
+    return result.toString();
+  }
+
+  @Test
+  void test() throws IOException {
+    assertThrows(NullPointerException.class, () -> new NormalizingWriter(null));
+    assertThrows(IllegalArgumentException.class, () -> new NormalizingWriter(new StringWriter(), 0));
+    assertEquals("", normalize(4));
+    assertEquals("", normalize(4, " ", "　", "\n", "\u0001"));
+    assertEquals("Hello World.", normalize(4, "Ｈｅｌｌｏ", "　", "Ｗｏｒｌｄ．"));
+    assertEquals("コンニチハ 世界", normalize(4, "ｺﾝﾆﾁﾊ", "　", "世界"));
+    assertEquals("バーバパパ", normalize(4, "ﾊ", "ﾞｰﾊ", "ﾞ", "ﾊﾟﾊ", "ﾟ"));
+    assertEquals("バーバパパ", normalize(2, "ハ", "゛ーハ゛ハ", "゜ハ", "゜"));
+    assertEquals("ヷヸヴヹヺ", normalize(3, "ワ", "゛", "ヰ゛ウ", "゛ヱ゛ヲ", "゛"));
+    assertEquals("가가갃", normalize(8, "ﾡ", "ￂﾡￂ", "ﾡￂ", "ﾣ"));
+    assertEquals("醜悪な 入力値(セクシャルヴァイオレット#1)", normalize(5, "醜悪な　", "入力値（ｾｸｼｬﾙｳ", "ﾞｧｲｵﾚｯﾄ＃１）"));
+    assertEquals("Mr. Copy&Paste", normalize(2, "Mr.\t ", "Copy&Ｐａｓｔｅ\r", "\n"));
+    assertEquals("the\nString.", normalize(3, "the  ", "\n　", "\n", "String.\n", "\n\n"));
+  }
+
+  @Test
+  void testFlush() throws IOException {
+    final StringWriter result = new StringWriter();
+    try (NormalizingWriter writer = new NormalizingWriter(result, 16)) {
+      writer.write(" ｶ ｶｷ ｶ");
+      writer.flush();
+      assertEquals("カ カキ", result.toString());
+      writer.write("ﾞ");
+      writer.flush();
+      assertEquals("カ カキ", result.toString());
+    }
+    assertEquals("カ カキ ガ", result.toString());
+    assertEquals("コド", normalize(4, "ヿ", " ", "゙"));
+  }
+
+  @Test
+  void testIsBoundary() {
+    assertTrue(NormalizingWriter.isBoundary('a'));
+    assertFalse(NormalizingWriter.isBoundary(' '));
+    assertTrue(NormalizingWriter.isBoundary('\n'));
+    assertTrue(NormalizingWriter.isBoundary('あ'));
+    assertTrue(NormalizingWriter.isBoundary('ア'));
+    assertTrue(NormalizingWriter.isBoundary('字'));
+    assertFalse(NormalizingWriter.isBoundary('゙'));
+    assertFalse(NormalizingWriter.isBoundary('゛'));
+    assertFalse(NormalizingWriter.isBoundary('ﾞ'));
+    assertTrue(NormalizingWriter.isBoundary('ｶ'));
+    assertTrue(NormalizingWriter.isBoundary('　'));
+    assertFalse(NormalizingWriter.isBoundary('ￂ'));
+    assertFalse(NormalizingWriter.isBoundary('〪'));
+    assertFalse(NormalizingWriter.isBoundary('\uDE00'));
+  }
+
+  @Test
+  void testChunked() throws IOException {
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0x0000, 0x00A0).filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 8 == 0), IntStream.of(0x2010, 0x2028, 0x302A, 0x3042, 0x304B, 0x306F, 0x3099, 0x309A, 0x309B, 0x309C, 0x30AB, 0x30CF, 0x30EF, 0x30FF, 0x4E16, 0xFF21, 0xFF5E, 0xFF76, 0xFF8A, 0xFF9E, 0xFF9F, 0xFFA1, 0xFFC2, 0xFFA3, 0xFFE3, 0x1F600))
+      .mapToObj(codePoint -> new String(Character.toChars(codePoint))).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    for (int i = 0; i < 1000; i++) {
+      final String uglified = IntStream.range(0, random.nextInt(64)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      final StringWriter result = new StringWriter();
+      try (NormalizingWriter writer = new NormalizingWriter(result, 32)) {
+        for (int position = 0, end; position < uglified.length(); position = end) {
+          end = Math.min(uglified.length(), position + random.nextInt(8) + 1);
+          writer.write(uglified.toCharArray(), position, end - position);
+        }
+      }
+      assertEquals(CjkNormalizr.normalize(uglified), result.toString(), uglified);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.normalize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.normalize.SearchKeyr.Folding;
+import jp.furplag.text.optimize.Optimizr;
+
+public class SearchKeyrTest {
+
+  @Test
+  void test() {
+    assertNull(SearchKeyr.of(Folding.values()).key(null));
+    assertEquals("", SearchKeyr.of(Folding.values()).key(""));
+    assertEquals(" ｱｲｳ　あいう\tＡｂＣ ", SearchKeyr.of().key(" ｱｲｳ　あいう\tＡｂＣ "));
+    assertEquals(" ｱｲｳ　あいう\tＡｂＣ ", SearchKeyr.of((Folding[]) null).key(" ｱｲｳ　あいう\tＡｂＣ "));
+    assertEquals("アイウ あいう AbC", SearchKeyr.of(Folding.WIDTH).key(" ｱｲｳ　あいう\tＡｂＣ "));
+    assertEquals(" ｱｲｳ　アイウ\tＡｂＣ ", SearchKeyr.of(Folding.KANA).key(" ｱｲｳ　あいう\tＡｂＣ "));
+    assertEquals("ｱｲｳ あいう ＡｂＣ", SearchKeyr.of(Folding.SPACE).key(" ｱｲｳ　あいう\u0001\tＡｂＣ "));
+    assertEquals(" ｱｲｳ　あいう\tａｂｃ ", SearchKeyr.of(Folding.CASE).key(" ｱｲｳ　あいう\tＡｂＣ "));
+    assertEquals("アイウ アイウ abc", SearchKeyr.of(Folding.values()).key(" ｱｲｳ　あいう\tＡｂＣ "));
+    assertEquals("ヤマダ タロウ taro", SearchKeyr.of(Folding.values()).key("ﾔﾏﾀﾞ　たろう\nＴａｒｏ"));
+    assertEquals("ヤマダ タロウ\ntaro", SearchKeyr.of(Folding.WIDTH, Folding.KANA, Folding.CASE).key("ﾔﾏﾀﾞ　たろう\nＴａｒｏ"));
+    assertEquals("σσ ss 𐐨", SearchKeyr.of(Folding.CASE).key("Σς SS 𐐀"));
+  }
+
+  @Test
+  void testAppendable() {
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, SearchKeyr.of(Folding.values()).key(null, sb));
+    assertSame(sb, SearchKeyr.of(Folding.values()).key("", sb));
+    assertEquals("> ヤマダ タロウ", SearchKeyr.of(Folding.values()).key(" ﾔﾏﾀﾞ　たろう ", sb).toString());
+    assertEquals("ヤマダ タロウ", SearchKeyr.of(Folding.values()).key(" ﾔﾏﾀﾞ　たろう ", new StringWriter()).toString());
+  }
+
+  @Test
+  void testFoldings() {
+    assertEquals(EnumSet.allOf(Folding.class), SearchKeyr.of(Folding.values()).foldings());
+    assertEquals(Set.of(Folding.WIDTH, Folding.KANA), SearchKeyr.of(Folding.KANA, null, Folding.WIDTH, Folding.KANA).foldings());
+    assertEquals(SearchKeyr.of(Folding.KANA, Folding.WIDTH), SearchKeyr.of(Folding.WIDTH, Folding.KANA));
+    assertEquals(SearchKeyr.of(Folding.KANA, Folding.WIDTH).hashCode(), SearchKeyr.of(Folding.WIDTH, Folding.KANA).hashCode());
+    assertNotEquals(SearchKeyr.of(Folding.KANA), SearchKeyr.of(Folding.WIDTH, Folding.KANA));
+    assertEquals("[WIDTH, CASE]", SearchKeyr.of(Folding.CASE, Folding.WIDTH).toString());
+  }
+
+  @Test
+  void testEquivalence() {
+    final String[] elements = {"ア", "か", "ｶ", "ﾞ", "ﾊﾟ", "ヷ", "ゔ", "ゞ", "ー", "･", "゛", "゙", " ", "　", "\n", "\r\n", "\t", "\u0001", "\u0085", " ", "\u001C", "‐", "Ａ", "ａ", "A", "ß", "Σ", "ς", "İ", "𐐀", "𠮷", "\uD842", "漢", "ﾡ", "￣"};
+    final Folding[] foldings = Folding.values();
+    final Random random = new Random(20180105L);
+    for (int i = 0; i < 20_000; i++) {
+      final String string = IntStream.range(0, random.nextInt(16)).mapToObj((j) -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      final Set<Folding> folds = IntStream.range(0, foldings.length).filter((j) -> random.nextBoolean()).mapToObj((j) -> foldings[j]).collect(Collectors.toCollection(() -> EnumSet.noneOf(Folding.class)));
+      String expect = folds.contains(Folding.WIDTH) ? CjkNormalizr.normalize(string) : string;
+      expect = folds.contains(Folding.SPACE) ? Optimizr.optimize(expect).replace('\n', ' ') : expect;
+      expect = folds.contains(Folding.KANA) ? expect.chars().map((c) -> (c > 0x3040 && c < 0x3097) || c == 0x309D || c == 0x309E ? c + 96 : c).collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString() : expect;
+      expect = folds.contains(Folding.CASE) ? expect.codePoints().map((c) -> Character.toLowerCase(Character.toUpperCase(c))).collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString() : expect;
+      assertEquals(expect, SearchKeyr.of(folds.toArray(Folding[]::new)).key(string), folds + ": " + string);
+    }
+    final String rows = "\uFF94\uFF8F\uFF80\uFF9E\u3000\uFF80\uFF9B\uFF73 \uFF34\uFF21\uFF32\uFF2F\n".repeat(1_000);
+    assertEquals(String.join(" ", Collections.nCopies(1_000, "\u30E4\u30DE\u30C0 \u30BF\u30ED\u30A6 taro")), SearchKeyr.of(Folding.values()).key(rows));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.offset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class OffsetMapTest {
+
+  @Test
+  void test() {
+    assertEquals("{}", new OffsetMap.Builder().build().toString());
+    assertEquals(0, new OffsetMap.Builder().build().toResult(0));
+    assertEquals("{0-10: 0-10}", OffsetMap.identity(10).toString());
+    assertEquals(OffsetMap.identity(10), new OffsetMap.Builder().copy(3).replace(2, 2).copy(0).copy(5).build());
+    assertEquals(OffsetMap.identity(10).hashCode(), new OffsetMap.Builder().copy(3).copy(7).build().hashCode());
+    assertNotEquals(OffsetMap.identity(10), OffsetMap.identity(9));
+    assertEquals(1, new OffsetMap.Builder().copy(3).replace(2, 2).copy(5).build().segments());
+    assertThrows(IllegalArgumentException.class, () -> new OffsetMap.Builder().copy(-1));
+    assertThrows(IllegalArgumentException.class, () -> new OffsetMap.Builder().replace(1, -1));
+  }
+
+  @Test
+  void testMapping() {
+    // "ab" + "ｶﾞ" -> "ガ" + "c" + "  " -> " " + "\u0001" -> "" + "d"
+    final OffsetMap map = new OffsetMap.Builder().copy(2).copy(1).compose(1).copy(1).replace(2, 1).replace(1, 0).copy(1).build();
+    assertEquals("{0-2: 0-2, 2-4: 2-3, 4-5: 3-4, 5-7: 4-5, 7-8: 5-5, 8-9: 5-6}", map.toString());
+    assertEquals(9, map.sourceLength());
+    assertEquals(6, map.resultLength());
+    assertEquals(6, map.segments());
+    assertEquals("0, 1, 2, 2, 3, 4, 4, 5, 5, 6", IntStream.rangeClosed(0, 9).mapToObj(map::toResult).map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse(""));
+    assertEquals("0, 1, 2, 3, 3, 4, 5, 5, 5, 6", IntStream.rangeClosed(0, 9).mapToObj(map::toResultEnd).map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse(""));
+    assertEquals("0, 1, 2, 4, 5, 8, 9", IntStream.rangeClosed(0, 6).mapToObj(map::toSource).map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse(""));
+    assertEquals("0, 1, 2, 4, 5, 7, 9", IntStream.rangeClosed(0, 6).mapToObj(map::toSourceEnd).map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse(""));
+    assertEquals("true, true, true, false, true, true, false, true, true, true", IntStream.rangeClosed(0, 9).mapToObj(map::isAligned).map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse(""));
+    assertFalse(map.isAligned(-1));
+    assertFalse(map.isAligned(10));
+  }
+
+  @Test
+  void testCompose() {
+    assertEquals("{0-1: 0-0, 1-3: 0-1}", new OffsetMap.Builder().compose(1).copy(1).compose(1).build().toString());
+    assertEquals("{0-1: 0-0, 1-2: 0-0, 2-3: 0-1}", new OffsetMap.Builder().replace(1, 0).compose(1).copy(1).build().toString());
+    assertEquals("{0-3: 0-3, 3-6: 3-4}", new OffsetMap.Builder().copy(4).compose(1).compose(1).build().toString());
+    assertEquals("{0-4: 0-2}", new OffsetMap.Builder().replace(3, 2).compose(1).build().toString());
+  }
+
+  @Test
+  void testDifference() {
+    assertEquals("{0-5: 0-5}", new OffsetMap.Builder().difference("abcde", "abcde").build().toString());
+    assertEquals("{0-2: 0-2, 2-4: 2-2, 4-5: 2-3}", new OffsetMap.Builder().difference("a   b", "a b").build().toString());
+    assertEquals("{0-2: 0-2, 2-2: 2-4}", new OffsetMap.Builder().difference("ab", "abab").build().toString());
+    assertEquals("{0-3: 0-0}", new OffsetMap.Builder().difference("abc", "").build().toString());
+  }
+
+  @Test
+  void testAndThen() {
+    final OffsetMap first = new OffsetMap.Builder().copy(2).replace(3, 1).copy(4).build();
+    final OffsetMap second = new OffsetMap.Builder().copy(1).replace(3, 2).copy(3).build();
+    assertEquals("{0-1: 0-1, 1-6: 1-3, 6-9: 3-6}", first.andThen(second).toString());
+    assertEquals(first, first.andThen(OffsetMap.identity(7)));
+    assertEquals(first, OffsetMap.identity(9).andThen(first));
+    assertEquals("{0-0: 0-1, 0-2: 1-3}", new OffsetMap.Builder().copy(2).build().andThen(new OffsetMap.Builder().replace(0, 1).copy(2).build()).toString());
+    assertEquals("{0-2: 0-0, 2-4: 0-2}", new OffsetMap.Builder().replace(2, 0).copy(2).build().andThen(OffsetMap.identity(2)).toString());
+    assertThrows(IllegalArgumentException.class, () -> first.andThen(OffsetMap.identity(8)));
+
+    final Random random = new Random(20171231L);
+    IntStream.range(0, 1000).forEach((i) -> {
+      final int[][] stages = IntStream.range(0, 3).mapToObj((j) -> IntStream.range(0, 64).map((k) -> random.nextInt(4)).toArray()).toArray(int[][]::new);
+      // each stage replaces a run of the same characters with a run of the length specified by the table .
+      String text = IntStream.range(0, 32).mapToObj((k) -> String.valueOf((char) ('a' + random.nextInt(3)))).reduce("", String::concat);
+      OffsetMap composed = OffsetMap.identity(text.length());
+      for (int[] stage : stages) {
+        final OffsetMap.Builder builder = new OffsetMap.Builder();
+        final StringBuilder result = new StringBuilder();
+        for (int start = 0, end; start < text.length(); start = end) {
+          end = start;
+          while (end < text.length() && text.charAt(end) == text.charAt(start)) end++;
+          final int length = stage[(end - start) % stage.length] + (text.charAt(start) == 'a' ? end - start : 0);
+          result.append(String.valueOf(text.charAt(start)).repeat(length));
+          builder.replace(end - start, length);
+        }
+        composed = composed.andThen(builder.build());
+        text = result.toString();
+      }
+      assertEquals(text.length(), composed.resultLength());
+      final OffsetMap map = composed;
+      IntStream.range(0, map.sourceLength()).forEach((k) -> {
+        assertTrue(map.toResult(k) <= map.toResult(k + 1));
+        assertTrue(map.toResultEnd(k) <= map.toResultEnd(k + 1));
+        assertTrue(map.toResult(k) <= map.toResultEnd(k + 1));
+      });
+      IntStream.range(0, map.resultLength()).forEach((k) -> {
+        assertTrue(map.toSource(k) <= map.toSource(k + 1));
+        assertTrue(map.toSourceEnd(k) <= map.toSourceEnd(k + 1));
+        assertTrue(map.toSource(k) <= map.toSourceEnd(k + 1));
+      });
+    });
+  }
+
+  @Test
+  void testAppend() {
+    final OffsetMap map = new OffsetMap.Builder().copy(2).replace(3, 1).copy(4).replace(0, 2).copy(1).replace(2, 0).build();
+    assertEquals(map, new OffsetMap.Builder().append(map).build());
+    assertEquals(map, new OffsetMap.Builder().append(map, 0, 5).append(map, 5, 9).append(map, 9, 12).build());
+    assertEquals(map, new OffsetMap.Builder().append(map, 0, 7).append(map, 7, 12).build());
+    assertEquals("{0-3: 0-3, 3-3: 3-5}", new OffsetMap.Builder().append(map, 6, 9).append(map, 9, 9).build().toString());
+    assertEquals("{0-0: 0-2, 0-1: 2-3}", new OffsetMap.Builder().append(map, 9, 10).build().toString());
+    assertEquals("{0-1: 0-1, 1-4: 1-2}", new OffsetMap.Builder().copy(1).append(map, 2, 5).build().toString());
+    assertThrows(IllegalArgumentException.class, () -> new OffsetMap.Builder().append(map, 3, 6));
+    assertThrows(IndexOutOfBoundsException.class, () -> new OffsetMap.Builder().append(map, 0, 13));
+  }
+}
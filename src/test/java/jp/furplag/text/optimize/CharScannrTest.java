@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class CharScannrTest {
+
+  /** characters which samples consist of . */
+  private static final String alphabet = "\u0000\t\n\r\u001C\u007F\u0085\u00A0\u00A1\u1680\u2000\u2007\u200A\u200B\u2010\u2028\u2029\u205F\u3000\u3041\uFF71\uFFFF";
+
+  @Test
+  void test() {
+    IntStream.rangeClosed(Character.MIN_VALUE, Character.MAX_VALUE).forEach((c) -> assertEquals(!Optimizr.isRemovable((char) c) && !Optimizr.isWhitespace((char) c), CharScannr.isPlain((char) c) || c == ' ', Integer.toHexString(c)));
+    assertEquals(Boolean.parseBoolean(System.getProperty(CharScannr.class.getName() + ".vectorized", "true")) && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && CharScannr.class.getClassLoader().getResource("jp/furplag/text/optimize/VectorCharScannr.class") != null, CharScannr.isVectorized());
+  }
+
+  @Test
+  void testSkip() {
+    assertEquals(0, CharScannr.of("").skip(0));
+    assertEquals(3, CharScannr.of("abc").skip(0));
+    assertEquals(0, CharScannr.of(" abc").skip(0));
+    assertEquals(5, CharScannr.of("ab cd").skip(0));
+    assertEquals(2, CharScannr.of("ab  cd").skip(0));
+    assertEquals(2, CharScannr.of("ab \ncd").skip(0));
+    assertEquals(2, CharScannr.of("ab ").skip(0));
+    assertEquals(4, CharScannr.of("ab c\u0085").skip(1));
+    assertEquals(4, CharScannr.of("ab c\u0085").skip(4));
+    assertEquals(5, CharScannr.of("ab c\u0085").skip(5));
+    assertEquals(2, CharScannr.of("abぁ cd").skipLatin(1));
+    assertEquals(6, CharScannr.of("abぁ cd").skip(0));
+    assertEquals(2, CharScannr.of("ab\u2010").skipLatin(0));
+    assertEquals(2, CharScannr.of("ab\u2010").skipLatin(2));
+    assertEquals(3, CharScannr.of("ab\u2010").skip(0));
+
+    final String plain = "the quick brown fox jumps over the lazy dog ".repeat(8).trim();
+    assertEquals(plain.length(), CharScannr.of(plain).skip(0));
+    assertEquals(plain.length(), CharScannr.of(new StringBuilder(plain)).skipLatin(0));
+    assertEquals(plain.length(), CharScannr.of(plain + "\n").skip(0));
+    assertEquals(100, CharScannr.of(new StringBuilder(plain).replace(100, 101, "\t")).skip(7));
+    assertEquals(100, CharScannr.of(new StringBuilder(plain).replace(100, 101, "  ")).skip(7));
+  }
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(15);
+    for (int i = 0; i < 2_000; i++) {
+      final char[] chars = new char[random.nextInt(300)];
+      final int density = 1 + random.nextInt(64);
+      for (int j = 0; j < chars.length; j++) {
+        chars[j] = random.nextInt(density) > 0 ? (random.nextInt(8) > 0 ? (char) ('a' + random.nextInt(26)) : ' ') : alphabet.charAt(random.nextInt(alphabet.length()));
+      }
+      final String string = new String(chars);
+      final CharScannr[] scannrs = {CharScannr.of(string), CharScannr.of(new StringBuilder(string)), CharScannr.of(CharBuffer.wrap(chars))};
+      for (int from = 0; from <= chars.length; from += 1 + random.nextInt(40)) {
+        for (CharScannr scannr : scannrs) {
+          assertEquals(skip(string, from, false), scannr.skip(from), string);
+          assertEquals(skip(string, from, true), scannr.skipLatin(from), string);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testInterleaved() {
+    final String plain = "the quick brown fox jumps over the lazy dog ".repeat(100).trim();
+    final String[] strings = {plain.replace("lazy dog", "lazy\tdog"), plain.replace("quick", "quick\u3000"), plain, plain.replace("fox", "fox\n")};
+    final CharScannr[] scannrs = IntStream.range(0, strings.length).mapToObj((i) -> CharScannr.of(strings[i])).toArray(CharScannr[]::new);
+    for (int from = 0; from <= plain.length(); from += 97) {
+      for (int i = 0; i < strings.length; i++) {
+        assertEquals(skip(strings[i], Math.min(from, strings[i].length()), false), scannrs[i].skip(Math.min(from, strings[i].length())), strings[i]);
+      }
+    }
+  }
+
+  @Test
+  void testIsOptimized() {
+    final String plain = "the quick brown fox jumps over the lazy dog ".repeat(8).trim();
+    assertTrue(Optimizr.isOptimized(plain));
+    assertFalse(Optimizr.isOptimized(plain.replace("lazy dog", "lazy  dog")));
+    assertFalse(Optimizr.isOptimized(plain.replace("lazy dog", "lazy \ndog")));
+    assertTrue(Optimizr.isOptimized(plain.replace("lazy dog", "lazy\u3000dog")));
+    assertTrue(Optimizr.isOptimized(plain.replace("lazy dog", "lazy\ndog")));
+    assertFalse(Trimr.isTrimmed(plain.replace("lazy dog", "lazy\u0085dog")));
+    assertTrue(Trimr.isTrimmed(plain.replace("lazy dog", "lazy \t dog")));
+    assertEquals(plain, Optimizr.optimize(plain.replace("lazy dog", "lazy\u3000dog")));
+  }
+
+  /** the definition . */
+  private static int skip(final String string, final int from, final boolean latin) {
+    for (int i = from; i < string.length(); i++) {
+      final char c = string.charAt(i);
+      final boolean plain = !Optimizr.isRemovable(c) && !Optimizr.isWhitespace(c) && c != ' ' && (!latin || c < '\u2010');
+      final boolean separator = c == ' ' && i > 0 && i + 1 < string.length() && CharScannr.isPlain(string.charAt(i - 1)) && CharScannr.isPlain(string.charAt(i + 1));
+      if (!plain && !separator) return i;
+    }
+
+    return string.length();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.regex.RegexrOrigin;
+
+public class OptimizingReaderTest {
+
+  static String read(Reader reader, int length) throws IOException {
+    final StringBuilder result = new StringBuilder();
+    final char[] chars = new char[length];
+    try (reader) {
+      for (int read; (read = reader.read(chars)) > -1;) {
+        result.append(chars, 0, read);
+      }
+    }
+
+    return result.toString();
+  }
+
+  @Test
+  void test() throws IOException {
+    assertThrows(NullPointerException.class, () -> new OptimizingReader(null));
+    assertThrows(IllegalArgumentException.class, () -> new OptimizingReader(new StringReader(""), 0));
+    assertEquals("", read(new OptimizingReader(new StringReader("")), 16));
+    assertEquals("", read(new OptimizingReader(new StringReader(" \n\u0001\t"), 1), 16));
+    assertEquals("the String.", read(new OptimizingReader(new StringReader(" \u0010 the  String. \u0002 "), 1), 1));
+    assertEquals("the\nString.", read(new OptimizingReader(new StringReader("\n\nthe  \n  \nString.\n\n\n"), 2), 3));
+
+    try (Reader reader = new OptimizingReader(new StringReader(" the String. "), 4)) {
+      assertFalse(reader.ready());
+      assertEquals(0, reader.read(new char[1], 0, 0));
+      assertEquals('t', reader.read());
+      assertTrue(reader.ready());
+    }
+  }
+
+  @Test
+  void testChunked() throws IOException {
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x2028, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 16 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    for (int i = 0; i < 1000; i++) {
+      final String uglified = IntStream.range(0, random.nextInt(64)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(Optimizr.optimize(uglified), read(new OptimizingReader(new StringReader(uglified), random.nextInt(8) + 1), random.nextInt(8) + 1));
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.regex.RegexrOrigin;
+
+public class OptimizingWriterTest {
+
+  static String optimize(String... texts) throws IOException {
+    final StringWriter result = new StringWriter();
+    try (OptimizingWriter writer = new OptimizingWriter(result)) {
+      for (String text : texts) {
+        writer.write(text);
+      }
+    }
+
+    return result.toString();
+  }
+
+  @Test
+  void test() throws IOException {
+    assertThrows(NullPointerException.class, () -> new OptimizingWriter(null));
+    assertEquals("", optimize());
+    assertEquals("", optimize(""));
+    assertEquals("", optimize(" ", "\n", "\u0001", "\t"));
+    assertEquals("the String.", optimize(" \u0010 the", " ", " ", "String. \u0002 "));
+    assertEquals("the\nString.", optimize("\n\n\nthe", "\n", "\n", " String", ".\n\n\n"));
+    assertEquals("the\nString.", optimize("the  ", "\n  ", "\n", "String.\n", "\n\n"));
+    assertEquals("the String.", optimize("the\u0001", "\u0002 \u0003", "String\u0004", ".\u0005"));
+  }
+
+  @Test
+  void testFlush() throws IOException {
+    final StringWriter result = new StringWriter();
+    try (OptimizingWriter writer = new OptimizingWriter(result)) {
+      writer.write(" the  ");
+      writer.flush();
+      assertEquals("the", result.toString());
+      writer.write(" String. ");
+      writer.flush();
+      assertEquals("the String.", result.toString());
+    }
+    assertEquals("the String.", result.toString());
+  }
+
+  @Test
+  void testChunked() throws IOException {
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x2028, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 16 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    for (int i = 0; i < 1000; i++) {
+      final String uglified = IntStream.range(0, random.nextInt(64)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      final StringWriter result = new StringWriter();
+      try (OptimizingWriter writer = new OptimizingWriter(result)) {
+        for (int position = 0, end; position < uglified.length(); position = end) {
+          end = Math.min(uglified.length(), position + random.nextInt(8) + 1);
+          writer.write(uglified.toCharArray(), position, end - position);
+        }
+      }
+      assertEquals(Optimizr.optimize(uglified), result.toString());
+    }
+  }
+}
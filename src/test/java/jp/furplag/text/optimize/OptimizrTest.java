@@ -18,18 +18,24 @@ package jp.furplag.text.optimize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.StringWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.function.Function;
 import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
+import jp.furplag.text.regex.Regexr;
 import jp.furplag.text.regex.RegexrOrigin;
 
 public class OptimizrTest {
@@ -94,4 +100,84 @@ public class OptimizrTest {
     assertEquals("the String.", Optimizr.optimize("\tthe String.\t"));
     assertEquals("the String.", Optimizr.optimize(" 　 the String. 　 "));
   }
+
+  @Test
+  void testOptimizeSinglePass() {
+    final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.SpaceNormalizr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr};
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x1680, 0x2007, 0x2008, 0x2028, 0x2029, 0x202F, 0x205F, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 16 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20171231L);
+    IntStream.range(0, 10000).forEach(i -> {
+      final String uglified = IntStream.range(0, random.nextInt(32)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(RegexrOrigin.replaceAll(uglified, regexrs), Optimizr.optimize(uglified));
+    });
+  }
+
+  @Test
+  void testOptimizeAppendable() {
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, Optimizr.optimize(null, sb));
+    assertEquals("> ", sb.toString());
+    assertEquals("> the String.", Optimizr.optimize(" \u0010 the String. \u0002 ", sb).toString());
+    assertEquals("the String .\nthe String.", Optimizr.optimize(CharBuffer.wrap("\tthe  String .\n \n the String.\t"), new StringWriter()).toString());
+
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x2028, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 16 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    IntStream.range(0, 1000).forEach(i -> {
+      final String uglified = IntStream.range(0, random.nextInt(32)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(Optimizr.optimize(uglified), Optimizr.optimize(new StringBuilder(uglified), new StringWriter()).toString());
+    });
+  }
+
+  @Test
+  void testIsOptimizedSinglePass() {
+    final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr};
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x1680, 0x2007, 0x2028, 0x2029, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 4 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20180102L);
+    IntStream.range(0, 10000).forEach(i -> {
+      final String uglified = IntStream.range(0, random.nextInt(8)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(!RegexrOrigin.anyMatch(uglified, regexrs), Optimizr.isOptimized(uglified), uglified);
+    });
+  }
+
+  @Test
+  void testIsRemovable() {
+    for (char c = Character.MIN_VALUE; c < Character.MAX_VALUE; c++) {
+      assertEquals(Character.getType(c) == Character.CONTROL && !String.valueOf(c).matches("[\\s\\x{001C}-\\x{001F}]"), Optimizr.isRemovable(c), Integer.toHexString(c));
+    }
+  }
+
+  @Test
+  void testOptimizeOffsets() {
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+    assertEquals("a bc\nd", Optimizr.optimize("  a \t b\u0001c \n\n d  ", new StringBuilder(), offsets).toString());
+    assertEquals("{0-2: 0-0, 2-3: 0-1, 3-6: 1-2, 6-7: 2-3, 7-8: 3-3, 8-9: 3-4, 9-13: 4-5, 13-14: 5-6, 14-16: 6-6}", offsets.build().toString());
+    final OffsetMap.Builder blank = new OffsetMap.Builder();
+    assertEquals("", Optimizr.optimize(" \t ", new StringBuilder(), blank).toString());
+    assertEquals("{0-3: 0-0}", blank.build().toString());
+
+    final Random random = new Random(20180103L);
+    final String[] elements = {" ", "\t", "\n", "\u0001", "\u3000", "\u00A0", "a", "b", "あ"};
+    IntStream.range(0, 1000).forEach(i -> {
+      final String uglified = IntStream.range(0, random.nextInt(32)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      final OffsetMap.Builder builder = new OffsetMap.Builder();
+      final String optimized = Optimizr.optimize(uglified, new StringBuilder(), builder).toString();
+      final OffsetMap map = builder.build();
+      assertEquals(Optimizr.optimize(uglified), optimized);
+      assertEquals(uglified.length(), map.sourceLength());
+      assertEquals(optimized.length(), map.resultLength());
+      IntStream.range(0, optimized.length()).filter(j -> !Character.isWhitespace(optimized.charAt(j))).forEach(j -> assertTrue(uglified.substring(map.toSource(j), map.toSourceEnd(j + 1)).indexOf(optimized.charAt(j)) > -1));
+    });
+  }
+
+  @Test
+  void testIsSeparable() {
+    assertTrue(Optimizr.isSeparable('a', 'b'));
+    assertTrue(Optimizr.isSeparable('a', 'あ'));
+    assertFalse(Optimizr.isSeparable('a', ' '));
+    assertFalse(Optimizr.isSeparable('\u00A0', 'a'));
+    assertFalse(Optimizr.isSeparable('a', '\u0001'));
+  }
 }
@@ -18,18 +18,23 @@ package jp.furplag.text.optimize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.StringWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.function.Function;
 import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import jp.furplag.text.regex.Regexr;
 import org.junit.jupiter.api.Test;
 import jp.furplag.text.regex.RegexrOrigin;
 
@@ -112,4 +117,35 @@ public class TrimrTest {
       assertEquals(string, Trimr.trim(uglified));
     });
   }
+
+  @Test
+  void testTrimAppendable() {
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, Trimr.trim(null, sb));
+    assertEquals("> ", sb.toString());
+    assertEquals("> the String.", Trimr.trim(" \u0010 the String. \u0002 ", sb).toString());
+    assertEquals("the  String .\n\nthe String.", Trimr.trim(CharBuffer.wrap("\tthe \u0001 String .\n\nthe String.\t\n"), new StringWriter()).toString());
+
+    final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.Trimr};
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x1680, 0x2028, 0x2029, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 16 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20180101L);
+    IntStream.range(0, 10000).forEach(i -> {
+      final String uglified = IntStream.range(0, random.nextInt(32)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(RegexrOrigin.replaceAll(uglified, regexrs), Trimr.trim(uglified));
+      assertEquals(Trimr.trim(uglified), Trimr.trim(new StringBuilder(uglified), new StringWriter()).toString());
+    });
+  }
+
+  @Test
+  void testIsTrimmedSinglePass() {
+    final Regexr[] regexrs = {Regexr.CtrlRemovr, Regexr.Trimr};
+    final String[] elements = IntStream.concat(IntStream.rangeClosed(0, 0x00A0), IntStream.of(0x1680, 0x2007, 0x2028, 0x2029, 0x3000, 0x3042, 0x1F600))
+      .filter(codePoint -> codePoint < 0x0021 || codePoint > 0x007E || codePoint % 4 == 0).mapToObj(RegexrOrigin::newString).toArray(String[]::new);
+    final Random random = new Random(20180102L);
+    IntStream.range(0, 10000).forEach(i -> {
+      final String uglified = IntStream.range(0, random.nextInt(8)).mapToObj(j -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      assertEquals(!RegexrOrigin.anyMatch(uglified, regexrs), Trimr.isTrimmed(uglified), uglified);
+    });
+  }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.optimize;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.normalize.CjkNormalizr;
+import jp.furplag.text.regex.Regexr;
+
+public class Utf8OptimizrTest {
+
+  /** characters which samples consist of . */
+  private static final String alphabet = "aZ0.-~ \t\n\r\u000B\u0001\u001C\u007F\u0085 é ‐　あア漢ｶﾞﾟ゙゛ゟＡ￣〪ﾡ😀";
+
+  @Test
+  void test() throws NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    Constructor<?> c = Utf8Optimizr.class.getDeclaredConstructor();
+    c.setAccessible(true);
+    assertTrue(c.newInstance() instanceof Utf8Optimizr);
+  }
+
+  @Test
+  void testOptimize() {
+    assertNull(Utf8Optimizr.optimize((byte[]) null));
+    assertEquals(0, Utf8Optimizr.optimize(new byte[0]).length);
+    final ByteBuffer destination = ByteBuffer.allocate(4);
+    assertSame(destination, Utf8Optimizr.optimize(null, destination));
+    assertEquals(0, destination.position());
+
+    assertArrayEquals("the String .".getBytes(UTF_8), Utf8Optimizr.optimize("\u0001 the \t String  .\r\n".getBytes(UTF_8)));
+    assertArrayEquals("漢字\nかな".getBytes(UTF_8), Utf8Optimizr.optimize("　漢字 \n かな\u0085".getBytes(UTF_8)));
+    assertArrayEquals("a� b".getBytes(UTF_8), Utf8Optimizr.optimize(new byte[] {'a', (byte) 0xC0, ' ', ' ', 'b'}));
+    assertArrayEquals("ア".getBytes(UTF_8), Utf8Optimizr.normalize("ｱ".getBytes(UTF_8)));
+    assertArrayEquals("A゛".getBytes(UTF_8), Utf8Optimizr.normalize("Ａ ゙".getBytes(UTF_8)));
+  }
+
+  @Test
+  void testOptimizeBuffer() {
+    final byte[] bytes = "  the  String 　 ｶﾞ . ".getBytes(UTF_8);
+    for (ByteBuffer source : new ByteBuffer[] {ByteBuffer.wrap(bytes), ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()}) {
+      final ByteBuffer destination = ByteBuffer.allocateDirect(bytes.length + 2).put((byte) '>');
+      assertSame(destination, Utf8Optimizr.optimize(source, destination));
+      assertEquals(source.limit(), source.position());
+      assertEquals(">the String ｶﾞ .", new String(Arrays.copyOf(toArray(destination.flip()), destination.limit()), UTF_8));
+
+      source.rewind();
+      final ByteBuffer normalized = ByteBuffer.allocate(bytes.length);
+      assertSame(normalized, Utf8Optimizr.normalize(source, normalized));
+      assertEquals("the String ガ .", new String(normalized.array(), 0, normalized.position(), UTF_8));
+    }
+  }
+
+  @Test
+  void testOverflow() {
+    final ByteBuffer source = ByteBuffer.wrap("the String .".getBytes(UTF_8));
+    final ByteBuffer destination = ByteBuffer.allocate(8).put((byte) '>');
+    assertThrows(BufferOverflowException.class, () -> Utf8Optimizr.optimize(source, destination));
+    assertEquals(0, source.position());
+    assertEquals(1, destination.position());
+
+    final ByteBuffer malformed = ByteBuffer.wrap(new byte[] {'a', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+    assertThrows(BufferOverflowException.class, () -> Utf8Optimizr.optimize(malformed, destination));
+    assertEquals(0, malformed.position());
+    assertEquals(1, destination.position());
+  }
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(14);
+    final int[] codePoints = alphabet.codePoints().toArray();
+    for (int i = 0; i < 5_000; i++) {
+      final StringBuilder sb = new StringBuilder();
+      final int length = random.nextInt(40);
+      for (int j = 0; j < length; j++) {
+        sb.appendCodePoint(random.nextBoolean() ? "a  b".charAt(random.nextInt(4)) : codePoints[random.nextInt(codePoints.length)]);
+      }
+      final String string = sb.toString();
+      final byte[] bytes = string.getBytes(UTF_8);
+      assertArrayEquals(Optimizr.optimize(string).getBytes(UTF_8), Utf8Optimizr.optimize(bytes), string);
+      assertArrayEquals(CjkNormalizr.normalize(string).getBytes(UTF_8), Utf8Optimizr.normalize(bytes), string);
+      assertArrayEquals(CjkNormalizr.normalize(string).getBytes(UTF_8), toArray(Utf8Optimizr.normalize(slice(bytes), ByteBuffer.allocateDirect(bytes.length * 2)).flip()), string);
+      assertArrayEquals(Optimizr.optimize(string).getBytes(UTF_8), toArray(Utf8Optimizr.optimize(slice(bytes), ByteBuffer.allocate(bytes.length)).flip()), string);
+    }
+  }
+
+  @Test
+  void testMalformed() {
+    final Random random = new Random(14);
+    for (int i = 0; i < 5_000; i++) {
+      final byte[] bytes = new byte[random.nextInt(16)];
+      for (int j = 0; j < bytes.length; j++) {
+        bytes[j] = (byte) (random.nextBoolean() ? "a \nã\u0081\u0082".charAt(random.nextInt(6)) : random.nextInt(256));
+      }
+      final String string = new String(bytes, UTF_8);
+      assertArrayEquals(Optimizr.optimize(string).getBytes(UTF_8), Utf8Optimizr.optimize(bytes), Arrays.toString(bytes));
+      assertArrayEquals(CjkNormalizr.normalize(string).getBytes(UTF_8), Utf8Optimizr.normalize(bytes), Arrays.toString(bytes));
+      assertArrayEquals(Optimizr.optimize(string).getBytes(UTF_8), toArray(Utf8Optimizr.optimize(slice(bytes), ByteBuffer.allocate(bytes.length * 3)).flip()), Arrays.toString(bytes));
+    }
+  }
+
+  @Test
+  void testRegexrs() {
+    final String string = "\u0001 the \t String  .\r\n 　ｶﾞ\n\n";
+    assertArrayEquals(Regexr.Trimr.replaceAll(Regexr.LinefeedLintr.replaceAll(Regexr.SpaceLintr.replaceAll(Regexr.SpaceNormalizr.replaceAll(Regexr.CtrlRemovr.replaceAll(string))))).getBytes(UTF_8), Utf8Optimizr.optimize(string.getBytes(UTF_8)));
+  }
+
+  /** the direct buffer which has the bytes in between the position and the limit, not at the start . */
+  private static ByteBuffer slice(final byte[] bytes) {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 3);
+    buffer.put(new byte[] {'x', 'y', 'z'}).put(bytes).position(3);
+
+    return buffer;
+  }
+
+  /** the bytes in between the position and the limit . */
+  private static byte[] toArray(final ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+
+    return bytes;
+  }
+}
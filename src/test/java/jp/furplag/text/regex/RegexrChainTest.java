@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
+
+public class RegexrChainTest {
+
+  @Test
+  void test() {
+    assertSame(RegexrChain.of(), RegexrChain.of((Regexr[]) null));
+    assertSame(RegexrChain.of(), RegexrChain.of(null, null));
+    assertEquals(List.of(), RegexrChain.of(new Regexr[] {null}).regexrs());
+    assertEquals(List.of(Regexr.CtrlRemovr, Regexr.SpaceNormalizr, Regexr.Trimr), RegexrChain.of(Regexr.Trimr, null, Regexr.CtrlRemovr, Regexr.SpaceNormalizr, Regexr.Trimr).regexrs());
+    assertEquals(List.of(Regexr.CtrlRemovr), RegexrChain.of(Regexr.CtrlRemovr, new RegexrStandard(Regexr.CtrlRemovr.pattern().pattern(), "", 0)).regexrs());
+    assertThrows(UnsupportedOperationException.class, () -> RegexrChain.of(Regexr.Trimr).regexrs().set(0, Regexr.CtrlRemovr));
+
+    assertEquals(RegexrChain.of(Regexr.Trimr, Regexr.CtrlRemovr), RegexrChain.of(Regexr.CtrlRemovr, Regexr.Trimr));
+    assertEquals(RegexrChain.of(Regexr.Trimr, Regexr.CtrlRemovr).hashCode(), RegexrChain.of(Regexr.CtrlRemovr, Regexr.Trimr).hashCode());
+    assertNotEquals(RegexrChain.of(Regexr.Trimr), RegexrChain.of(Regexr.CtrlRemovr, Regexr.Trimr));
+    assertNotEquals(RegexrChain.of(Regexr.Trimr), null);
+    assertEquals(Arrays.toString(new Regexr[] {Regexr.CtrlRemovr, Regexr.Trimr}), RegexrChain.of(Regexr.Trimr, Regexr.CtrlRemovr).toString());
+  }
+
+  @Test
+  void testReplaceAll() {
+    final RegexrChain chain = RegexrChain.of(new RegexrStandard("[\\x{1F608}]", RegexrOrigin.newString(128591), 1), new RegexrRecursive("[\\x{1F64F}]{2,}", RegexrOrigin.newString(128591), 2), new RegexrStandard("[色即是空]", RegexrOrigin.newString(128520), 0));
+    assertNull(chain.replaceAll(null));
+    assertEquals("", chain.replaceAll(""));
+    assertEquals("🙏", chain.replaceAll("色即是空"));
+    assertEquals("南無🙏", chain.replaceAll("南無色即是空"));
+    assertEquals("色即是空", RegexrChain.of().replaceAll("色即是空"));
+    assertEquals(RegexrOrigin.replaceAll("色即是空", chain.regexrs().toArray(Regexr[]::new)), chain.replaceAll("色即是空"));
+
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, chain.replaceAll(null, sb));
+    assertSame(sb, chain.replaceAll("", sb));
+    assertEquals("> 🙏", chain.replaceAll(new StringBuilder("色即是空"), sb).toString());
+    assertEquals("南無🙏", chain.replaceAll("南無色即是空", new StringWriter()).toString());
+    assertEquals("色即是空", RegexrChain.of().replaceAll("色即是空", new StringWriter()).toString());
+  }
+
+  @Test
+  void testMatches() {
+    final RegexrChain chain = RegexrChain.of(Regexr.CtrlRemovr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr);
+    assertFalse(chain.matches(null));
+    assertFalse(chain.matches(""));
+    assertFalse(chain.matches("the String."));
+    assertTrue(chain.matches("the  String."));
+    assertTrue(chain.matches("the String.\n"));
+    assertTrue(chain.matches("the\u0001String."));
+    assertFalse(RegexrChain.of().matches("the String."));
+  }
+
+  @Test
+  void testFind() {
+    final RegexrChain chain = RegexrChain.of(new RegexrStandard("[是空]", "", 1), new RegexrStandard("[色即]", "", 0));
+    assertEquals(List.of(), chain.find(null));
+    assertEquals(List.of(), chain.find(""));
+    assertEquals(List.of("即", "色", "空", "是"), chain.find("空是即色"));
+    assertEquals(RegexrOrigin.findAny("空是即色", chain.regexrs().toArray(Regexr[]::new)), chain.find("空是即色"));
+  }
+
+  @Test
+  void testReplaceAllOffsets() {
+    final RegexrChain chain = RegexrChain.of(new RegexrStandard("ab", "c", 1), new RegexrStandard("cc", "d", 2));
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+    assertEquals("xdx", chain.replaceAll("xababx", new StringBuilder(), offsets).toString());
+    assertEquals("{0-1: 0-1, 1-5: 1-2, 5-6: 2-3}", offsets.build().toString());
+    assertEquals("abc", RegexrChain.of().replaceAll("abc", new StringBuilder(), offsets).toString());
+    assertEquals(9, offsets.build().sourceLength());
+    assertEquals("", chain.replaceAll(null, new StringBuilder(), offsets).toString());
+    assertEquals("xdx", chain.replaceAll("xababx", new StringBuilder(), null).toString());
+  }
+
+  @Test
+  void testResults() {
+    final RegexrChain chain = RegexrChain.of(new RegexrStandard("b", "", 2), new RegexrStandard("a", "", 1));
+    assertEquals(0, chain.results(null).count());
+    assertEquals(0, RegexrChain.of().results("abc").count());
+    assertEquals(chain.find("abcab"), chain.results("abcab").map(MatchResult::group).collect(Collectors.toList()));
+    assertEquals("[0-1: a, 3-4: a, 1-2: b]", chain.results("abcab").limit(3).collect(Collectors.toList()).toString());
+    assertEquals(0, chain.count(null));
+    assertEquals(0, RegexrChain.of().count("abc"));
+    assertEquals(4, chain.count("abcab"));
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+public class RegexrMatchTest {
+
+  @Test
+  void test() {
+    final StringBuilder text = new StringBuilder("ｺﾝﾆﾁﾊ　世界");
+    final Matcher matcher = Pattern.compile("(　)|(世)(界)").matcher(text);
+    matcher.find();
+    matcher.find();
+    final MatchResult expected = matcher.toMatchResult();
+    final MatchResult result = new RegexrMatch(text, matcher);
+    assertEquals(expected.groupCount(), result.groupCount());
+    for (int i = 0; i <= result.groupCount(); i++) {
+      assertEquals(expected.start(i), result.start(i));
+      assertEquals(expected.end(i), result.end(i));
+      assertEquals(expected.group(i), result.group(i));
+    }
+    assertEquals(expected.start(), result.start());
+    assertEquals(expected.end(), result.end());
+    assertEquals("世界", result.group());
+    assertNull(result.group(1));
+    assertEquals("6-8: 世界", result.toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> result.group(4));
+    assertThrows(IndexOutOfBoundsException.class, () -> result.start(-1));
+  }
+}
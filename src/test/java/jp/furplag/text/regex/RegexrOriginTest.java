@@ -19,12 +19,18 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.regex.MatchResult;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
@@ -213,4 +219,55 @@ public class RegexrOriginTest {
     assertEquals("🙏", RegexrOrigin.replaceAll("色即是空", new RegexrStandard("[色即是空]", RegexrOrigin.newString(128520)), new RegexrStandard("[\\x{1F608}]", RegexrOrigin.newString(128591)), new RegexrRecursive("[\\x{1F64F}]{2,}", RegexrOrigin.newString(128591))));
     assertEquals("🙏", RegexrOrigin.replaceAll("色即是空", new RegexrStandard("[色即是空]+", RegexrOrigin.newString(128591))));
   }
+
+  @Test
+  void testAppendReplaced() {
+    assertEquals("", RegexrOrigin.appendReplaced(null, new StringBuilder(), Regexr.Trimr).toString());
+    assertEquals("", RegexrOrigin.appendReplaced("", new StringBuilder(), Regexr.Trimr).toString());
+    assertEquals("色即是空", RegexrOrigin.appendReplaced("色即是空", new StringBuilder(), (Regexr[]) null).toString());
+    assertEquals("色即是空", RegexrOrigin.appendReplaced("色即是空", new StringWriter(), new Regexr[]{null}).toString());
+    assertEquals("色即是空", RegexrOrigin.appendReplaced(" 色即是空 ", new StringWriter(), Regexr.Trimr, Regexr.CtrlRemovr).toString());
+    assertEquals("🙏", RegexrOrigin.appendReplaced("色即是空", new StringWriter(), new RegexrStandard("[色即是空]", RegexrOrigin.newString(128520)), new RegexrStandard("[\\x{1F608}]", RegexrOrigin.newString(128591)), new RegexrRecursive("[\\x{1F64F}]{2,}", RegexrOrigin.newString(128591))).toString());
+    final Regexr doubling = new RegexrStandard("a", "aa");
+    assertEquals("aaaa", RegexrOrigin.replaceAll("a", doubling, doubling));
+    assertEquals(RegexrOrigin.replaceAll("a", doubling, doubling), RegexrOrigin.appendReplaced("a", new StringBuilder(), doubling, doubling).toString());
+    assertEquals(RegexrOrigin.replaceAll("a", doubling, doubling, doubling), RegexrOrigin.appendReplaced("a", new StringWriter(), doubling, doubling, doubling).toString());
+    final Regexr[] sameButOrder = {new RegexrStandard("a", "aa", 1), new RegexrStandard("a", "aa", 2)};
+    assertEquals("aaaa", RegexrOrigin.replaceAll("a", sameButOrder));
+    assertEquals(RegexrOrigin.replaceAll("a", sameButOrder), RegexrOrigin.appendReplaced("a", new StringBuilder(), sameButOrder).toString());
+    assertThrows(UncheckedIOException.class, () -> RegexrOrigin.append(new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) throws IOException {
+        throw new IOException();
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        throw new IOException();
+      }
+
+      @Override
+      public Appendable append(char c) throws IOException {
+        throw new IOException();
+      }
+    }, "色即是空"));
+  }
+
+  @Test
+  void testResultsAny() {
+    assertEquals(0, RegexrOrigin.resultsAny(null).count());
+    assertEquals(0, RegexrOrigin.resultsAny("色不異空", ((Regexr[]) null)).count());
+    assertEquals(0, RegexrOrigin.resultsAny("色不異空", null, null, null).count());
+    final Regexr[] regexrs = {new RegexrStandard("空", "", 2), new RegexrStandard("色", "", 1)};
+    assertEquals(RegexrOrigin.findAny("色不異空、空不異色", regexrs), RegexrOrigin.resultsAny("色不異空、空不異色", regexrs).map(MatchResult::group).collect(Collectors.toList()));
+    assertEquals("[0-1: 色, 8-9: 色, 3-4: 空]", RegexrOrigin.resultsAny("色不異空、空不異色", regexrs).limit(3).collect(Collectors.toList()).toString());
+  }
+
+  @Test
+  void testCountAny() {
+    assertEquals(0, RegexrOrigin.countAny(null));
+    assertEquals(0, RegexrOrigin.countAny("色不異空", ((Regexr[]) null)));
+    assertEquals(0, RegexrOrigin.countAny("色不異空", null, null, null));
+    assertEquals(4, RegexrOrigin.countAny("色不異空、空不異色", new RegexrStandard("空", ""), new RegexrStandard("色", ""), null));
+  }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.Constructor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class RegexrPoolTest {
+
+  @Test
+  void test() throws SecurityException, ReflectiveOperationException {
+    Constructor<?> c = RegexrPool.class.getDeclaredConstructor();
+    c.setAccessible(true);
+    assertTrue(c.newInstance() instanceof RegexrPool);
+  }
+
+  @Test
+  void testStandard() {
+    assertSame(RegexrPool.standard("one", "壱"), RegexrPool.standard("one", "壱"));
+    assertSame(RegexrPool.standard("one", "壱"), RegexrPool.standard("one", "壱", 0));
+    assertSame(RegexrPool.standard(null, null), RegexrPool.standard(null, null));
+    assertNotSame(RegexrPool.standard("one", "壱"), RegexrPool.standard("one", "壱", 1));
+    assertNotSame(RegexrPool.standard("one", "壱"), RegexrPool.standard("one", "1"));
+    assertNotSame(RegexrPool.standard("one", "壱"), RegexrPool.standard("One", "壱"));
+    assertEquals(new RegexrStandard("one", "壱", 1), RegexrPool.standard("one", "壱", 1));
+    assertEquals(1, RegexrPool.standard("one", "壱", 1).order());
+    assertEquals("壱 two three", RegexrPool.standard("one", "壱").replaceAll("one two three"));
+  }
+
+  @Test
+  void testRecursive() {
+    assertSame(RegexrPool.recursive("one", "壱"), RegexrPool.recursive("one", "壱"));
+    assertSame(RegexrPool.recursive("one", "壱"), RegexrPool.recursive("one", "壱", 0));
+    assertNotSame(RegexrPool.recursive("one", "壱", 0), RegexrPool.recursive("one", "壱", 1));
+    assertFalse(RegexrPool.recursive("one", "壱").getClass().equals(RegexrPool.standard("one", "壱").getClass()));
+    assertEquals(" ", RegexrPool.recursive("\\s{2,}", " ").replaceAll("\t\t\t"));
+  }
+
+  @Test
+  void testConcurrency() {
+    assertEquals(1, IntStream.range(0, 10_000).parallel().mapToObj(i -> RegexrPool.standard("concurrency", "並行", 1)).map(System::identityHashCode).collect(Collectors.toSet()).size());
+  }
+
+  @Test
+  void testEviction() {
+    final RegexrStandard regexr = RegexrPool.standard("evict", "me");
+    IntStream.range(0, RegexrPool.maximumSize * 2).forEach(i -> RegexrPool.standard("evict" + i, "me"));
+    assertTrue(RegexrPool.size() <= RegexrPool.maximumSize);
+    assertNotSame(regexr, RegexrPool.standard("evict", "me"));
+    assertEquals(regexr, RegexrPool.standard("evict", "me"));
+  }
+}
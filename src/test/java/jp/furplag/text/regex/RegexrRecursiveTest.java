@@ -17,9 +17,14 @@ package jp.furplag.text.regex;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
 
 public class RegexrRecursiveTest {
 
@@ -28,6 +33,9 @@ public class RegexrRecursiveTest {
     assertEquals(new RegexrRecursive(null, null), new RegexrRecursive(null, null));
 
     assertEquals(0, new RegexrRecursive(null, null).order());
+    assertEquals(RegexrRecursive.Defaults.maxIterations, new RegexrRecursive(null, null).maxIterations());
+    assertEquals(3, new RegexrRecursive(null, null, 0, 3).maxIterations());
+    assertThrows(IllegalArgumentException.class, () -> new RegexrRecursive(null, null, 0, 0));
   }
 
   @Test
@@ -53,4 +61,86 @@ public class RegexrRecursiveTest {
     String spaces = IntStream.rangeClosed(Character.MIN_CODE_POINT, Character.MAX_CODE_POINT).filter(Character::isWhitespace).mapToObj(RegexrOrigin::newString).collect(Collectors.joining("\u0020"));
     assertEquals(" ", new RegexrRecursive("[\\p{javaWhitespace}]{2,}", "\u0020").replaceAll(spaces));
   }
+
+  @Test
+  void testReplaceAllAppendable() {
+    assertEquals("", new RegexrRecursive("one", "壱").replaceAll(null, new StringBuilder()).toString());
+    assertEquals("ne壱壱壱壱o", new RegexrRecursive("one", "壱").replaceAll(new StringBuilder("neoneoneoneoneo"), new StringWriter()).toString());
+    assertEquals("o", new RegexrRecursive("oo", "o").replaceAll(new StringBuilder("oooooooo"), new StringWriter()).toString());
+  }
+
+  @Test
+  void testTermination() {
+    assertEquals("abc", new RegexrRecursive("b", "b").replaceAll("abc"));
+    assertEquals("a$c", new RegexrRecursive("b", "\\$").replaceAll("abc"));
+    assertEquals("aBBbc", new RegexrRecursive("(b)", "B$1", 0, 2).replaceAll("abc"));
+    assertEquals("a" + "B".repeat(100) + "bc", new RegexrRecursive("(b)", "B$1", 0, 100).replaceAll("abc"));
+    assertEquals("xy", new RegexrRecursive("(x)(y)|(y)(x)", "$2$1$4$3").replaceAll("xy"));
+    assertEquals("yxyx", new RegexrRecursive("(x)(y)|(y)(x)", "$2$1$4$3").replaceAll("yxyx"));
+    assertEquals("aaaa", new RegexrRecursive("a", "aa", 0, 2).replaceAll("a"));
+    assertEquals("aaaaaaaaaaaa", new RegexrRecursive("(a)", "$1$1", 0, 2).replaceAll("aaa"));
+    assertEquals("a".repeat(1 << 13), new RegexrRecursive("a", "aa").replaceAll("a"), "stops growing beyond maxGrowth");
+    assertEquals("x".repeat(362), new RegexrRecursive("^(x+)$", "$1x").replaceAll("x"), "stops growing by one beyond the work limit");
+    assertEquals("x".repeat((1 << 14) + 20), new RegexrRecursive("^(x+)$", "$1x").replaceAll("x".repeat(1 << 14)), "the work limit is in proportion to the input");
+    assertEquals("aaabbbbbbb", new RegexrRecursive("ba", "ab").replaceAll("bbabbabbab"));
+    assertEquals("bbabbabbab".replaceAll("ba", "ab"), new RegexrRecursive("ba", "ab", 0, 1).replaceAll("bbabbabbab"));
+    assertEquals("oo", new RegexrRecursive("oo", "o", 0, 2).replaceAll("oooooooo"));
+    assertEquals("oo", new RegexrRecursive("oo", "o", 0, 2).replaceAll("oooooooo", new StringBuilder()).toString());
+  }
+
+  @Test
+  void testGrowingTermination() {
+    assertEquals("xxxx", new RegexrRecursive("^(x{1,3})$", "$1x").replaceAll("x"));
+    assertEquals("xxxx", fullRescan(new RegexrRecursive("^(x{1,3})$", "$1x"), "x"));
+    assertEquals("a" + "b".repeat(64), new RegexrRecursive("^ab{0,63}$", "$0b").replaceAll("a"));
+    assertEquals("(((((x)))))", new RegexrRecursive("^\\({0,4}x\\){0,4}$", "($0)").replaceAll("x"));
+    assertEquals("ab ab", new RegexrRecursive("^(a)(?!b)|(?<= )a(?!b)", "$0b").replaceAll("a a"));
+  }
+
+  @Test
+  void testIncrementalRescan() {
+    final String nested = IntStream.range(0, 512).mapToObj((i) -> "a").collect(Collectors.joining()) + IntStream.range(0, 512).mapToObj((i) -> "b").collect(Collectors.joining());
+    assertEquals("", new RegexrRecursive("ab", "").replaceAll(nested));
+    assertEquals("c", new RegexrRecursive("ab|acb", "c").replaceAll("aaabbb"));
+    assertEquals("(x)", new RegexrRecursive("(?<=\\()\\(x\\)(?=\\))", "x").replaceAll("((((x))))"));
+    assertEquals("ab", new RegexrRecursive("^a(a+)", "a").replaceAll("aaaab"));
+    assertEquals("xa", new RegexrRecursive("aa$|ab", "a").replaceAll("xaaaaaa"));
+
+    final Random random = new Random(13);
+    final String[] regexes = {"\\s+\\n|\\n\\s+", "[\\p{javaWhitespace}&&[^\\n]]{2,}", "ab", "(?<=a)b+a", "^\\s|\\s$", "a(b)c|(b)b", "(?<x>b)\\s+a", "\\s?c"};
+    final String[] replacements = {"\n", "\u0020", "", "a", "", "$1$2", "${x}", "\\$"};
+    final char[] chars = {' ', '\t', '\n', '\u3000', 'a', 'b', 'c'};
+    for (int i = 0; i < 2_000; i++) {
+      final char[] sample = new char[random.nextInt(48)];
+      for (int j = 0; j < sample.length; j++) sample[j] = chars[random.nextInt(chars.length)];
+      final String string = new String(sample);
+      for (int j = 0; j < regexes.length; j++) {
+        final RegexrRecursive regexr = new RegexrRecursive(regexes[j], replacements[j]);
+        assertEquals(fullRescan(regexr, string), regexr.replaceAll(string), regexes[j] + ": " + string);
+      }
+    }
+  }
+
+  /** the former implementation, rescans the whole text on every pass . */
+  private static String fullRescan(final Regexr regexr, final String string) {
+    String result = string;
+    final Matcher matcher = regexr.pattern().matcher(result);
+    while (matcher.find()) {
+      result = matcher.replaceAll(regexr.replacement);
+      matcher.reset(result);
+    }
+
+    return result;
+  }
+
+  @Test
+  void testReplaceAllOffsets() {
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+    assertEquals("a b", new RegexrRecursive("\\s{2,}", " ").replaceAll("a   b", new StringBuilder(), offsets).toString());
+    assertEquals("{0-2: 0-2, 2-4: 2-2, 4-5: 2-3}", offsets.build().toString());
+    assertEquals("ab", new RegexrRecursive("\\s{2,}", " ").replaceAll("ab", new StringBuilder(), offsets).toString());
+    assertEquals(7, offsets.build().sourceLength());
+    assertEquals("", new RegexrRecursive("\\s{2,}", " ").replaceAll(null, new StringBuilder(), offsets).toString());
+    assertEquals("a b", new RegexrRecursive("\\s{2,}", " ").replaceAll("a   b", new StringBuilder(), null).toString());
+  }
 }
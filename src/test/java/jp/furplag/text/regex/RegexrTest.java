@@ -19,9 +19,13 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import java.io.StringWriter;
 import java.lang.Character.UnicodeBlock;
+import java.nio.CharBuffer;
 import java.text.Normalizer;
 import java.text.Normalizer.Form;
 import java.util.ArrayList;
@@ -29,10 +33,12 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.function.IntPredicate;
+import java.util.regex.MatchResult;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
 import jp.furplag.sandbox.reflect.SavageReflection;
 import jp.furplag.sandbox.stream.Streamr;
 
@@ -164,6 +170,11 @@ public class RegexrTest {
     assertEquals("あ゜い゜う゜え゜お゜な゛に゛ぬ゛ね゛の゛", Regexr.CjkNormalizr.replaceAll("あ゜い゜う゜え゜お゜な゛に゛ぬ゛ね゛の゛"));
     assertEquals("あ゜い゜う゜え゜お゜な゛に゛ぬ゛ね゛の゛", Regexr.CjkNormalizr.replaceAll("あ゚い゚う゚え゚お゚な゙に゙ぬ゙ね゙の゙"));
     assertEquals("パ～やん", Regexr.CjkNormalizr.replaceAll("パ～やん"));
+
+    assertEquals("カ カキ", Regexr.CjkNormalizr.replaceAll("ｶ ｶｷ"));
+    assertEquals("カキ カ", Regexr.CjkNormalizr.replaceAll("ｶｷ ｶ"));
+    final String largeText = IntStream.range(0, 100_000).mapToObj(i -> "ﾊﾟｿｺﾝ a ").collect(Collectors.joining());
+    assertEquals(largeText.replace("ﾊﾟｿｺﾝ", "パソコン"), Regexr.CjkNormalizr.replaceAll(largeText));
   }
 
   @Test
@@ -348,4 +359,105 @@ public class RegexrTest {
     } while (uglified.length() < 10000);
     assertEquals(string, Regexr.Trimr.replaceAll(uglified));
   }
+
+  @Test
+  void testReplaceAllAppendable() {
+    final StringBuilder sb = new StringBuilder("> ");
+    assertSame(sb, (new Regexr("one", "壱", 1) {}).replaceAll(null, sb));
+    assertSame(sb, (new Regexr("one", "壱", 1) {}).replaceAll("", sb));
+    assertEquals("> ", sb.toString());
+    assertEquals("> ne壱壱壱壱o", (new Regexr("one", "壱", 1) {}).replaceAll("neoneoneoneoneo", sb).toString());
+    assertEquals("ne壱壱壱壱o", (new Regexr("one", "壱", 1) {}).replaceAll(CharBuffer.wrap("neoneoneoneoneo"), new StringWriter()).toString());
+    assertEquals("o ne", (new Regexr("one", "壱", 1) {}).replaceAll(new StringBuilder("o ne"), new StringWriter()).toString());
+    assertEquals("[one] two [three]", (new Regexr("(one|three)", "[$1]", 1) {}).replaceAll("one two three", new StringBuilder()).toString());
+    assertEquals("[one] two [three]", (new Regexr("(one|three)", "[$1]", 1) {}).replaceAll("one two three", new StringWriter()).toString());
+    assertEquals("$ two $", (new Regexr("(one|three)", "\\$", 1) {}).replaceAll("one two three", new StringWriter()).toString());
+
+    final String string = "Ｈｅｌｌｏ　Ｗｏｒｌｄ．ｺﾝﾆﾁﾊ　世界。ﾊﾞｰﾊﾞﾊﾟﾊﾟ、ハ゛ーハ゛ハ゜ハ゜、ｶ ｶｷ";
+    assertEquals(Regexr.CjkNormalizr.replaceAll(string), Regexr.CjkNormalizr.replaceAll(new StringBuilder(string), new StringWriter()).toString());
+    assertEquals(Regexr.SpaceLintr.replaceAll(string), Regexr.SpaceLintr.replaceAll(new StringBuilder(string), new StringWriter()).toString());
+  }
+
+  @Test
+  void testReplaceAllOffsets() {
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+    assertEquals("ne壱壱o", (new Regexr("one", "壱", 1) {}).replaceAll("neoneoneo", new StringBuilder(), offsets).toString());
+    assertEquals("{0-2: 0-2, 2-5: 2-3, 5-8: 3-4, 8-9: 4-5}", offsets.build().toString());
+    assertEquals("[one] two [three]", (new Regexr("(one|three)", "[$1]", 1) {}).replaceAll("one two three", new StringWriter(), offsets.copy(0)).toString());
+    assertEquals("> ", (new Regexr("one", "壱", 1) {}).replaceAll(null, new StringBuilder("> "), new OffsetMap.Builder()).toString());
+    assertEquals("ne壱o", (new Regexr("one", "壱", 1) {}).replaceAll("neoneo", new StringBuilder(), null).toString());
+
+    final String string = "Ｈｅｌｌｏ　Ｗｏｒｌｄ．ｺﾝﾆﾁﾊ　世界。ﾊﾞｰﾊﾞﾊﾟﾊﾟ、ハ゛ーハ゛ハ゜ハ゜、ｶ ｶｷ ｶ〪ﾞ ﾡￂﾡￂﾡￂﾣ";
+    final OffsetMap.Builder builder = new OffsetMap.Builder();
+    assertEquals(Regexr.CjkNormalizr.replaceAll(string), Regexr.CjkNormalizr.replaceAll(string, new StringBuilder(), builder).toString());
+    final OffsetMap map = builder.build();
+    final String replaced = Regexr.CjkNormalizr.replaceAll(string);
+    assertEquals(string.length(), map.sourceLength());
+    assertEquals(replaced.length(), map.resultLength());
+    final int halfwidth = replaced.indexOf("バーバパパ");
+    assertEquals("ﾊﾞｰﾊﾞﾊﾟﾊﾟ", string.substring(map.toSource(halfwidth), map.toSourceEnd(halfwidth + 5)));
+    final int spacing = replaced.indexOf("バーバパパ", halfwidth + 5);
+    assertEquals("ハ゛ーハ゛ハ゜ハ゜", string.substring(map.toSource(spacing), map.toSourceEnd(spacing + 5)));
+  }
+
+  @Test
+  void testResults() {
+    final Regexr regexr = new RegexrStandard("o(n)?e", "壱", 1);
+    assertEquals(0, regexr.results(null).count());
+    assertEquals(0, regexr.results("").count());
+    assertEquals(0, regexr.results("o ne").count());
+    assertEquals("[2-5: one, 7-9: oe, 9-12: one]", regexr.results("neoneo oeonee").collect(Collectors.toList()).toString());
+    assertEquals(regexr.find("neoneo oeonee"), regexr.results(new StringBuilder("neoneo oeonee")).map(MatchResult::group).collect(Collectors.toList()));
+    final MatchResult result = regexr.results("neoneo oeonee").skip(1).findFirst().get();
+    assertEquals(1, result.groupCount());
+    assertNull(result.group(1));
+    assertEquals(-1, result.start(1));
+    assertEquals("n", regexr.results("one").findFirst().get().group(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> result.group(2));
+
+    final int[] reads = {0};
+    final CharSequence huge = new CharSequence() {
+      @Override
+      public int length() {
+        return Integer.MAX_VALUE;
+      }
+
+      @Override
+      public char charAt(int index) {
+        reads[0]++;
+
+        return "one two three ".charAt(index % 14);
+      }
+
+      @Override
+      public CharSequence subSequence(int start, int end) {
+        return IntStream.range(start, end).mapToObj((i) -> String.valueOf(charAt(i))).collect(Collectors.joining());
+      }
+    };
+    assertEquals("[0-3: one, 14-17: one, 28-31: one]", regexr.results(huge).limit(3).collect(Collectors.toList()).toString());
+    assertTrue(reads[0] < 1_000, "searches only as much as consumed");
+  }
+
+  @Test
+  void testFindFirst() {
+    final Regexr regexr = new RegexrStandard("o(n)?e", "壱", 1);
+    assertFalse(regexr.findFirst(null).isPresent());
+    assertFalse(regexr.findFirst("").isPresent());
+    assertFalse(regexr.findFirst("o ne").isPresent());
+    assertEquals("8-10: oe", regexr.findFirst("neo ne, oeonee").get().toString());
+    assertEquals(8, regexr.findFirst(new StringBuilder("neo ne, oeonee")).get().start());
+    assertEquals(10, regexr.findFirst(new StringBuilder("neo ne, oeonee")).get().end());
+  }
+
+  @Test
+  void testCount() {
+    final Regexr regexr = new RegexrStandard("o(n)?e", "壱", 1);
+    assertEquals(0, regexr.count(null));
+    assertEquals(0, regexr.count(""));
+    assertEquals(0, regexr.count("o ne"));
+    assertEquals(3, regexr.count("neoneo oeonee"));
+    assertEquals(100_000, regexr.count("one".repeat(100_000)));
+    assertEquals(Regexr.SpaceLintr.find("a  b\t\tc d").size(), Regexr.SpaceLintr.count("a  b\t\tc d"));
+    assertEquals(5, new RegexrStandard("", "").count("abcd"));
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class RegexrUnionTest {
+
+  private static final Regexr[] regexrs = {
+    Regexr.CtrlRemovr, Regexr.SpaceNormalizr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr, Regexr.CjkNormalizr
+    , new RegexrStandard("(?i)ab+", "", 1), new RegexrStandard("b(a|c)\\1", "", 2), new RegexrStandard("\\bc", "", 3), new RegexrStandard("(?<=a)b", "", 4)
+    , new RegexrStandard("x*", "", 5), new RegexrStandard("\\x{1F600}|\\uD83D", "", 6), new RegexrStandard("c$|^a", "", 7), new RegexrStandard("(?<!a)c+", "", 8)
+    , new RegexrStandard("[\\x{20000}-\\x{2FFFF}]", "", 9), new RegexrStandard(".\\n", "", 10)
+  };
+
+  private static final String[] elements = {"a", "A", "b", "c", "x", " ", "  ", "\n", "\t", "\u0001", "　", "ｶﾞ", "ア", "😀", "𠀋", "\uDE00", "-"};
+
+  @Test
+  void test() {
+    assertSame(RegexrUnion.of(), RegexrUnion.of((Regexr[]) null));
+    assertSame(RegexrUnion.of(), RegexrUnion.of(null, null));
+    assertEquals(Collections.emptyList(), RegexrUnion.of().regexrs());
+    assertSame(RegexrUnion.of(Regexr.SpaceLintr, Regexr.Trimr), RegexrUnion.of(Regexr.Trimr, Regexr.SpaceLintr, null, Regexr.Trimr));
+    assertEquals(Arrays.asList(Regexr.SpaceLintr, Regexr.Trimr), RegexrUnion.of(Regexr.Trimr, Regexr.SpaceLintr).regexrs());
+    assertEquals(RegexrUnion.of(Regexr.SpaceLintr, Regexr.Trimr), RegexrUnion.of(Regexr.Trimr, Regexr.SpaceLintr));
+    assertEquals(RegexrUnion.of(Regexr.SpaceLintr, Regexr.Trimr).hashCode(), RegexrUnion.of(Regexr.Trimr, Regexr.SpaceLintr).hashCode());
+    assertNotEquals(RegexrUnion.of(Regexr.SpaceLintr), RegexrUnion.of(Regexr.Trimr));
+    assertEquals(Arrays.asList(Regexr.SpaceLintr).toString(), RegexrUnion.of(Regexr.SpaceLintr).toString());
+
+    final RegexrUnion union = RegexrUnion.of(regexrs);
+    assertEquals(Arrays.asList(regexrs[8], regexrs[9], regexrs[10], regexrs[11], regexrs[14]), IntStream.range(0, union.regexrs().size()).filter((i) -> !union.isScannable(i)).mapToObj(union.regexrs()::get).collect(Collectors.toList()));    assertEquals(Arrays.asList(regexrs[7]), IntStream.range(0, union.regexrs().size()).filter((i) -> !union.isEmbedded(i)).mapToObj(union.regexrs()::get).collect(Collectors.toList()));
+  }
+
+  @Test
+  void testAlternation() {
+    final Regexr flagged = new RegexrStandard("(?is)a.b", "", 1) {
+      @Override
+      public Pattern pattern() {
+        return Pattern.compile("a.b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+      }
+    };
+    final Regexr literal = new RegexrStandard(Pattern.quote("(a)\\E|"), "", 2) {
+      @Override
+      public Pattern pattern() {
+        return Pattern.compile("(a)\\E|", Pattern.LITERAL);
+      }
+    };
+    final Regexr named = new RegexrStandard("(?<x>c)\\k<x>", "", 3);
+    final Regexr quoted = new RegexrStandard("\\Q)|\\E", "", 4);
+    final Regexr grouped = new RegexrStandard("((d)(e))+f", "", 5);
+    final RegexrUnion union = RegexrUnion.of(grouped, quoted, named, literal, flagged);
+    assertEquals(Arrays.asList(true, true, false, false, true), IntStream.range(0, union.regexrs().size()).mapToObj(union::isEmbedded).collect(Collectors.toList()));
+    for (String string : new String[] {"", "A\nB", "x(a)\\E|", "cc", ")|", "dedef", "dedef A\nB", "ccA\rb", "zzz"}) {
+      assertEquals(first(string, union.regexrs()), union.first(string), string);
+      assertEquals(union.regexrs().stream().anyMatch((regexr) -> regexr.pattern().matcher(string).find()), union.anyMatch(string), string);
+    }
+  }
+
+  @Test
+  void testAnyMatch() {
+    final RegexrUnion union = RegexrUnion.of(Regexr.CtrlRemovr, Regexr.SpaceLintr, Regexr.LinefeedLintr, Regexr.Trimr);
+    assertFalse(union.anyMatch(null));
+    assertFalse(union.anyMatch(""));
+    assertFalse(RegexrUnion.of().anyMatch("a"));
+    assertFalse(union.anyMatch("Hello World.\nこんにちは 世界"));
+    assertTrue(union.anyMatch("Hello World.\nこんにちは 世界 "));
+    assertTrue(union.anyMatch("Hello  World."));
+    assertTrue(union.anyMatch("Hello\u0001World."));
+    assertEquals(Optional.of(Regexr.Trimr), union.first(" Hello\u0001World."));
+    assertEquals(Optional.of(Regexr.CtrlRemovr), union.first("Hello\u0001World. "));
+    assertEquals(Optional.of(Regexr.SpaceLintr), union.first("Hello  \nWorld."));
+    assertEquals(Optional.empty(), union.first("Hello World."));
+  }
+
+  @Test
+  void testFind() {
+    final RegexrUnion union = RegexrUnion.of(Regexr.SpaceLintr, Regexr.LinefeedLintr);
+    final Map<Regexr, List<String>> found = union.find("a  b \n c");
+    assertEquals(Arrays.asList(Regexr.SpaceLintr, Regexr.LinefeedLintr), found.keySet().stream().collect(Collectors.toList()));
+    assertEquals(Arrays.asList("  "), found.get(Regexr.SpaceLintr));
+    assertEquals(Arrays.asList(" \n"), found.get(Regexr.LinefeedLintr));
+    assertEquals(Arrays.asList(Collections.emptyList(), Collections.emptyList()), union.find(null).values().stream().collect(Collectors.toList()));
+  }
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(20180103L);
+    IntStream.range(0, 3_000).forEach((i) -> {
+      final String string = IntStream.range(0, random.nextInt(24)).mapToObj((j) -> elements[random.nextInt(elements.length)]).collect(Collectors.joining());
+      final Regexr[] members = IntStream.range(0, 1 + random.nextInt(5)).mapToObj((j) -> regexrs[random.nextInt(regexrs.length)]).toArray(Regexr[]::new);
+      final RegexrUnion union = RegexrUnion.of(members);
+      final Map<Regexr, List<String>> found = union.find(string);
+      union.regexrs().forEach((regexr) -> assertEquals(regexr.find(string), found.get(regexr), () -> regexr + ": " + escape(string)));
+      assertEquals(first(string, union.regexrs()), union.first(string), () -> union + ": " + escape(string));
+      assertEquals(union.regexrs().stream().anyMatch((regexr) -> regexr.matches(string)), union.anyMatch(string));
+      assertEquals(Arrays.stream(members).sorted().flatMap((regexr) -> regexr.find(string).stream()).collect(Collectors.toList()), RegexrOrigin.findAny(string, members));
+    });
+  }
+
+  @Test
+  void testContinuation() {
+    final Regexr continuation = new RegexrStandard("\\Gab", "", 1);
+    final Regexr anchored = new RegexrStandard("\\G[ac]+b", "", 2);
+    final RegexrUnion union = RegexrUnion.of(continuation, anchored, Regexr.Trimr);
+    assertEquals(Arrays.asList(Regexr.Trimr), IntStream.range(0, union.regexrs().size()).filter(union::isScannable).mapToObj(union.regexrs()::get).collect(Collectors.toList()));
+    for (String string : new String[] {"caab", "abab", "xab", "ab", "cab ", " ab"}) {
+      final Map<Regexr, List<String>> found = union.find(string);
+      union.regexrs().forEach((regexr) -> assertEquals(regexr.find(string), found.get(regexr), () -> regexr + ": " + string));
+      assertEquals(first(string, union.regexrs()), union.first(string), string);
+      assertEquals(union.regexrs().stream().anyMatch((regexr) -> regexr.matches(string)), union.anyMatch(string), string);
+      assertEquals(union.regexrs().stream().anyMatch((regexr) -> regexr.matches(string)), RegexrOrigin.anyMatch(string, continuation, anchored, Regexr.Trimr), string);
+      assertEquals(union.regexrs().stream().flatMap((regexr) -> regexr.find(string).stream()).collect(Collectors.toList()), RegexrOrigin.findAny(string, continuation, anchored, Regexr.Trimr), string);
+    }
+    assertFalse(RegexrUnion.of(continuation).anyMatch("caab"));
+    assertEquals(Optional.of(continuation), RegexrUnion.of(continuation).first("abab"));
+  }
+
+  private static Optional<Regexr> first(final String string, final List<Regexr> regexrs) {
+    Regexr first = null;
+    int start = Integer.MAX_VALUE;
+    for (Regexr regexr : regexrs) {
+      final Matcher matcher = regexr.pattern().matcher(Objects.toString(string, ""));
+      if (string != null && !string.isEmpty() && matcher.find() && matcher.start() < start) {
+        first = regexr;
+        start = matcher.start();
+      }
+    }
+
+    return Optional.ofNullable(first);
+  }
+
+  private static String escape(final String string) {
+    return string.chars().mapToObj((c) -> String.format("\\u%04X", c)).collect(Collectors.joining());
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class ScratchrTest {
+
+  @Test
+  void test() {
+    final Pattern pattern = Pattern.compile("a+");
+    final Matcher matcher;
+    final StringBuilder builder;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      matcher = scratch.matcher(pattern, "baab");
+      assertTrue(matcher.find());
+      assertEquals("aa", matcher.group());
+      assertNotSame(matcher, scratch.matcher(pattern, "b"), "lent matcher is never lent twice");
+      builder = scratch.builder().append("dirty");
+      assertNotSame(builder, scratch.builder());
+    }
+    assertEquals(0, matcher.regionEnd(), "the text is released");
+    try (Scratchr scratch = Scratchr.acquire()) {
+      assertSame(matcher, scratch.matcher(pattern, "aaa"));
+      assertTrue(matcher.useTransparentBounds(true).region(1, 3).lookingAt());
+      assertSame(builder, scratch.builder());
+      assertEquals(0, builder.length());
+    }
+    try (Scratchr scratch = Scratchr.acquire()) {
+      assertFalse(scratch.matcher(pattern, "aaa").hasTransparentBounds(), "bounds are reset");
+      assertEquals(3, scratch.matcher(Pattern.compile("a+"), "aaa").regionEnd());
+    }
+  }
+
+  @Test
+  void testReentrant() {
+    final Pattern pattern = Pattern.compile("a+");
+    try (Scratchr outer = Scratchr.acquire()) {
+      final Matcher matcher = outer.matcher(pattern, "aab");
+      try (Scratchr inner = Scratchr.acquire()) {
+        assertNotSame(outer, inner);
+        assertNotSame(matcher, inner.matcher(pattern, "a"));
+      }
+      assertTrue(matcher.find());
+      assertEquals("aa", matcher.group());
+    }
+
+    final Regexr regexr = new RegexrStandard("a+", "[$0]");
+    final StringBuilder nested = new StringBuilder();
+    final Appendable reentrant = new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) {
+        nested.append(regexr.replaceAll(csq.toString()));
+
+        return this;
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end) {
+        return append(csq.subSequence(start, end));
+      }
+
+      @Override
+      public Appendable append(char c) {
+        return append(String.valueOf(c));
+      }
+    };
+    regexr.replaceAll("baab aaa", reentrant);
+    assertEquals("b[[aa]]b [[aaa]]", nested.toString());
+    assertEquals("x y", RegexrPool.recursive("\\s{2,}", " ").replaceAll("x" + " ".repeat(4) + "y"));
+  }
+
+  @Test
+  void testCapacity() {
+    final char[] large = new char[Scratchr.maximumCapacity + 1];
+    final char[] small = new char[16];
+    final StringBuilder builder;
+    try (Scratchr scratch = Scratchr.acquire()) {
+      IntStream.range(0, 4).forEach((i) -> scratch.chars(0));
+      scratch.recycle(large);
+      scratch.recycle(small);
+      assertSame(small, scratch.chars(8));
+      assertNotSame(small, scratch.chars(8));
+      assertEquals(32, scratch.chars(32).length);
+      builder = scratch.builder();
+      builder.append(large);
+    }
+    try (Scratchr scratch = Scratchr.acquire()) {
+      assertNotSame(builder, scratch.builder(), "too large to retain");
+    }
+    assertEquals("a" + " ".repeat(1) + "b", RegexrPool.recursive("\\s{2,}", " ").replaceAll("a" + " ".repeat(Scratchr.maximumCapacity * 2) + "b"));
+  }
+
+  @Test
+  void testConcurrency() throws Exception {
+    assertFalse(Scratchr.isVirtual(Thread.currentThread()));
+    final String text = "ｺﾝﾆﾁﾊ　　世界\n\n\tHello  World.";
+    final String expected = Regexr.CjkNormalizr.replaceAll(Regexr.SpaceLintr.replaceAll(text));
+    final ExecutorService executor = virtualThreads();
+    try {
+      final List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < 64; t++) {
+        futures.add(executor.submit(() -> {
+          int failures = 0;
+          for (int i = 0; i < 1_000; i++) {
+            failures += expected.equals(Regexr.CjkNormalizr.replaceAll(Regexr.SpaceLintr.replaceAll(text))) ? 0 : 1;
+            failures += Regexr.CjkNormalizr.matches(text) && Regexr.SpaceLintr.find(text).size() == 2 ? 0 : 1;
+          }
+
+          return failures;
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        assertEquals(0, future.get().intValue());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * returns an executor of virtual threads if the runtime supports, or of platform threads .
+   *
+   * @return {@link ExecutorService}
+   */
+  private static ExecutorService virtualThreads() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(8);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017+ furplag (https://github.com/furplag)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jp.furplag.text.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.Constructor;
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import jp.furplag.text.offset.OffsetMap;
+
+public class WidthNormalizrTest {
+
+  private static final String forms = IntStream.concat(IntStream.rangeClosed(0x3000, 0x30FF), IntStream.rangeClosed(0xFF00, 0xFFEF)).mapToObj(RegexrOrigin::newString).reduce("", String::concat);
+
+  private static String normalize(String text) {
+    return WidthNormalizr.normalize(text, 0, text.length(), new StringBuilder()).toString();
+  }
+
+  @Test
+  void test() throws SecurityException, ReflectiveOperationException {
+    Constructor<?> c = WidthNormalizr.class.getDeclaredConstructor();
+    c.setAccessible(true);
+    assertTrue(c.newInstance() instanceof WidthNormalizr);
+  }
+
+  @Test
+  void testNormalize() {
+    assertEquals("", normalize(""));
+    assertEquals("カガパ\u3099 \u3099", normalize("ｶｶﾞﾊﾟﾞ゛"));
+    assertEquals("ヷヸヴヹヺ", normalize("ﾜﾞヰﾞｳﾞヱﾞｦﾞ"));
+    assertEquals("가가갃", normalize("ﾡￂﾡￂﾡￂﾣ"));
+    assertEquals("Hello World.", normalize("Ｈｅｌｌｏ　Ｗｏｒｌｄ．"));
+    assertEquals("[カ\u3099", WidthNormalizr.normalize("ｶﾞ", 1, 2, WidthNormalizr.normalize("ｶﾞ", 0, 1, new StringBuilder("["))).toString());
+    assertEquals("ガ", WidthNormalizr.normalize("_ｶﾞ_", 1, 3, new StringBuilder()).toString());
+  }
+
+  @Test
+  void testEachCodePoint() {
+    forms.codePoints().mapToObj(RegexrOrigin::newString).forEach(s -> assertEquals(Normalizer.normalize(s, Form.NFKC), normalize(s), () -> Integer.toHexString(s.codePointAt(0))));
+  }
+
+  @Test
+  void testEachPair() {
+    forms.codePoints().mapToObj(RegexrOrigin::newString).forEach(s -> forms.codePoints().mapToObj(RegexrOrigin::newString).map(s::concat).forEach(t -> assertEquals(Normalizer.normalize(t, Form.NFKC), normalize(t), () -> t.codePoints().mapToObj(Integer::toHexString).reduce("", String::concat))));
+  }
+
+  @Test
+  void testHangul() {
+    final String hanguls = IntStream.rangeClosed(0xFFA0, 0xFFDF).mapToObj(RegexrOrigin::newString).reduce("", String::concat);
+    hanguls.codePoints().mapToObj(RegexrOrigin::newString).forEach(l -> hanguls.codePoints().mapToObj(RegexrOrigin::newString).forEach(v -> hanguls.codePoints().mapToObj(RegexrOrigin::newString).map((l + v)::concat).forEach(t -> assertEquals(Normalizer.normalize(t, Form.NFKC), normalize(t)))));
+  }
+
+  @Test
+  void testReordering() {
+    assertEquals(Normalizer.normalize("ｶ〪ﾞ", Form.NFKC), normalize("ｶ〪ﾞ"));
+    assertEquals(Normalizer.normalize("ｱ￣ﾞ", Form.NFKC), normalize("ｱ￣ﾞ"));
+    assertEquals(Normalizer.normalize("ｱ〪〭", Form.NFKC), normalize("ｱ〪〭"));
+  }
+
+  @Test
+  void testNormalizeOffsets() {
+    final OffsetMap.Builder offsets = new OffsetMap.Builder();
+    assertEquals("カガパ\u3099 \u3099", WidthNormalizr.normalize("ｶｶﾞﾊﾟﾞ゛", 0, 7, new StringBuilder(), offsets).toString());
+    assertEquals("{0-1: 0-1, 1-3: 1-2, 3-5: 2-3, 5-6: 3-4, 6-7: 4-6}", offsets.build().toString());
+    final OffsetMap.Builder reordering = new OffsetMap.Builder();
+    assertEquals(Normalizer.normalize("ｱｶ〪ﾞｱ", Form.NFKC), WidthNormalizr.normalize("ｱｶ〪ﾞｱ", 0, 5, new StringBuilder(), reordering).toString());
+    assertEquals("{0-1: 0-1, 1-4: 1-3, 4-5: 3-4}", reordering.build().toString());
+    forms.codePoints().mapToObj(RegexrOrigin::newString).map("ｶ〪"::concat).forEach(s -> assertEquals(normalize(s), WidthNormalizr.normalize(s, 0, s.length(), new StringBuilder(), new OffsetMap.Builder()).toString()));
+    forms.codePoints().mapToObj(RegexrOrigin::newString).map("ﾊﾞ"::concat).forEach(s -> assertEquals(normalize(s), WidthNormalizr.normalize(s, 0, s.length(), new StringBuilder(), new OffsetMap.Builder()).toString()));
+  }
+}